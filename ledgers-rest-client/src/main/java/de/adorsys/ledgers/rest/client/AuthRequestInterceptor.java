@@ -4,20 +4,40 @@ import de.adorsys.ledgers.middleware.rest.utils.Constants;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 
+/**
+ * Adds the bearer token of the current PSU to every outgoing Ledgers call.
+ * <p>
+ * The interceptor is a singleton shared by all worker threads, so the token is kept thread-confined: each thread
+ * only ever sees the token it has set itself. Callers must reset the token with {@code setAccessToken(null)} once
+ * they are done, otherwise it stays attached to the pooled thread.
+ */
 public class AuthRequestInterceptor implements RequestInterceptor {
-	
+
 	private static final String BEARER_CONSTANT = "Bearer ";
-	
-	private String accessToken;
+
+	private final ThreadLocal<String> accessToken = new ThreadLocal<>();
 
 	@Override
 	public void apply(RequestTemplate template) {
-		if(accessToken!=null) {
-			template.header(Constants.AUTH_HEADER_NAME, BEARER_CONSTANT + accessToken);
+		String token = accessToken.get();
+		if(token!=null) {
+			template.header(Constants.AUTH_HEADER_NAME, BEARER_CONSTANT + token);
 		}
 	}
 
 	public void setAccessToken(String accessToken) {
-		this.accessToken = accessToken;
+		if (accessToken == null) {
+			this.accessToken.remove();
+		} else {
+			this.accessToken.set(accessToken);
+		}
+	}
+
+	/**
+	 * Returns the token bound to the current thread, so that it can be handed over to another thread that performs
+	 * Ledgers calls on behalf of the same request.
+	 */
+	public String getAccessToken() {
+		return accessToken.get();
 	}
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validates the bearer tokens of PSUs and caches the result, so that a token presented with every request of a TPP
+ * is validated by Ledgers once. Valid tokens are cached until they expire, at most for the maximum TTL, which bounds
+ * the time a token revoked in Ledgers is still accepted. Tokens rejected by Ledgers are cached for the negative TTL.
+ * <p>
+ * If a verification key is configured, the signature and expiry of the token are verified locally by the
+ * {@link JwtSignatureVerifier} instead of calling Ledgers.
+ * <p>
+ * The returned {@link BearerTokenTO} is shared by all requests presenting the token and must not be modified.
+ */
+public class BearerTokenValidator {
+    private final UserMgmtRestClient userMgmtRestClient;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final JwtSignatureVerifier jwtSignatureVerifier;
+    private final long maxTtl;
+    private final long negativeTtl;
+    private final boolean cacheEnabled;
+    private final Cache<String, Validation> validations;
+
+    /**
+     * @param maxSize         maximum number of cached tokens, 0 disables the cache
+     * @param maxTtl          maximum time in milliseconds a valid token is cached, 0 disables the cache
+     * @param negativeTtl     time in milliseconds a token rejected by Ledgers is cached
+     * @param verificationKey key to verify the token signature locally with or {@code null}
+     */
+    public BearerTokenValidator(UserMgmtRestClient userMgmtRestClient, AuthRequestInterceptor authRequestInterceptor,
+                                long maxSize, long maxTtl, long negativeTtl, String verificationKey) {
+        this.userMgmtRestClient = userMgmtRestClient;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.jwtSignatureVerifier = verificationKey == null || verificationKey.isEmpty()
+                                            ? null
+                                            : new JwtSignatureVerifier(verificationKey);
+        this.maxTtl = maxTtl;
+        this.negativeTtl = negativeTtl;
+        this.cacheEnabled = maxSize > 0 && maxTtl > 0;
+        this.validations = Caffeine.newBuilder()
+                                   .maximumSize(Math.max(maxSize, 0))
+                                   .expireAfter(new ValidationExpiry())
+                                   .build();
+    }
+
+    /**
+     * Returns the validated token.
+     *
+     * @throws FeignException if the token is invalid or Ledgers is not available
+     */
+    public BearerTokenTO validate(String accessToken) {
+        if (accessToken == null) {
+            throw unauthorized("Bearer token is missing");
+        }
+        if (jwtSignatureVerifier != null) {
+            return jwtSignatureVerifier.verify(accessToken);
+        }
+        if (!cacheEnabled) {
+            return validateRemotely(accessToken).getToken();
+        }
+
+        String key = hash(accessToken);
+        Validation validation = validations.getIfPresent(key);
+        if (validation == null) {
+            validation = validateRemotely(accessToken);
+            if (validation.getTtlNanos() > 0) {
+                validations.put(key, validation);
+            }
+        }
+        return validation.getToken();
+    }
+
+    static FeignException unauthorized(String message) {
+        Response response = Response.builder()
+                                    .status(HttpStatus.UNAUTHORIZED.value())
+                                    .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                                    .headers(Collections.emptyMap())
+                                    .build();
+        return FeignException.errorStatus(message, response);
+    }
+
+    private Validation validateRemotely(String accessToken) {
+        try {
+            authRequestInterceptor.setAccessToken(accessToken);
+            BearerTokenTO token = userMgmtRestClient.validate(accessToken).getBody();
+            long ttl = token == null ? 0 : Math.min(maxTtl, TimeUnit.SECONDS.toMillis(token.getExpires_in()));
+            return new Validation(token, null, ttl);
+        } catch (FeignException e) {
+            if (e.status() >= 400 && e.status() < 500) {
+                return new Validation(null, e, negativeTtl);
+            }
+            throw e;
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
+        }
+    }
+
+    /**
+     * Returns the Base64 encoded SHA-256 hash of the given bearer token. Caches holding data per bearer token use the
+     * hash as key, so that the raw tokens are not kept in memory, and serve an entry only to requests presenting the
+     * token it has been loaded with.
+     */
+    public static String hash(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    private static class Validation {
+        private final BearerTokenTO token;
+        private final FeignException error;
+        private final long ttlNanos;
+
+        Validation(BearerTokenTO token, FeignException error, long ttl) {
+            this.token = token;
+            this.error = error;
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(ttl, 0));
+        }
+
+        BearerTokenTO getToken() {
+            if (error != null) {
+                throw error;
+            }
+            return token;
+        }
+
+        long getTtlNanos() {
+            return ttlNanos;
+        }
+    }
+
+    private static class ValidationExpiry implements Expiry<String, Validation> {
+        @Override
+        public long expireAfterCreate(String key, Validation validation, long currentTime) {
+            return validation.getTtlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Validation validation, long currentTime, long currentDuration) {
+            return validation.getTtlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Validation validation, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
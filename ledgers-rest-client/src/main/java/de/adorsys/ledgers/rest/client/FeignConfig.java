@@ -1,25 +1,44 @@
 package de.adorsys.ledgers.rest.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import feign.Client;
+import feign.Request;
+import feign.RequestInterceptor;
 import feign.codec.Encoder;
+import feign.httpclient.ApacheHttpClient;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.cloud.openfeign.FeignFormatterRegistrar;
 import org.springframework.cloud.openfeign.support.SpringEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * In this configuration, we clone the original object mapper and remove the
  * root value wrapping.
+ * <p>
+ * It also defines the transport used by the clients: a pooled Apache HTTP client by default
+ * ({@code ledgers.feign.transport=apache}) or the JDK HTTP client with HTTP/2 support
+ * ({@code ledgers.feign.transport=http2}). The configuration is instantiated once per client name, so every client
+ * gets its own connection pool. Timeouts can be overridden per client name with the standard
+ * {@code feign.client.config.<client-name>.connectTimeout/readTimeout} properties.
  *
  * @author fpo
  */
 @Configuration
 public class FeignConfig {
+    private static final String TRANSPORT_PROPERTY = "ledgers.feign.transport";
 
     @Bean
     public Encoder feignEncoder(ObjectMapper objectMapper) {
@@ -36,4 +55,50 @@ public class FeignConfig {
             registrar.registerFormatters(formatterRegistry);
         };
     }
+
+    @Bean
+    public Request.Options feignRequestOptions(@Value("${ledgers.feign.connect-timeout.ms:10000}") int connectTimeout,
+                                               @Value("${ledgers.feign.read-timeout.ms:60000}") int readTimeout) {
+        return new Request.Options(connectTimeout, readTimeout);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "apache", matchIfMissing = true)
+    public CloseableHttpClient feignHttpClient(@Value("${ledgers.feign.pool.max-total:200}") int maxTotal,
+                                               @Value("${ledgers.feign.pool.max-per-route:50}") int maxPerRoute,
+                                               @Value("${ledgers.feign.pool.idle-eviction.ms:30000}") long idleEvictionTime) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        return HttpClients.custom()
+                       .setConnectionManager(connectionManager)
+                       .evictExpiredConnections()
+                       .evictIdleConnections(idleEvictionTime, TimeUnit.MILLISECONDS)
+                       .disableCookieManagement()
+                       .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "apache", matchIfMissing = true)
+    public Client apacheFeignClient(CloseableHttpClient feignHttpClient) {
+        return new ApacheHttpClient(feignHttpClient);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "http2")
+    public Client http2FeignClient() {
+        return new Http2FeignClient();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ledgers.feign.compression.response.enabled", havingValue = "true", matchIfMissing = true)
+    public RequestInterceptor acceptGzipEncodingInterceptor() {
+        return template -> template.header(HttpHeaders.ACCEPT_ENCODING, "gzip");
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "ledgers.feign.compression.request.enabled", havingValue = "true")
+    public RequestInterceptor gzipRequestBodyInterceptor(@Value("${ledgers.feign.compression.request.min-request-size:2048}") int minRequestSize) {
+        return new GzipRequestBodyInterceptor(minRequestSize);
+    }
 }
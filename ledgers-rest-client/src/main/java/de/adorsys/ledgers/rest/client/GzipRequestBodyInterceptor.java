@@ -0,0 +1,44 @@
+package de.adorsys.ledgers.rest.client;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses request bodies above the configured size. Only to be enabled when the server side accepts
+ * {@code Content-Encoding: gzip} request bodies.
+ */
+public class GzipRequestBodyInterceptor implements RequestInterceptor {
+    private static final String GZIP = "gzip";
+
+    private final int minRequestSize;
+
+    public GzipRequestBodyInterceptor(int minRequestSize) {
+        this.minRequestSize = minRequestSize;
+    }
+
+    @Override
+    public void apply(RequestTemplate template) {
+        byte[] body = template.body();
+        if (body == null || body.length < minRequestSize || template.headers().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            return;
+        }
+        template.body(gzip(body), null);
+        template.header(HttpHeaders.CONTENT_ENCODING, GZIP);
+    }
+
+    private byte[] gzip(byte[] body) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(body.length / 4 + 32);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Request body compression failed", e);
+        }
+        return outputStream.toByteArray();
+    }
+}
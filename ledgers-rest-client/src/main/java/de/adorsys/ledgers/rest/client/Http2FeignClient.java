@@ -0,0 +1,97 @@
+package de.adorsys.ledgers.rest.client;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Feign transport based on the JDK 11 {@link HttpClient}. HTTP/2 is negotiated where the server supports it,
+ * otherwise the client falls back to HTTP/1.1 with keep-alive connections.
+ */
+public class Http2FeignClient implements Client {
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+    private static final String GZIP = "gzip";
+
+    private final Map<Integer, HttpClient> httpClients = new ConcurrentHashMap<>();
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        HttpClient httpClient = httpClients.computeIfAbsent(options.connectTimeoutMillis(), this::buildHttpClient);
+        HttpResponse<byte[]> httpResponse;
+        try {
+            httpResponse = httpClient.send(toHttpRequest(request, options), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling " + request.url(), e);
+        }
+        return toResponse(request, httpResponse);
+    }
+
+    private HttpClient buildHttpClient(int connectTimeout) {
+        return HttpClient.newBuilder()
+                       .version(HttpClient.Version.HTTP_2)
+                       .connectTimeout(Duration.ofMillis(connectTimeout))
+                       .followRedirects(HttpClient.Redirect.NORMAL)
+                       .build();
+    }
+
+    private HttpRequest toHttpRequest(Request request, Request.Options options) {
+        byte[] body = request.body();
+        HttpRequest.BodyPublisher bodyPublisher = body == null
+                                                          ? HttpRequest.BodyPublishers.noBody()
+                                                          : HttpRequest.BodyPublishers.ofByteArray(body);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.url()))
+                                              .timeout(Duration.ofMillis(options.readTimeoutMillis()))
+                                              .method(request.httpMethod().name(), bodyPublisher);
+        request.headers().forEach((name, values) -> {
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.build();
+    }
+
+    private Response toResponse(Request request, HttpResponse<byte[]> httpResponse) throws IOException {
+        boolean gzipped = httpResponse.headers().firstValue(HttpHeaders.CONTENT_ENCODING)
+                                  .map(GZIP::equalsIgnoreCase)
+                                  .orElse(false);
+        Map<String, Collection<String>> headers = new HashMap<>();
+        httpResponse.headers().map().forEach((name, values) -> {
+            if (!gzipped || !isContentHeader(name)) {
+                headers.put(name, new ArrayList<>(values));
+            }
+        });
+        return Response.builder()
+                       .status(httpResponse.statusCode())
+                       .request(request)
+                       .headers(headers)
+                       .body(gzipped ? gunzip(httpResponse.body()) : httpResponse.body())
+                       .build();
+    }
+
+    private boolean isContentHeader(String name) {
+        return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+
+    private byte[] gunzip(byte[] body) throws IOException {
+        if (body == null || body.length == 0) {
+            return body;
+        }
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
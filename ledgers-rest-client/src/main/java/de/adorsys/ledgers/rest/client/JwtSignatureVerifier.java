@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+/**
+ * Verifies the signature and expiry of a JWT bearer token without calling Ledgers. A verification key holding a
+ * Base64 encoded X.509 RSA public key (with or without PEM armour) verifies RS256 tokens, any other key is used as
+ * shared secret for HS256 tokens. Tokens signed with another algorithm are rejected, so a token cannot be signed with
+ * the public key as HMAC secret.
+ * <p>
+ * Tokens revoked in Ledgers are accepted until they expire. The returned token contains the access token and its
+ * remaining lifetime only.
+ */
+class JwtSignatureVerifier {
+    private static final String HS256 = "HS256";
+    private static final String RS256 = "RS256";
+    private static final String PEM_ARMOUR = "-----[A-Z ]+-----";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String algorithm;
+    private final byte[] secret;
+    private final PublicKey publicKey;
+
+    JwtSignatureVerifier(String verificationKey) {
+        PublicKey rsaKey = parsePublicKey(verificationKey);
+        this.algorithm = rsaKey == null ? HS256 : RS256;
+        this.secret = rsaKey == null ? verificationKey.getBytes(StandardCharsets.UTF_8) : null;
+        this.publicKey = rsaKey;
+    }
+
+    BearerTokenTO verify(String accessToken) {
+        String[] parts = accessToken.split("\\.");
+        if (parts.length != 3) {
+            throw BearerTokenValidator.unauthorized("Bearer token is not a signed JWT");
+        }
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            JsonNode header = objectMapper.readTree(decoder.decode(parts[0]));
+            if (!algorithm.equals(header.path("alg").asText())) {
+                throw BearerTokenValidator.unauthorized("Bearer token is not signed with " + algorithm);
+            }
+            byte[] signingInput = (parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII);
+            if (!isSignatureValid(signingInput, decoder.decode(parts[2]))) {
+                throw BearerTokenValidator.unauthorized("Bearer token signature is invalid");
+            }
+
+            long expiresIn = objectMapper.readTree(decoder.decode(parts[1])).path("exp").asLong()
+                                     - System.currentTimeMillis() / 1000;
+            if (expiresIn <= 0) {
+                throw BearerTokenValidator.unauthorized("Bearer token is expired");
+            }
+            BearerTokenTO token = new BearerTokenTO();
+            token.setAccess_token(accessToken);
+            token.setExpires_in((int) Math.min(expiresIn, Integer.MAX_VALUE));
+            return token;
+        } catch (IOException | IllegalArgumentException | GeneralSecurityException e) {
+            throw BearerTokenValidator.unauthorized("Bearer token could not be verified: " + e.getMessage());
+        }
+    }
+
+    private boolean isSignatureValid(byte[] signingInput, byte[] signature) throws GeneralSecurityException {
+        if (publicKey != null) {
+            Signature verifier = Signature.getInstance("SHA256withRSA");
+            verifier.initVerify(publicKey);
+            verifier.update(signingInput);
+            return verifier.verify(signature);
+        }
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+        return MessageDigest.isEqual(mac.doFinal(signingInput), signature);
+    }
+
+    private static PublicKey parsePublicKey(String verificationKey) {
+        try {
+            byte[] encoded = Base64.getMimeDecoder().decode(verificationKey.replaceAll(PEM_ARMOUR, ""));
+            return KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(encoded));
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.sun.net.httpserver.HttpServer;
+import de.adorsys.ledgers.middleware.rest.utils.Constants;
+import feign.Feign;
+import feign.RequestLine;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthRequestInterceptorTest {
+    private static final int WORKER_THREADS = 64;
+    private static final int REQUESTS = 1_000;
+    private static final int PSU_COUNT = 25;
+
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthRequestInterceptor();
+    private HttpServer ledgersStub;
+    private LedgersStubClient ledgersStubClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ledgersStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ledgersStub.createContext("/token", exchange -> {
+            String header = exchange.getRequestHeaders().getFirst(Constants.AUTH_HEADER_NAME);
+            byte[] body = (header == null ? "" : header).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        ledgersStub.setExecutor(Executors.newFixedThreadPool(WORKER_THREADS));
+        ledgersStub.start();
+
+        ledgersStubClient = Feign.builder()
+                                    .requestInterceptor(authRequestInterceptor)
+                                    .target(LedgersStubClient.class, "http://localhost:" + ledgersStub.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgersStub.stop(0);
+        ((ExecutorService) ledgersStub.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    void apply_withoutToken_shouldNotAddHeader() {
+        // Given
+        RequestTemplate template = new RequestTemplate();
+
+        // When
+        authRequestInterceptor.apply(template);
+
+        // Then
+        assertFalse(template.headers().containsKey(Constants.AUTH_HEADER_NAME));
+    }
+
+    @Test
+    void apply_tokenIsResetToNull_shouldNotAddHeader() {
+        // Given
+        authRequestInterceptor.setAccessToken("token");
+        authRequestInterceptor.setAccessToken(null);
+        RequestTemplate template = new RequestTemplate();
+
+        // When
+        authRequestInterceptor.apply(template);
+
+        // Then
+        assertFalse(template.headers().containsKey(Constants.AUTH_HEADER_NAME));
+        assertNull(authRequestInterceptor.getAccessToken());
+    }
+
+    @Test
+    void apply_tokenSetInAnotherThread_shouldNotBeVisible() throws Exception {
+        // Given
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            executorService.submit(() -> authRequestInterceptor.setAccessToken("foreign token")).get();
+
+            // When
+            String header = ledgersStubClient.echoAuthorisationHeader();
+
+            // Then
+            assertTrue(header == null || header.isEmpty());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void apply_concurrentRequestsOfDifferentPsus_shouldSendOwnTokenOnly() throws Exception {
+        // Given
+        ExecutorService executorService = Executors.newFixedThreadPool(WORKER_THREADS);
+        CyclicBarrier barrier = new CyclicBarrier(WORKER_THREADS);
+        List<Future<String>> mismatches = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                String token = "psu-" + (i % PSU_COUNT) + "-token-" + i;
+                boolean synchronisedStart = i < WORKER_THREADS;
+                mismatches.add(executorService.submit(() -> callLedgersStub(token, synchronisedStart ? barrier : null)));
+            }
+
+            // Then
+            for (Future<String> mismatch : mismatches) {
+                assertNull(mismatch.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private String callLedgersStub(String token, CyclicBarrier barrier) throws Exception {
+        if (barrier != null) {
+            barrier.await(30, TimeUnit.SECONDS);
+        }
+        try {
+            authRequestInterceptor.setAccessToken(token);
+            String header = ledgersStubClient.echoAuthorisationHeader();
+            String expected = "Bearer " + token;
+            return expected.equals(header) ? null : "Expected " + expected + " but Ledgers received " + header;
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
+        }
+    }
+
+    interface LedgersStubClient {
+        @RequestLine("GET /token")
+        String echoAuthorisationHeader();
+    }
+}
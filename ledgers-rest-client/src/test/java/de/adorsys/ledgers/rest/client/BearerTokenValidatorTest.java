@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BearerTokenValidatorTest {
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String SECRET = "verification secret";
+
+    @Mock
+    private UserMgmtRestClient userMgmtRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+
+    @Test
+    void validate_validToken_shouldCallLedgersOnce() {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, null);
+        BearerTokenTO expected = bearerToken(600);
+        when(userMgmtRestClient.validate(ACCESS_TOKEN)).thenReturn(ResponseEntity.ok(expected));
+
+        // When
+        BearerTokenTO first = validator.validate(ACCESS_TOKEN);
+        BearerTokenTO second = validator.validate(ACCESS_TOKEN);
+
+        // Then
+        assertEquals(expected, first);
+        assertEquals(expected, second);
+        InOrder inOrder = inOrder(authRequestInterceptor, userMgmtRestClient);
+        inOrder.verify(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
+        inOrder.verify(userMgmtRestClient).validate(ACCESS_TOKEN);
+        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        verify(userMgmtRestClient, times(1)).validate(any());
+    }
+
+    @Test
+    void validate_expiredToken_shouldNotBeCached() {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, null);
+        when(userMgmtRestClient.validate(ACCESS_TOKEN)).thenReturn(ResponseEntity.ok(bearerToken(0)));
+
+        // When
+        validator.validate(ACCESS_TOKEN);
+        validator.validate(ACCESS_TOKEN);
+
+        // Then
+        verify(userMgmtRestClient, times(2)).validate(ACCESS_TOKEN);
+    }
+
+    @Test
+    void validate_rejectedToken_shouldBeCachedNegatively() {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, null);
+        when(userMgmtRestClient.validate(ACCESS_TOKEN)).thenThrow(error(HttpStatus.UNAUTHORIZED));
+
+        // Then
+        assertThrows(FeignException.class, () -> validator.validate(ACCESS_TOKEN));
+        assertThrows(FeignException.class, () -> validator.validate(ACCESS_TOKEN));
+        verify(userMgmtRestClient, times(1)).validate(ACCESS_TOKEN);
+        verify(authRequestInterceptor).setAccessToken(null);
+    }
+
+    @Test
+    void validate_ledgersError_shouldNotBeCached() {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, null);
+        when(userMgmtRestClient.validate(ACCESS_TOKEN))
+                .thenThrow(error(HttpStatus.INTERNAL_SERVER_ERROR))
+                .thenReturn(ResponseEntity.ok(bearerToken(600)));
+
+        // Then
+        assertThrows(FeignException.class, () -> validator.validate(ACCESS_TOKEN));
+        assertNotNull(validator.validate(ACCESS_TOKEN));
+    }
+
+    @Test
+    void validate_cacheDisabled_shouldCallLedgersEveryTime() {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 0, 0, 0, "");
+        when(userMgmtRestClient.validate(ACCESS_TOKEN)).thenReturn(ResponseEntity.ok(bearerToken(600)));
+
+        // When
+        validator.validate(ACCESS_TOKEN);
+        validator.validate(ACCESS_TOKEN);
+
+        // Then
+        verify(userMgmtRestClient, times(2)).validate(ACCESS_TOKEN);
+    }
+
+    @Test
+    void validate_verificationSecret_shouldVerifyHs256Locally() throws GeneralSecurityException {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, SECRET);
+        String token = hs256Token(exp(600), SECRET);
+
+        // When
+        BearerTokenTO actual = validator.validate(token);
+
+        // Then
+        assertEquals(token, actual.getAccess_token());
+        assertTrue(actual.getExpires_in() > 590);
+        verifyNoInteractions(userMgmtRestClient);
+    }
+
+    @Test
+    void validate_verificationSecret_shouldRejectInvalidTokens() throws GeneralSecurityException {
+        // Given
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, SECRET);
+
+        // Then
+        assertThrows(FeignException.class, () -> validator.validate(hs256Token(exp(600), "other secret")));
+        assertThrows(FeignException.class, () -> validator.validate(hs256Token(exp(-1), SECRET)));
+        assertThrows(FeignException.class, () -> validator.validate(ACCESS_TOKEN));
+        verifyNoInteractions(userMgmtRestClient);
+    }
+
+    @Test
+    void validate_verificationPublicKey_shouldVerifyRs256Only() throws GeneralSecurityException {
+        // Given
+        KeyPair keyPair = KeyPairGenerator.getInstance("RSA").generateKeyPair();
+        String publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+        BearerTokenValidator validator = new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, 100, 60_000, 5_000, publicKey);
+        String signingInput = encode("{\"alg\":\"RS256\"}") + "." + encode(exp(600));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keyPair.getPrivate());
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        String token = signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+
+        // Then
+        assertEquals(token, validator.validate(token).getAccess_token());
+        assertThrows(FeignException.class, () -> validator.validate(hs256Token(exp(600), publicKey)));
+        verifyNoInteractions(userMgmtRestClient);
+    }
+
+    private BearerTokenTO bearerToken(int expiresIn) {
+        BearerTokenTO bearerToken = new BearerTokenTO();
+        bearerToken.setAccess_token(ACCESS_TOKEN);
+        bearerToken.setExpires_in(expiresIn);
+        return bearerToken;
+    }
+
+    private FeignException error(HttpStatus httpStatus) {
+        Response response = Response.builder()
+                                    .status(httpStatus.value())
+                                    .request(Request.create(Request.HttpMethod.GET, "", Collections.emptyMap(), null))
+                                    .headers(Collections.emptyMap())
+                                    .build();
+        return FeignException.errorStatus("some message", response);
+    }
+
+    private String exp(long expiresIn) {
+        return "{\"sub\":\"psu\",\"exp\":" + (System.currentTimeMillis() / 1000 + expiresIn) + "}";
+    }
+
+    private String hs256Token(String payload, String secret) throws GeneralSecurityException {
+        String signingInput = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}") + "." + encode(payload);
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+    }
+
+    private String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.ledgers.rest.client;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.RequestLine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Http2FeignClientTest {
+    private static final String PAYLOAD = "{\"transactions\": \"" + "x".repeat(4096) + "\"}";
+
+    private HttpServer ledgersStub;
+    private LedgersStubClient ledgersStubClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ledgersStub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        ledgersStub.createContext("/gzip", exchange -> {
+            byte[] body = gzip(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add(HttpHeaders.CONTENT_ENCODING, "gzip");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        ledgersStub.createContext("/echo", exchange -> {
+            byte[] requestBody;
+            try (InputStream inputStream = exchange.getRequestBody()) {
+                requestBody = inputStream.readAllBytes();
+            }
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(requestBody))) {
+                    requestBody = inputStream.readAllBytes();
+                }
+            }
+            exchange.sendResponseHeaders(200, requestBody.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(requestBody);
+            }
+        });
+        ledgersStub.start();
+
+        ledgersStubClient = Feign.builder()
+                                    .client(new Http2FeignClient())
+                                    .requestInterceptor(new GzipRequestBodyInterceptor(1024))
+                                    .target(LedgersStubClient.class, "http://localhost:" + ledgersStub.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgersStub.stop(0);
+    }
+
+    @Test
+    void execute_gzipResponse_shouldBeDecompressed() {
+        // When
+        String actual = ledgersStubClient.gzip();
+
+        // Then
+        assertEquals(PAYLOAD, actual);
+    }
+
+    @Test
+    void execute_largeRequestBody_shouldBeCompressedAndAccepted() {
+        // When
+        String actual = ledgersStubClient.echo(PAYLOAD);
+
+        // Then
+        assertEquals(PAYLOAD, actual);
+    }
+
+    @Test
+    void execute_smallRequestBody_shouldBeSentAsIs() {
+        // When
+        String actual = ledgersStubClient.echo("{}");
+
+        // Then
+        assertEquals("{}", actual);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(body);
+        }
+        return outputStream.toByteArray();
+    }
+
+    interface LedgersStubClient {
+        @RequestLine("GET /gzip")
+        String gzip();
+
+        @RequestLine("POST /echo")
+        String echo(String body);
+    }
+}
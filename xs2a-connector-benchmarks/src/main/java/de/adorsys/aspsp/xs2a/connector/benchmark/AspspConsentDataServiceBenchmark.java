@@ -0,0 +1,73 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.connector.config.auth.TokenStorageServiceImpl;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.AspspConsentDataService;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AspspConsentDataService#response(byte[])} on JSON consent data, decoded either through a
+ * {@code JsonNode} tree ({@code tree}, the former decoding) or in a single streaming pass ({@code streaming}), both
+ * without the decoded consent data cache, or taken from that cache ({@code cached}).
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar AspspConsentDataServiceBenchmark -prof gc}
+ * and compare {@code gc.alloc.rate.norm}, the bytes allocated per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AspspConsentDataServiceBenchmark {
+    @Param({"tree", "streaming", "cached"})
+    private String decoding;
+
+    private AspspConsentDataService aspspConsentDataService;
+    private byte[] aspspConsentData;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new JacksonConfig().objectMapper();
+        if ("tree".equals(decoding)) {
+            aspspConsentDataService = new AspspConsentDataService(new TreeTokenStorageService(mapper), mapper, 0, 0);
+        } else if ("streaming".equals(decoding)) {
+            aspspConsentDataService = new AspspConsentDataService(new TokenStorageServiceImpl(mapper, "json"), mapper, 0, 0);
+        } else {
+            aspspConsentDataService = new AspspConsentDataService(new TokenStorageServiceImpl(mapper, "json"), mapper, 1000, 60_000);
+        }
+        aspspConsentData = BenchmarkData.read("json/sca-consent-response.json");
+    }
+
+    @Benchmark
+    public SCAResponseTO response() {
+        return aspspConsentDataService.response(aspspConsentData);
+    }
+
+    @Benchmark
+    public SCAConsentResponseTO responseWithClass() {
+        return aspspConsentDataService.response(aspspConsentData, SCAConsentResponseTO.class);
+    }
+}
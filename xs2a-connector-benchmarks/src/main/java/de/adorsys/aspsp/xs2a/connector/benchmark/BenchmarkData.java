@@ -0,0 +1,34 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+final class BenchmarkData {
+    private BenchmarkData() {
+    }
+
+    static byte[] read(String resource) throws IOException {
+        try (InputStream inputStream = BenchmarkData.class.getClassLoader().getResourceAsStream(resource)) {
+            if (inputStream == null) {
+                throw new IOException("Resource not found: " + resource);
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+}
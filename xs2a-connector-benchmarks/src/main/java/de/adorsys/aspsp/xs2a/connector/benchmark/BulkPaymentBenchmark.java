@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.BulkPaymentPipeline;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiPaymentToMapper;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
+import de.adorsys.psd2.core.payment.model.BulkPaymentInitiationJson;
+import de.adorsys.psd2.xs2a.core.profile.PaymentType;
+import de.adorsys.psd2.xs2a.spi.domain.payment.SpiPaymentInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares mapping a bulk payment with {@link LedgersSpiPaymentToMapper#toPaymentTO_Bulk(SpiPaymentInfo)}, which
+ * maps the payments in chunks of 500 while the bulk is parsed, either in the calling thread ({@code sequential}) or
+ * by four threads ({@code parallel}), with binding the whole bulk before mapping it ({@code eagerBinding}).
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar BulkPaymentBenchmark -prof gc} to
+ * compare the allocation rate per bulk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkPaymentBenchmark {
+    private static final int CHUNK_SIZE = 500;
+    private static final int THREADS = 4;
+
+    @Param({"1000", "10000", "50000"})
+    private int transfers;
+
+    @Param({"sequential", "parallel"})
+    private String mapping;
+
+    private ObjectMapper objectMapper;
+    private BulkPaymentPipeline bulkPaymentPipeline;
+    private LedgersSpiPaymentToMapper mapper;
+    private SpiPaymentInfo spiPaymentInfo;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new JacksonConfig().objectMapper();
+        int parallelThreshold = "parallel".equals(mapping) ? 0 : Integer.MAX_VALUE;
+        bulkPaymentPipeline = new BulkPaymentPipeline(CHUNK_SIZE, parallelThreshold, THREADS);
+        mapper = new BenchmarkPaymentMapper(objectMapper, bulkPaymentPipeline);
+
+        spiPaymentInfo = new SpiPaymentInfo("sepa-credit-transfers");
+        spiPaymentInfo.setPaymentId("yc7AU-GdRIMjLAzKXjmDU4");
+        spiPaymentInfo.setPaymentType(PaymentType.BULK);
+        spiPaymentInfo.setPaymentData(bulkPayment(transfers));
+    }
+
+    @TearDown
+    public void tearDown() {
+        bulkPaymentPipeline.destroy();
+    }
+
+    @Benchmark
+    public PaymentTO streaming() {
+        return mapper.toPaymentTO_Bulk(spiPaymentInfo);
+    }
+
+    @Benchmark
+    public BulkPaymentInitiationJson eagerBinding() throws IOException {
+        return objectMapper.readValue(spiPaymentInfo.getPaymentData(), BulkPaymentInitiationJson.class);
+    }
+
+    private static byte[] bulkPayment(int transfers) {
+        StringBuilder json = new StringBuilder("{\"batchBookingPreferred\":false,")
+                                     .append("\"debtorAccount\":{\"iban\":\"DE52500105173911841934\",\"currency\":\"EUR\"},")
+                                     .append("\"payments\":[");
+        for (int i = 0; i < transfers; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"endToEndIdentification\":\"RI-").append(i).append("\",")
+                    .append("\"instructedAmount\":{\"currency\":\"EUR\",\"amount\":\"").append(i % 1000 + 1).append(".50\"},")
+                    .append("\"creditorAccount\":{\"iban\":\"DE15500105172295759744\",\"currency\":\"EUR\"},")
+                    .append("\"creditorAgent\":\"BCENECEQ\",\"creditorName\":\"Creditor ").append(i % 20).append("\",")
+                    .append("\"remittanceInformationUnstructured\":\"Invoice ").append(i).append("\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class BenchmarkPaymentMapper extends LedgersSpiPaymentToMapper {
+        BenchmarkPaymentMapper(ObjectMapper objectMapper, BulkPaymentPipeline bulkPaymentPipeline) {
+            this.objectMapper = objectMapper;
+            this.bulkPaymentPipeline = bulkPaymentPipeline;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import de.adorsys.aspsp.xs2a.connector.account.AccountReferenceIndex;
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
+import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares matching the accounts of a PSU against the references of a dedicated consent by scanning the reference
+ * list for every account ({@code scan}) and by looking them up in a {@link ConsentAccessIndex} ({@code index}).
+ * The index is built within the measured call, as it is built once per request.
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar ConsentAccessIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsentAccessIndexBenchmark {
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final Currency USD = Currency.getInstance("USD");
+
+    @Param({"10", "100", "1000"})
+    private int accounts;
+
+    private IbanResolverMockService ibanResolverMockService;
+    private SpiAccountAccess accountAccess;
+    private List<AccountDetailsTO> accountList;
+
+    @Setup
+    public void setUp() {
+        ibanResolverMockService = new IbanResolverMockService();
+        ibanResolverMockService.setup();
+
+        List<SpiAccountReference> references = new ArrayList<>(accounts);
+        accountList = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            String iban = String.format("DE%020d", i);
+            // every second account of the PSU is not part of the consent
+            references.add(new SpiAccountReference(null, iban, null, null, null, null, i % 2 == 0 ? EUR : USD));
+            AccountDetailsTO accountDetails = new AccountDetailsTO();
+            accountDetails.setIban(iban);
+            accountDetails.setCurrency(EUR);
+            accountList.add(accountDetails);
+        }
+        accountAccess = new SpiAccountAccess();
+        accountAccess.setAccounts(references);
+        accountAccess.setBalances(references);
+        accountAccess.setTransactions(references);
+    }
+
+    @Benchmark
+    public List<AccountDetailsTO> scan() {
+        List<SpiAccountReference> references = accountAccess.getAccounts();
+        return accountList.stream()
+                       .filter(account -> references.stream()
+                                                  .filter(reference -> Optional.ofNullable(reference.getIban())
+                                                                               .orElseGet(() -> ibanResolverMockService.handleIbanByAccountReference(reference))
+                                                                               .equals(account.getIban()))
+                                                  .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(account.getCurrency())))
+                       .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<AccountDetailsTO> index() {
+        AccountReferenceIndex references = new ConsentAccessIndex(accountAccess, ibanResolverMockService).getAccounts();
+        return accountList.stream()
+                       .filter(account -> references.contains(account.getIban(), account.getCurrency()))
+                       .collect(Collectors.toList());
+    }
+}
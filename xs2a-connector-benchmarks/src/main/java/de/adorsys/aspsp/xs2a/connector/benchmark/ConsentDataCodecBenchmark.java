@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.connector.config.auth.TokenStorageServiceImpl;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares encoding and decoding of consent data in JSON and binary format.
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar ConsentDataCodecBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConsentDataCodecBenchmark {
+    @Param({"json", "binary"})
+    private String format;
+
+    private TokenStorageServiceImpl tokenStorageService;
+    private SCAResponseTO response;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        tokenStorageService = new TokenStorageServiceImpl(new JacksonConfig().objectMapper(), format);
+        response = tokenStorageService.fromBytes(BenchmarkData.read("json/sca-consent-response.json"));
+        encoded = tokenStorageService.toBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return tokenStorageService.toBytes(response);
+    }
+
+    @Benchmark
+    public SCAResponseTO decode() throws IOException {
+        return tokenStorageService.fromBytes(encoded);
+    }
+}
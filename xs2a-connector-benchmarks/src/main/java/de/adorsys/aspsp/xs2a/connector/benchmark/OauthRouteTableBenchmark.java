@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.oauth.OauthRouteTable;
+import de.adorsys.aspsp.xs2a.connector.oauth.TokenAuthenticationFilter;
+import de.adorsys.psd2.aspsp.profile.domain.AspspSettings;
+import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
+import de.adorsys.psd2.xs2a.core.profile.ScaApproach;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the route decision of the {@link TokenAuthenticationFilter} as it was made for every request
+ * ({@code perRequest}: reading the profile, collecting the payment products and matching them against the trimmed
+ * request path) with the compiled {@link OauthRouteTable} ({@code routeTable}). Every invocation decides the routes
+ * of a mix of consent, payment initiation and payment status requests.
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar OauthRouteTableBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OauthRouteTableBenchmark {
+    private static final String INSTANCE_ID = "bank1";
+    private static final List<String> REQUEST_PATHS = Arrays.asList(
+            "/v1/consents",
+            "/v1/consents/7a2f4cd1/authorisations",
+            "/v1/accounts/",
+            "/v1/payments/sepa-credit-transfers",
+            "/v1/payments/product-3/",
+            "/v1/payments/sepa-credit-transfers/4d0c8a2e/status",
+            "/v1/funds-confirmations"
+    );
+
+    @Param({"2", "20"})
+    private int paymentProducts;
+
+    private AspspProfileService aspspProfileService;
+    private OauthRouteTable oauthRouteTable;
+
+    @Setup
+    public void setUp() {
+        List<String> products = new ArrayList<>();
+        products.add("sepa-credit-transfers");
+        for (int i = 1; i < paymentProducts; i++) {
+            products.add("product-" + i);
+        }
+        Map<String, Object> profile = Collections.singletonMap(
+                "pis", Collections.singletonMap(
+                        "supportedPaymentTypeAndProductMatrix", Collections.singletonMap("payments", products)));
+        AspspSettings aspspSettings = new ObjectMapper()
+                                              .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                                              .convertValue(profile, AspspSettings.class);
+        aspspProfileService = new AspspProfileService() {
+            @Override
+            public AspspSettings getAspspSettings(String instanceId) {
+                return aspspSettings;
+            }
+
+            @Override
+            public List<ScaApproach> getScaApproaches(String instanceId) {
+                return Arrays.asList(ScaApproach.REDIRECT, ScaApproach.OAUTH);
+            }
+
+            @Override
+            public boolean isMultitenancyEnabled() {
+                return false;
+            }
+        };
+        oauthRouteTable = new OauthRouteTable(aspspProfileService, 10_000);
+    }
+
+    @Benchmark
+    public void perRequest(Blackhole blackhole) {
+        for (String requestPath : REQUEST_PATHS) {
+            blackhole.consume(aspspProfileService.getScaApproaches(INSTANCE_ID).contains(ScaApproach.OAUTH));
+
+            String trimmedRequestPath = requestPath;
+            while (StringUtils.endsWith(trimmedRequestPath, "/")) {
+                trimmedRequestPath = StringUtils.removeEnd(trimmedRequestPath, "/");
+            }
+            if (trimmedRequestPath.endsWith("consents") || trimmedRequestPath.endsWith("funds-confirmations")) {
+                blackhole.consume(false);
+            } else {
+                Set<String> supportedProducts = aspspProfileService.getAspspSettings(INSTANCE_ID).getPis().getSupportedPaymentTypeAndProductMatrix().values().stream()
+                                                        .flatMap(Collection::stream).collect(Collectors.toSet());
+                blackhole.consume(supportedProducts.stream().noneMatch(trimmedRequestPath::endsWith));
+            }
+        }
+    }
+
+    @Benchmark
+    public void routeTable(Blackhole blackhole) {
+        for (String requestPath : REQUEST_PATHS) {
+            blackhole.consume(oauthRouteTable.isOauthSupported(INSTANCE_ID));
+            blackhole.consume(oauthRouteTable.isTokenRequired(INSTANCE_ID, requestPath));
+        }
+    }
+}
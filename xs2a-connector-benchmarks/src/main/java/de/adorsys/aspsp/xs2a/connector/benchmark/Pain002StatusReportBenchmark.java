@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.Pain002StatusReportWriter;
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pain.002 status report written by {@link Pain002StatusReportWriter} ({@code streaming}) with
+ * marshalling an annotated object tree of the same report ({@code objectMapping}), as a JAXB binding would do. The
+ * object tree is marshalled by Jackson XML, which is managed by the parent POM, instead of a JAXB runtime.
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar Pain002StatusReportBenchmark -prof gc}
+ * to compare the allocation rate per report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Pain002StatusReportBenchmark {
+    private static final String PAYMENT_ID = "Dz3gyRq5QxgpLnPB4WzOe8";
+    private static final DateTimeFormatter CREATION_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    private Pain002StatusReportWriter writer;
+    private XmlMapper xmlMapper;
+
+    @Setup
+    public void setUp() {
+        writer = new Pain002StatusReportWriter();
+        xmlMapper = new XmlMapper();
+    }
+
+    @Benchmark
+    public byte[] streaming() {
+        return writer.write(PAYMENT_ID, TransactionStatus.ACSP);
+    }
+
+    @Benchmark
+    public byte[] objectMapping() throws JsonProcessingException {
+        Document document = new Document();
+        document.report.groupHeader.messageId = UUID.randomUUID().toString().replace("-", "");
+        document.report.groupHeader.creationDateTime = OffsetDateTime.now(ZoneOffset.UTC).format(CREATION_DATE_TIME);
+        document.report.originalGroup.originalMessageId = PAYMENT_ID;
+        document.report.originalGroup.groupStatus = TransactionStatus.ACSP.name();
+        document.report.originalPayment.originalPaymentId = PAYMENT_ID;
+        document.report.originalPayment.paymentStatus = TransactionStatus.ACSP.name();
+        return xmlMapper.writeValueAsBytes(document);
+    }
+
+    @JacksonXmlRootElement(localName = "Document", namespace = "urn:iso:std:iso:20022:tech:xsd:pain.002.001.03")
+    public static class Document {
+        @JacksonXmlProperty(localName = "CstmrPmtStsRpt")
+        public final StatusReport report = new StatusReport();
+    }
+
+    public static class StatusReport {
+        @JacksonXmlProperty(localName = "GrpHdr")
+        public final GroupHeader groupHeader = new GroupHeader();
+        @JacksonXmlProperty(localName = "OrgnlGrpInfAndSts")
+        public final OriginalGroup originalGroup = new OriginalGroup();
+        @JacksonXmlProperty(localName = "OrgnlPmtInfAndSts")
+        public final OriginalPayment originalPayment = new OriginalPayment();
+    }
+
+    public static class GroupHeader {
+        @JacksonXmlProperty(localName = "MsgId")
+        public String messageId;
+        @JacksonXmlProperty(localName = "CreDtTm")
+        public String creationDateTime;
+    }
+
+    public static class OriginalGroup {
+        @JacksonXmlProperty(localName = "OrgnlMsgId")
+        public String originalMessageId;
+        @JacksonXmlProperty(localName = "OrgnlMsgNmId")
+        public String originalMessageName = "pain.001.001.03";
+        @JacksonXmlProperty(localName = "GrpSts")
+        public String groupStatus;
+    }
+
+    public static class OriginalPayment {
+        @JacksonXmlProperty(localName = "OrgnlPmtInfId")
+        public String originalPaymentId;
+        @JacksonXmlProperty(localName = "PmtInfSts")
+        public String paymentStatus;
+    }
+}
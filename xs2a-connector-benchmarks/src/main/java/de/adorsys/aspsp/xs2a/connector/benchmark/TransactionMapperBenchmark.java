@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.AmountTO;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardTransaction;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransaction;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares mapping a transaction report element by element ({@code perTransaction}), as the generated list mapping
+ * did, with the bulk mapping of {@link LedgersSpiAccountMapper#toSpiTransactions(List)} ({@code bulk}), which shares
+ * the account references of the report. The transactions are booked with 20 counterparties of one account.
+ * <p>
+ * Run with {@code java -jar xs2a-connector-benchmarks/target/benchmarks.jar TransactionMapperBenchmark -prof gc}
+ * to compare the allocation rate of the mappings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionMapperBenchmark {
+    private static final Currency EUR = Currency.getInstance("EUR");
+    private static final int COUNTERPARTIES = 20;
+
+    @Param({"1000", "10000", "100000"})
+    private int transactions;
+
+    private LedgersSpiAccountMapper mapper;
+    private List<TransactionTO> transactionList;
+
+    @Setup
+    public void setUp() {
+        mapper = new LedgersSpiAccountMapperImpl();
+
+        LocalDate bookingDate = LocalDate.of(2019, 1, 1);
+        transactionList = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            TransactionTO transaction = new TransactionTO();
+            transaction.setTransactionId(String.valueOf(i));
+            transaction.setEntryReference("entry-" + i);
+            transaction.setBookingDate(bookingDate.plusDays(i % 365));
+            transaction.setValueDate(bookingDate.plusDays(i % 365));
+            AmountTO amount = new AmountTO();
+            amount.setCurrency(EUR);
+            amount.setAmount(BigDecimal.valueOf(i, 2));
+            transaction.setAmount(amount);
+            // Ledgers returns a new reference object for every transaction
+            transaction.setCreditorAccount(accountReference(i % COUNTERPARTIES));
+            transaction.setDebtorAccount(accountReference(COUNTERPARTIES));
+            transaction.setRemittanceInformationUnstructured("Invoice " + i);
+            transactionList.add(transaction);
+        }
+    }
+
+    @Benchmark
+    public List<SpiTransaction> perTransaction() {
+        return transactionList.stream()
+                       .map(mapper::toSpiTransaction)
+                       .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<SpiTransaction> bulk() {
+        return mapper.toSpiTransactions(transactionList);
+    }
+
+    @Benchmark
+    public List<SpiCardTransaction> bulkCard() {
+        return mapper.toSpiCardTransactions(transactionList);
+    }
+
+    private static AccountReferenceTO accountReference(int account) {
+        AccountReferenceTO reference = new AccountReferenceTO();
+        reference.setIban(String.format("DE%020d", account));
+        reference.setCurrency(EUR);
+        return reference;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Baseline for {@link AspspConsentDataServiceBenchmark}: the former JSON decoding, which reads the consent data
+ * into a {@link JsonNode} tree and binds the response class from that tree.
+ */
+class TreeTokenStorageService implements TokenStorageService {
+    private final ObjectMapper mapper;
+
+    TreeTokenStorageService(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public SCAResponseTO fromBytes(byte[] tokenBytes) throws IOException {
+        JsonNode jsonNode = prepareNode(tokenBytes);
+        String type = Optional.ofNullable(jsonNode.get("objectType"))
+                              .map(JsonNode::asText)
+                              .orElse(null);
+        if (SCAConsentResponseTO.class.getSimpleName().equals(type)) {
+            return mapper.readValue(mapper.treeAsTokens(jsonNode), SCAConsentResponseTO.class);
+        } else if (SCALoginResponseTO.class.getSimpleName().equals(type)) {
+            return mapper.readValue(mapper.treeAsTokens(jsonNode), SCALoginResponseTO.class);
+        } else if (SCAPaymentResponseTO.class.getSimpleName().equals(type)) {
+            return mapper.readValue(mapper.treeAsTokens(jsonNode), SCAPaymentResponseTO.class);
+        } else {
+            throw new IOException("Unknown response type: " + type);
+        }
+    }
+
+    @Override
+    public <T extends SCAResponseTO> T fromBytes(byte[] tokenBytes, Class<T> klass) throws IOException {
+        return mapper.readValue(mapper.treeAsTokens(prepareNode(tokenBytes)), klass);
+    }
+
+    @Override
+    public byte[] toBytes(SCAResponseTO response) throws IOException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Override
+    public String toBase64String(SCAResponseTO response) throws IOException {
+        return Base64.getEncoder().encodeToString(toBytes(response));
+    }
+
+    private JsonNode prepareNode(byte[] tokenBytes) throws IOException {
+        JsonNode jsonNode = mapper.readTree(tokenBytes);
+        if (jsonNode.size() == 1) {
+            jsonNode = jsonNode.iterator().next();
+        }
+        return jsonNode;
+    }
+}
@@ -33,10 +33,16 @@ import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * ASPSP profile wrapper, responsible for substituting real scaRedirectFlow value and modifying redirect and oauth links from profile.
  * Needed for dynamic resolution of scaRedirectFlow without changing the profile itself.
+ * <p>
+ * The modified settings are memoized per instance ID, OAuth type and link suffix and built again only when the
+ * settings of the profile change. In pre-step OAuth only the redirect links carrying the token are built per request.
  */
 @Primary
 @Service
@@ -49,6 +55,7 @@ public class OauthProfileServiceWrapper implements AspspProfileService {
     private final String pisIntegratedOauthSuffix;
     private final String aisPreStepOauthSuffix;
     private final String pisPreStepOauthSuffix;
+    private final Map<String, AtomicReferenceArray<CustomSettings>> customSettings = new ConcurrentHashMap<>();
 
     public OauthProfileServiceWrapper(AspspProfileService aspspProfileService,
                                       OauthDataHolder oauthDataHolder,
@@ -71,20 +78,11 @@ public class OauthProfileServiceWrapper implements AspspProfileService {
         AspspSettings profileSettings = aspspProfileService.getAspspSettings(instanceId);
         OauthType oauthType = oauthDataHolder.getOauthType();
 
-        CommonAspspProfileSetting existingCommonSetting = profileSettings.getCommon();
         if (oauthType == OauthType.INTEGRATED) {
-            String customOauthLink = existingCommonSetting.getOauthConfigurationUrl() + buildOauthLinkSuffix();
-            CommonAspspProfileSetting customCommonSettings = buildCustomCommonSetting(existingCommonSetting, ScaRedirectFlow.OAUTH, customOauthLink);
-            return new AspspSettings(profileSettings.getAis(), profileSettings.getPis(), profileSettings.getPiis(), customCommonSettings);
+            return getCustomSettings(instanceId, getIntegratedSettingsType(), profileSettings).getSettings(null);
         } else if (oauthType == OauthType.PRE_STEP) {
-            CommonAspspProfileSetting customCommonSetting = buildCustomCommonSetting(existingCommonSetting,
-                                                                                     ScaRedirectFlow.OAUTH_PRE_STEP,
-                                                                                     existingCommonSetting.getOauthConfigurationUrl());
-            String aisSuffixWithToken = aisPreStepOauthSuffix + StringUtils.defaultString(oauthDataHolder.getToken());
-            AisAspspProfileSetting customAisSetting = buildCustomAisAspspProfileSetting(profileSettings.getAis(), aisSuffixWithToken);
-            String pisSuffixWithToken = pisPreStepOauthSuffix + StringUtils.defaultString(oauthDataHolder.getToken());
-            PisAspspProfileSetting customPisSetting = buildCustomPisAspspProfileSetting(profileSettings.getPis(), pisSuffixWithToken);
-            return new AspspSettings(customAisSetting, customPisSetting, profileSettings.getPiis(), customCommonSetting);
+            return getCustomSettings(instanceId, CustomSettingsType.PRE_STEP, profileSettings)
+                           .getSettings(StringUtils.defaultString(oauthDataHolder.getToken()));
         }
 
         return profileSettings;
@@ -100,12 +98,49 @@ public class OauthProfileServiceWrapper implements AspspProfileService {
         return aspspProfileService.isMultitenancyEnabled();
     }
 
-    private String buildOauthLinkSuffix() {
+    private CustomSettingsType getIntegratedSettingsType() {
         ServiceType serviceType = serviceTypeDiscoveryService.getServiceType();
 
         if (serviceType == ServiceType.AIS) {
-            return aisIntegratedOauthSuffix;
+            return CustomSettingsType.INTEGRATED_AIS;
         } else if (serviceType == ServiceType.PIS) {
+            return CustomSettingsType.INTEGRATED_PIS;
+        }
+
+        return CustomSettingsType.INTEGRATED;
+    }
+
+    private CustomSettings getCustomSettings(String instanceId, CustomSettingsType type, AspspSettings profileSettings) {
+        AtomicReferenceArray<CustomSettings> instanceSettings =
+                customSettings.computeIfAbsent(StringUtils.defaultString(instanceId),
+                                               id -> new AtomicReferenceArray<>(CustomSettingsType.values().length));
+        CustomSettings settings = instanceSettings.get(type.ordinal());
+        if (settings == null || !settings.isBuiltFrom(profileSettings)) {
+            settings = buildCustomSettings(type, profileSettings);
+            instanceSettings.set(type.ordinal(), settings);
+        }
+        return settings;
+    }
+
+    private CustomSettings buildCustomSettings(CustomSettingsType type, AspspSettings profileSettings) {
+        CommonAspspProfileSetting existingCommonSetting = profileSettings.getCommon();
+        if (type == CustomSettingsType.PRE_STEP) {
+            CommonAspspProfileSetting customCommonSetting = buildCustomCommonSetting(existingCommonSetting,
+                                                                                     ScaRedirectFlow.OAUTH_PRE_STEP,
+                                                                                     existingCommonSetting.getOauthConfigurationUrl());
+            return new PreStepSettings(profileSettings, customCommonSetting);
+        }
+
+        String customOauthLink = existingCommonSetting.getOauthConfigurationUrl() + getIntegratedOauthSuffix(type);
+        CommonAspspProfileSetting customCommonSettings = buildCustomCommonSetting(existingCommonSetting, ScaRedirectFlow.OAUTH, customOauthLink);
+        return new CustomSettings(profileSettings,
+                                  new AspspSettings(profileSettings.getAis(), profileSettings.getPis(), profileSettings.getPiis(), customCommonSettings));
+    }
+
+    private String getIntegratedOauthSuffix(CustomSettingsType type) {
+        if (type == CustomSettingsType.INTEGRATED_AIS) {
+            return aisIntegratedOauthSuffix;
+        } else if (type == CustomSettingsType.INTEGRATED_PIS) {
             return pisIntegratedOauthSuffix;
         }
 
@@ -149,4 +184,50 @@ public class OauthProfileServiceWrapper implements AspspProfileService {
         PisRedirectLinkSetting customRedirectLinkSetting = new PisRedirectLinkSetting(customInitiationRedirectUrl, customCancellationRedirectUrl, redirectLinkToOnlineBanking.getPaymentCancellationRedirectUrlExpirationTimeMs());
         return new PisAspspProfileSetting(existingSetting.getSupportedPaymentTypeAndProductMatrix(), existingSetting.getMaxTransactionValidityDays(), existingSetting.getNotConfirmedPaymentExpirationTimeMs(), existingSetting.isPaymentCancellationAuthorisationMandated(), customRedirectLinkSetting, existingSetting.getCountryValidationSupported(), existingSetting.getSupportedTransactionStatusFormats());
     }
+
+    private enum CustomSettingsType {
+        INTEGRATED_AIS, INTEGRATED_PIS, INTEGRATED, PRE_STEP
+    }
+
+    private static class CustomSettings {
+        private final AspspSettings profileSettings;
+        private final AspspSettings settings;
+
+        CustomSettings(AspspSettings profileSettings, AspspSettings settings) {
+            this.profileSettings = profileSettings;
+            this.settings = settings;
+        }
+
+        boolean isBuiltFrom(AspspSettings currentProfileSettings) {
+            return profileSettings == currentProfileSettings || profileSettings.equals(currentProfileSettings);
+        }
+
+        AspspSettings getProfileSettings() {
+            return profileSettings;
+        }
+
+        AspspSettings getSettings(String token) {
+            return settings;
+        }
+    }
+
+    /**
+     * Pre-step settings building the redirect links of the presented token with the memoized common settings.
+     */
+    private class PreStepSettings extends CustomSettings {
+        private final CommonAspspProfileSetting commonSetting;
+
+        PreStepSettings(AspspSettings profileSettings, CommonAspspProfileSetting commonSetting) {
+            super(profileSettings, null);
+            this.commonSetting = commonSetting;
+        }
+
+        @Override
+        AspspSettings getSettings(String token) {
+            AspspSettings profileSettings = getProfileSettings();
+            AisAspspProfileSetting customAisSetting = buildCustomAisAspspProfileSetting(profileSettings.getAis(), aisPreStepOauthSuffix + token);
+            PisAspspProfileSetting customPisSetting = buildCustomPisAspspProfileSetting(profileSettings.getPis(), pisPreStepOauthSuffix + token);
+            return new AspspSettings(customAisSetting, customPisSetting, profileSettings.getPiis(), commonSetting);
+        }
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.oauth;
+
+import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
+import de.adorsys.psd2.xs2a.core.profile.ScaApproach;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * OAuth routes of the ASPSP profile compiled per instance ID: whether the OAuth SCA approach is supported and which
+ * endpoints are accessed without a token in integrated OAuth mode. These are the consent and funds confirmation
+ * endpoints and the payment products of the profile, which are matched as suffixes of the request path by a
+ * {@link SuffixTrie}.
+ * <p>
+ * The profile is read again after {@code oauth.route-table.check-interval.ms} at the earliest. The routes are
+ * compiled again only if the SCA approaches or payment products have changed.
+ */
+@Component
+public class OauthRouteTable {
+    private static final SuffixTrie TOKEN_EXEMPT_ENDPOINTS = new SuffixTrie(Arrays.asList("consents", "funds-confirmations"));
+
+    private final AspspProfileService aspspProfileService;
+    private final long checkInterval;
+    private final Map<String, InstanceRoutes> instanceRoutes = new ConcurrentHashMap<>();
+
+    public OauthRouteTable(AspspProfileService aspspProfileService,
+                           @Value("${oauth.route-table.check-interval.ms:10000}") long checkInterval) {
+        this.aspspProfileService = aspspProfileService;
+        this.checkInterval = checkInterval;
+    }
+
+    public boolean isOauthSupported(String instanceId) {
+        InstanceRoutes routes = getInstanceRoutes(instanceId);
+        return getCompiled(routes.oauthSupported,
+                           () -> aspspProfileService.getScaApproaches(instanceId),
+                           scaApproaches -> scaApproaches.contains(ScaApproach.OAUTH));
+    }
+
+    /**
+     * Checks whether a token is required for the request path in integrated OAuth mode, trailing slashes of the path
+     * are ignored.
+     */
+    public boolean isTokenRequired(String instanceId, String requestPath) {
+        if (TOKEN_EXEMPT_ENDPOINTS.matches(requestPath)) {
+            return false;
+        }
+        InstanceRoutes routes = getInstanceRoutes(instanceId);
+        SuffixTrie paymentProducts = getCompiled(routes.paymentProducts,
+                                                 () -> getPaymentProducts(instanceId),
+                                                 SuffixTrie::new);
+        return !paymentProducts.matches(requestPath);
+    }
+
+    private InstanceRoutes getInstanceRoutes(String instanceId) {
+        return instanceRoutes.computeIfAbsent(StringUtils.defaultString(instanceId), id -> new InstanceRoutes());
+    }
+
+    private Set<String> getPaymentProducts(String instanceId) {
+        Set<String> paymentProducts = new HashSet<>();
+        aspspProfileService.getAspspSettings(instanceId).getPis().getSupportedPaymentTypeAndProductMatrix().values()
+                .forEach(paymentProducts::addAll);
+        return paymentProducts;
+    }
+
+    private <S, T> T getCompiled(AtomicReference<Compiled<S, T>> reference, Supplier<S> profileReader, Function<S, T> compiler) {
+        long now = System.currentTimeMillis();
+        Compiled<S, T> current = reference.get();
+        if (current != null && now - current.checkedAt < checkInterval) {
+            return current.value;
+        }
+        S source = profileReader.get();
+        Compiled<S, T> checked = current != null && current.source.equals(source)
+                                         ? new Compiled<>(current.source, current.value, now)
+                                         : new Compiled<>(source, compiler.apply(source), now);
+        reference.set(checked);
+        return checked.value;
+    }
+
+    private static class InstanceRoutes {
+        private final AtomicReference<Compiled<List<ScaApproach>, Boolean>> oauthSupported = new AtomicReference<>();
+        private final AtomicReference<Compiled<Set<String>, SuffixTrie>> paymentProducts = new AtomicReference<>();
+    }
+
+    private static class Compiled<S, T> {
+        private final S source;
+        private final T value;
+        private final long checkedAt;
+
+        Compiled(S source, T value, long checkedAt) {
+            this.source = source;
+            this.value = value;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    /**
+     * Suffixes stored in reverse order, so that a path is matched by walking it backwards from its last character.
+     */
+    static class SuffixTrie {
+        private final Node root = new Node();
+
+        SuffixTrie(Collection<String> suffixes) {
+            for (String suffix : suffixes) {
+                Node node = root;
+                for (int i = suffix.length() - 1; i >= 0; i--) {
+                    node = node.children.computeIfAbsent(suffix.charAt(i), c -> new Node());
+                }
+                node.terminal = true;
+            }
+        }
+
+        boolean matches(String path) {
+            int end = path.length();
+            while (end > 0 && path.charAt(end - 1) == '/') {
+                end--;
+            }
+            Node node = root;
+            for (int i = end - 1; i >= 0 && !node.terminal; i--) {
+                node = node.children.get(path.charAt(i));
+                if (node == null) {
+                    return false;
+                }
+            }
+            return node.terminal;
+        }
+
+        private static class Node {
+            private final Map<Character, Node> children = new HashMap<>();
+            private boolean terminal;
+        }
+    }
+}
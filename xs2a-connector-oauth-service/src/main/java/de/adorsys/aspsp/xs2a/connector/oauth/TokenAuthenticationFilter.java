@@ -19,7 +19,6 @@ package de.adorsys.aspsp.xs2a.connector.oauth;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
-import de.adorsys.psd2.xs2a.core.profile.ScaApproach;
 import de.adorsys.psd2.xs2a.web.Xs2aEndpointChecker;
 import de.adorsys.psd2.xs2a.web.error.TppErrorMessageWriter;
 import de.adorsys.psd2.xs2a.web.filter.AbstractXs2aFilter;
@@ -37,10 +36,7 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Collection;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import static de.adorsys.psd2.xs2a.core.error.MessageErrorCode.UNAUTHORIZED_NO_TOKEN;
 import static de.adorsys.psd2.xs2a.core.domain.MessageCategory.ERROR;
@@ -49,14 +45,13 @@ import static de.adorsys.psd2.xs2a.core.domain.MessageCategory.ERROR;
 @Component
 public class TokenAuthenticationFilter extends AbstractXs2aFilter {
     private static final String BEARER_TOKEN_PREFIX = "Bearer ";
-    private static final String CONSENT_ENP_ENDING = "consents";
-    private static final String FUNDS_CONF_ENP_ENDING = "funds-confirmations";
     private static final String INSTANCE_ID = "instance-id";
 
     private final RequestPathResolver requestPathResolver;
     private final String oauthModeHeaderName;
     private final TokenValidationService tokenValidationService;
     private final AspspProfileService aspspProfileService;
+    private final OauthRouteTable oauthRouteTable;
     private final OauthDataHolder oauthDataHolder;
     private final TppErrorMessageWriter tppErrorMessageWriter;
 
@@ -65,6 +60,7 @@ public class TokenAuthenticationFilter extends AbstractXs2aFilter {
                                      Xs2aEndpointChecker xs2aEndpointChecker,
                                      TokenValidationService tokenValidationService,
                                      AspspProfileService aspspProfileService,
+                                     OauthRouteTable oauthRouteTable,
                                      OauthDataHolder oauthDataHolder,
                                      TppErrorMessageWriter tppErrorMessageWriter) {
         super(tppErrorMessageWriter, xs2aEndpointChecker);
@@ -72,6 +68,7 @@ public class TokenAuthenticationFilter extends AbstractXs2aFilter {
         this.oauthModeHeaderName = oauthModeHeaderName;
         this.tokenValidationService = tokenValidationService;
         this.aspspProfileService = aspspProfileService;
+        this.oauthRouteTable = oauthRouteTable;
         this.oauthDataHolder = oauthDataHolder;
         this.tppErrorMessageWriter = tppErrorMessageWriter;
     }
@@ -108,7 +105,7 @@ public class TokenAuthenticationFilter extends AbstractXs2aFilter {
 
     private boolean isInvalidOauthRequest(HttpServletRequest request, @NotNull HttpServletResponse response, OauthType oauthType, String bearerToken) throws IOException {
         String instanceId = request.getHeader(INSTANCE_ID);
-        if (!aspspProfileService.getScaApproaches(instanceId).contains(ScaApproach.OAUTH)) {
+        if (!oauthRouteTable.isOauthSupported(instanceId)) {
             log.info("Token authentication error: OAUTH SCA approach is not supported in the profile");
             tppErrorMessageWriter.writeError(response, buildTppErrorMessage(MessageErrorCode.FORMAT_ERROR));
             return true;
@@ -137,14 +134,7 @@ public class TokenAuthenticationFilter extends AbstractXs2aFilter {
             return true;
         }
 
-        String trimmedRequestPath = trimEndingSlash(requestPath);
-        if (trimmedRequestPath.endsWith(CONSENT_ENP_ENDING) || trimmedRequestPath.endsWith(FUNDS_CONF_ENP_ENDING)) {
-            return false;
-        } else {
-            Set<String> supportedProducts = aspspProfileService.getAspspSettings(instanceId).getPis().getSupportedPaymentTypeAndProductMatrix().values().stream()
-                                                    .flatMap(Collection::stream).collect(Collectors.toSet());
-            return supportedProducts.stream().noneMatch(trimmedRequestPath::endsWith);
-        }
+        return oauthRouteTable.isTokenRequired(instanceId, requestPath);
     }
 
     private boolean isTokenInvalid(String bearerToken) {
@@ -160,16 +150,6 @@ public class TokenAuthenticationFilter extends AbstractXs2aFilter {
                        .orElse(null);
     }
 
-    private String trimEndingSlash(String input) {
-        String result = input;
-
-        while (StringUtils.endsWith(result, "/")) {
-            result = StringUtils.removeEnd(result, "/");
-        }
-
-        return result;
-    }
-
     private TppErrorMessage buildTppErrorMessage(MessageErrorCode messageErrorCode, Object... params) {
         return new TppErrorMessage(ERROR, messageErrorCode, params);
     }
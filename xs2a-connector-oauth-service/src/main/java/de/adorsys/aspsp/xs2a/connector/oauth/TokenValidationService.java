@@ -17,8 +17,7 @@
 package de.adorsys.aspsp.xs2a.connector.oauth;
 
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
-import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
-import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
+import de.adorsys.ledgers.rest.client.BearerTokenValidator;
 import feign.FeignException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -28,17 +27,13 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class TokenValidationService {
-    private final AuthRequestInterceptor authInterceptor;
-    private final UserMgmtRestClient ledgersUserMgmt;
+    private final BearerTokenValidator bearerTokenValidator;
 
     public BearerTokenTO validate(String bearerToken) {
         try {
-            authInterceptor.setAccessToken(bearerToken);
-            return ledgersUserMgmt.validate(bearerToken).getBody();
+            return bearerTokenValidator.validate(bearerToken);
         } catch (FeignException e) {
             log.error("Token validation is failed");
-        } finally {
-            authInterceptor.setAccessToken(null);
         }
         return null;
     }
@@ -31,7 +31,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.Collections;
 import java.util.List;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -154,6 +154,65 @@ class OauthProfileServiceWrapperTest {
         assertEquals(modifiedSettings, aspspSettings);
     }
 
+    @Test
+    void getAspspSettings_withIntegratedOauthType_unchangedProfile_shouldReuseSettings() {
+        // Given
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID))
+                .thenReturn(realAspspSettings, jsonReader.getObjectFromFile(ASPSP_SETTINGS_JSON_PATH, AspspSettings.class));
+        when(oauthDataHolder.getOauthType())
+                .thenReturn(OauthType.INTEGRATED);
+        when(serviceTypeDiscoveryService.getServiceType())
+                .thenReturn(ServiceType.AIS);
+
+        // When
+        AspspSettings first = oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+        AspspSettings second = oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+
+        // Then
+        assertSame(first, second);
+    }
+
+    @Test
+    void getAspspSettings_withIntegratedOauthType_changedProfile_shouldBuildSettingsAgain() {
+        // Given
+        AspspSettings changedSettings = jsonReader.getObjectFromFile(ASPSP_SETTINGS_PRESTEP_JSON_PATH, AspspSettings.class);
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID))
+                .thenReturn(realAspspSettings, changedSettings);
+        when(oauthDataHolder.getOauthType())
+                .thenReturn(OauthType.INTEGRATED);
+        when(serviceTypeDiscoveryService.getServiceType())
+                .thenReturn(ServiceType.PIIS);
+
+        // When
+        oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+        AspspSettings aspspSettings = oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+
+        // Then
+        assertEquals(changedSettings.getPis(), aspspSettings.getPis());
+    }
+
+    @Test
+    void getAspspSettings_withPreStepOauthType_otherToken_shouldChangeLinks() {
+        // Given
+        String otherToken = "other-valid-token";
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID)).thenReturn(realAspspSettings);
+        when(oauthDataHolder.getOauthType())
+                .thenReturn(OauthType.PRE_STEP);
+        when(oauthDataHolder.getToken())
+                .thenReturn(OAUTH_TOKEN_VALUE, OAUTH_TOKEN_VALUE, otherToken);
+
+        // When
+        AspspSettings first = oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+        AspspSettings second = oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+        AspspSettings other = oauthProfileServiceWrapper.getAspspSettings(INSTANCE_ID);
+
+        // Then
+        assertSame(first.getCommon(), second.getCommon());
+        assertSame(first.getCommon(), other.getCommon());
+        assertTrue(other.getAis().getRedirectLinkToOnlineBanking().getAisRedirectUrlToAspsp().endsWith(AIS_PRESTEP_OAUTH_SUFFIX + otherToken));
+        assertTrue(other.getPis().getRedirectLinkToOnlineBanking().getPisRedirectUrlToAspsp().endsWith(PIS_PRESTEP_OAUTH_SUFFIX + otherToken));
+    }
+
     @Test
     void getScaApproaches() {
         // Given
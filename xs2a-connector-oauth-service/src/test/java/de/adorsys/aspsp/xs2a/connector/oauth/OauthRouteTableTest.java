@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018-2019 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.oauth;
+
+import de.adorsys.psd2.aspsp.profile.domain.AspspSettings;
+import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
+import de.adorsys.psd2.xs2a.core.profile.ScaApproach;
+import de.adorsys.xs2a.reader.JsonReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OauthRouteTableTest {
+    private static final String ASPSP_SETTINGS_JSON_PATH = "json/oauth/aspsp-settings.json";
+    private static final String INSTANCE_ID = "bank1";
+
+    @Mock
+    private AspspProfileService aspspProfileService;
+
+    private JsonReader jsonReader = new JsonReader();
+    private AspspSettings aspspSettings = jsonReader.getObjectFromFile(ASPSP_SETTINGS_JSON_PATH, AspspSettings.class);
+
+    @Test
+    void isTokenRequired_shouldMatchEndpointSuffixes() {
+        // Given
+        OauthRouteTable oauthRouteTable = new OauthRouteTable(aspspProfileService, 10_000);
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID)).thenReturn(aspspSettings);
+
+        // Then
+        assertFalse(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/consents"));
+        assertFalse(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/consents//"));
+        assertFalse(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/funds-confirmations/"));
+        assertFalse(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/payments/sepa-credit-transfers"));
+        assertFalse(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/payments/instant-sepa-credit-transfers/"));
+        assertTrue(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/consents/consent-id"));
+        assertTrue(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/payments/sepa-credit-transfers/payment-id"));
+        assertTrue(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/v1/payments/target-2-payments"));
+        assertTrue(oauthRouteTable.isTokenRequired(INSTANCE_ID, "/"));
+        verify(aspspProfileService, times(1)).getAspspSettings(INSTANCE_ID);
+    }
+
+    @Test
+    void isOauthSupported_changedProfile_shouldRecompileRoutes() {
+        // Given
+        OauthRouteTable oauthRouteTable = new OauthRouteTable(aspspProfileService, 0);
+        when(aspspProfileService.getScaApproaches(INSTANCE_ID))
+                .thenReturn(Arrays.asList(ScaApproach.REDIRECT, ScaApproach.OAUTH))
+                .thenReturn(Collections.singletonList(ScaApproach.REDIRECT));
+
+        // Then
+        assertTrue(oauthRouteTable.isOauthSupported(INSTANCE_ID));
+        assertFalse(oauthRouteTable.isOauthSupported(INSTANCE_ID));
+        verify(aspspProfileService, times(2)).getScaApproaches(INSTANCE_ID);
+    }
+
+    @Test
+    void isOauthSupported_withinCheckInterval_shouldNotReadProfile() {
+        // Given
+        OauthRouteTable oauthRouteTable = new OauthRouteTable(aspspProfileService, 10_000);
+        when(aspspProfileService.getScaApproaches(null)).thenReturn(Collections.singletonList(ScaApproach.OAUTH));
+
+        // Then
+        assertTrue(oauthRouteTable.isOauthSupported(null));
+        assertTrue(oauthRouteTable.isOauthSupported(null));
+        verify(aspspProfileService, times(1)).getScaApproaches(null);
+    }
+}
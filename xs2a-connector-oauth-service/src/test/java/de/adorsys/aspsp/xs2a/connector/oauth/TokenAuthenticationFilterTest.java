@@ -99,6 +99,7 @@ class TokenAuthenticationFilterTest {
                                                                   xs2aEndpointChecker,
                                                                   tokenValidationService,
                                                                   aspspProfileService,
+                                                                  new OauthRouteTable(aspspProfileService, 10_000),
                                                                   oauthDataHolder,
                                                                   tppErrorMessageWriter);
 
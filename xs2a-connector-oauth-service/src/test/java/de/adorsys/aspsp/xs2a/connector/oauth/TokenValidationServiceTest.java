@@ -17,20 +17,16 @@
 package de.adorsys.aspsp.xs2a.connector.oauth;
 
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
-import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
-import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
+import de.adorsys.ledgers.rest.client.BearerTokenValidator;
 import feign.FeignException;
 import feign.Request;
 import feign.Response;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 
 import java.util.Collections;
 
@@ -41,9 +37,7 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class TokenValidationServiceTest {
     @Mock
-    private AuthRequestInterceptor authRequestInterceptor;
-    @Mock
-    private UserMgmtRestClient userMgmtRestClient;
+    private BearerTokenValidator bearerTokenValidator;
 
     @InjectMocks
     private TokenValidationService tokenValidationService;
@@ -53,19 +47,14 @@ class TokenValidationServiceTest {
         // Given
         String token = "some token";
         BearerTokenTO expected = new BearerTokenTO();
-        when(userMgmtRestClient.validate(token))
-                .thenReturn(ResponseEntity.ok(expected));
+        when(bearerTokenValidator.validate(token))
+                .thenReturn(expected);
 
         // When
         BearerTokenTO actual = tokenValidationService.validate(token);
 
         // Then
         assertEquals(expected, actual);
-
-        InOrder inOrder = Mockito.inOrder(authRequestInterceptor, userMgmtRestClient);
-        inOrder.verify(authRequestInterceptor).setAccessToken(token);
-        inOrder.verify(userMgmtRestClient).validate(token);
-        inOrder.verify(authRequestInterceptor).setAccessToken(null);
     }
 
     @Test
@@ -78,7 +67,7 @@ class TokenValidationServiceTest {
                                          .headers(Collections.emptyMap())
                                          .build();
         FeignException feignException = FeignException.errorStatus("some message", feignResponse);
-        when(userMgmtRestClient.validate(token))
+        when(bearerTokenValidator.validate(token))
                 .thenThrow(feignException);
 
         // When
@@ -86,10 +75,5 @@ class TokenValidationServiceTest {
 
         // Then
         assertNull(actual);
-
-        InOrder inOrder = Mockito.inOrder(authRequestInterceptor, userMgmtRestClient);
-        inOrder.verify(authRequestInterceptor).setAccessToken(token);
-        inOrder.verify(userMgmtRestClient).validate(token);
-        inOrder.verify(authRequestInterceptor).setAccessToken(null);
     }
 }
\ No newline at end of file
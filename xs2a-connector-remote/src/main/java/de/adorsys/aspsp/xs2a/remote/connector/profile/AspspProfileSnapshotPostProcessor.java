@@ -0,0 +1,67 @@
+package de.adorsys.aspsp.xs2a.remote.connector.profile;
+
+import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Wraps the remote ASPSP profile service into an {@link AspspProfileSnapshotService}, so that all consumers, including
+ * the primary profile wrapper, read the profile from snapshots. Publishes the staleness of the snapshots, picked up
+ * automatically when actuator metrics are enabled.
+ */
+@Component
+public class AspspProfileSnapshotPostProcessor implements BeanPostProcessor, MeterBinder {
+    private static final String STALENESS_METRIC = "aspsp.profile.snapshot.staleness";
+
+    private final long refreshInterval;
+    private final long maxInstances;
+    private final long expireAfterAccess;
+    private final List<AspspProfileSnapshotService> snapshotServices = new CopyOnWriteArrayList<>();
+
+    public AspspProfileSnapshotPostProcessor(@Value("${xs2asandbox.profile.snapshot.refresh-interval.ms:60000}") long refreshInterval,
+                                             @Value("${xs2asandbox.profile.snapshot.max-instances:100}") long maxInstances,
+                                             @Value("${xs2asandbox.profile.snapshot.expire-after-access.ms:600000}") long expireAfterAccess) {
+        this.refreshInterval = refreshInterval;
+        this.maxInstances = maxInstances;
+        this.expireAfterAccess = expireAfterAccess;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(@NotNull Object bean, @NotNull String beanName) {
+        if (refreshInterval <= 0
+                    || !(bean instanceof AspspProfileService)
+                    || bean instanceof AspspProfileSnapshotService
+                    || AnnotationUtils.findAnnotation(bean.getClass(), Primary.class) != null) {
+            return bean;
+        }
+        AspspProfileSnapshotService snapshotService = new AspspProfileSnapshotService((AspspProfileService) bean, refreshInterval,
+                                                                                  maxInstances, expireAfterAccess);
+        snapshotServices.add(snapshotService);
+        return snapshotService;
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        Gauge.builder(STALENESS_METRIC, this, AspspProfileSnapshotPostProcessor::getStaleness)
+                .description("Seconds since the oldest ASPSP profile snapshot has been loaded")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private double getStaleness() {
+        return snapshotServices.stream()
+                       .mapToLong(AspspProfileSnapshotService::getStaleness)
+                       .max()
+                       .orElse(0) / 1000.0;
+    }
+}
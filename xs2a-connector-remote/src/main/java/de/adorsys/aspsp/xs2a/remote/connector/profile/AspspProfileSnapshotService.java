@@ -0,0 +1,154 @@
+package de.adorsys.aspsp.xs2a.remote.connector.profile;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import de.adorsys.psd2.aspsp.profile.domain.AspspSettings;
+import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
+import de.adorsys.psd2.xs2a.core.profile.ScaApproach;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Serves the ASPSP profile from snapshots instead of calling the remote profile on every request. The snapshot of an
+ * instance ID is loaded with its first request and, once older than the refresh interval, reloaded in the background
+ * by the next request. If the profile cannot be loaded, the last snapshot is served further, {@link #getStaleness()}
+ * tells how long ago the oldest snapshot has been loaded.
+ * <p>
+ * As the instance ID is supplied by the caller, the snapshots are kept for a limited number of instances and dropped
+ * once they have not been requested for the expiry time.
+ * <p>
+ * The settings of a snapshot are shared by all requests and must not be modified.
+ */
+@Slf4j
+public class AspspProfileSnapshotService implements AspspProfileService, DisposableBean {
+    private final AspspProfileService aspspProfileService;
+    private final LoadingCache<String, ProfileSnapshot> snapshots;
+    private final ScheduledExecutorService refreshExecutor;
+    private volatile Boolean multitenancyEnabled;
+
+    public AspspProfileSnapshotService(AspspProfileService aspspProfileService, long refreshInterval, long maxInstances,
+                                       long expireAfterAccess) {
+        this(aspspProfileService, refreshInterval, maxInstances, expireAfterAccess, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    AspspProfileSnapshotService(AspspProfileService aspspProfileService, long refreshInterval, long maxInstances,
+                                long expireAfterAccess, Ticker ticker, Executor loadExecutor) {
+        this.aspspProfileService = aspspProfileService;
+        this.snapshots = Caffeine.newBuilder()
+                                 .maximumSize(maxInstances)
+                                 .expireAfterAccess(expireAfterAccess, TimeUnit.MILLISECONDS)
+                                 .refreshAfterWrite(refreshInterval, TimeUnit.MILLISECONDS)
+                                 .ticker(ticker)
+                                 .executor(loadExecutor)
+                                 .build(new SnapshotLoader());
+        this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aspsp-profile-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refreshExecutor.scheduleWithFixedDelay(this::refreshMultitenancy, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public AspspSettings getAspspSettings(String instanceId) {
+        return getSnapshot(instanceId).getAspspSettings();
+    }
+
+    @Override
+    public List<ScaApproach> getScaApproaches(String instanceId) {
+        return getSnapshot(instanceId).getScaApproaches();
+    }
+
+    @Override
+    public boolean isMultitenancyEnabled() {
+        Boolean enabled = multitenancyEnabled;
+        if (enabled == null) {
+            enabled = aspspProfileService.isMultitenancyEnabled();
+            multitenancyEnabled = enabled;
+        }
+        return enabled;
+    }
+
+    /**
+     * Returns the time in milliseconds since the oldest snapshot has been loaded, 0 if there is no snapshot.
+     */
+    public long getStaleness() {
+        long now = System.currentTimeMillis();
+        return snapshots.asMap().values().stream()
+                       .mapToLong(snapshot -> now - snapshot.getLoadedAt())
+                       .max()
+                       .orElse(0);
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    void refreshMultitenancy() {
+        if (multitenancyEnabled != null) {
+            try {
+                multitenancyEnabled = aspspProfileService.isMultitenancyEnabled();
+            } catch (RuntimeException e) {
+                log.warn("Multitenancy setting of the ASPSP profile could not be refreshed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private ProfileSnapshot getSnapshot(String instanceId) {
+        return snapshots.get(StringUtils.defaultString(instanceId));
+    }
+
+    private class SnapshotLoader implements CacheLoader<String, ProfileSnapshot> {
+        @Override
+        public ProfileSnapshot load(@NotNull String instanceId) {
+            String profileInstanceId = StringUtils.defaultIfEmpty(instanceId, null);
+            AspspSettings aspspSettings = aspspProfileService.getAspspSettings(profileInstanceId);
+            List<ScaApproach> scaApproaches = aspspProfileService.getScaApproaches(profileInstanceId);
+            return new ProfileSnapshot(aspspSettings, Collections.unmodifiableList(scaApproaches), System.currentTimeMillis());
+        }
+
+        @Override
+        public ProfileSnapshot reload(@NotNull String instanceId, @NotNull ProfileSnapshot oldSnapshot) {
+            try {
+                return load(instanceId);
+            } catch (RuntimeException e) {
+                log.warn("ASPSP profile of instance [{}] could not be refreshed, serving the snapshot loaded {} ms ago: {}",
+                         instanceId, System.currentTimeMillis() - oldSnapshot.getLoadedAt(), e.getMessage());
+                return oldSnapshot;
+            }
+        }
+    }
+
+    private static class ProfileSnapshot {
+        private final AspspSettings aspspSettings;
+        private final List<ScaApproach> scaApproaches;
+        private final long loadedAt;
+
+        ProfileSnapshot(AspspSettings aspspSettings, List<ScaApproach> scaApproaches, long loadedAt) {
+            this.aspspSettings = aspspSettings;
+            this.scaApproaches = scaApproaches;
+            this.loadedAt = loadedAt;
+        }
+
+        AspspSettings getAspspSettings() {
+            return aspspSettings;
+        }
+
+        List<ScaApproach> getScaApproaches() {
+            return scaApproaches;
+        }
+
+        long getLoadedAt() {
+            return loadedAt;
+        }
+    }
+}
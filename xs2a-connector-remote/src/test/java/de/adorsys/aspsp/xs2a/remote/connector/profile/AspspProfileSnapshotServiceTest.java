@@ -0,0 +1,135 @@
+package de.adorsys.aspsp.xs2a.remote.connector.profile;
+
+import de.adorsys.psd2.aspsp.profile.domain.AspspSettings;
+import de.adorsys.psd2.aspsp.profile.service.AspspProfileService;
+import de.adorsys.psd2.xs2a.core.profile.ScaApproach;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AspspProfileSnapshotServiceTest {
+    private static final String INSTANCE_ID = "bank1";
+    private static final List<ScaApproach> SCA_APPROACHES = Collections.singletonList(ScaApproach.REDIRECT);
+    private static final long REFRESH_INTERVAL_MS = 60_000;
+    private static final long EXPIRE_AFTER_ACCESS_MS = 600_000;
+
+    @Mock
+    private AspspProfileService aspspProfileService;
+    @Mock
+    private AspspSettings aspspSettings;
+    @Mock
+    private AspspSettings refreshedSettings;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private AspspProfileSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        snapshotService = new AspspProfileSnapshotService(aspspProfileService, REFRESH_INTERVAL_MS, 2, EXPIRE_AFTER_ACCESS_MS,
+                                                          nanos::get, Runnable::run);
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.destroy();
+    }
+
+    @Test
+    void getAspspSettings_shouldLoadProfileOnce() {
+        // Given
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID)).thenReturn(aspspSettings);
+        when(aspspProfileService.getScaApproaches(INSTANCE_ID)).thenReturn(SCA_APPROACHES);
+
+        // When
+        AspspSettings first = snapshotService.getAspspSettings(INSTANCE_ID);
+        AspspSettings second = snapshotService.getAspspSettings(INSTANCE_ID);
+        List<ScaApproach> scaApproaches = snapshotService.getScaApproaches(INSTANCE_ID);
+
+        // Then
+        assertSame(aspspSettings, first);
+        assertSame(aspspSettings, second);
+        assertEquals(SCA_APPROACHES, scaApproaches);
+        verify(aspspProfileService, times(1)).getAspspSettings(INSTANCE_ID);
+    }
+
+    @Test
+    void getAspspSettings_afterRefreshInterval_shouldReplaceSnapshot() {
+        // Given
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID)).thenReturn(aspspSettings, refreshedSettings);
+        when(aspspProfileService.getScaApproaches(INSTANCE_ID)).thenReturn(SCA_APPROACHES);
+        snapshotService.getAspspSettings(INSTANCE_ID);
+        advance(REFRESH_INTERVAL_MS + 1);
+
+        // When
+        snapshotService.getAspspSettings(INSTANCE_ID);
+
+        // Then
+        assertSame(refreshedSettings, snapshotService.getAspspSettings(INSTANCE_ID));
+    }
+
+    @Test
+    void getAspspSettings_profileUnavailable_shouldServeLastSnapshot() {
+        // Given
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID))
+                .thenReturn(aspspSettings)
+                .thenThrow(new IllegalStateException("Profile is not available"));
+        when(aspspProfileService.getScaApproaches(INSTANCE_ID)).thenReturn(SCA_APPROACHES);
+        snapshotService.getAspspSettings(INSTANCE_ID);
+        advance(REFRESH_INTERVAL_MS + 1);
+
+        // When
+        snapshotService.getAspspSettings(INSTANCE_ID);
+
+        // Then
+        assertSame(aspspSettings, snapshotService.getAspspSettings(INSTANCE_ID));
+        assertTrue(snapshotService.getStaleness() >= 0);
+    }
+
+    @Test
+    void getAspspSettings_notRequestedForExpiryTime_shouldLoadProfileAgain() {
+        // Given
+        when(aspspProfileService.getAspspSettings(INSTANCE_ID)).thenReturn(aspspSettings, refreshedSettings);
+        when(aspspProfileService.getScaApproaches(INSTANCE_ID)).thenReturn(SCA_APPROACHES);
+        snapshotService.getAspspSettings(INSTANCE_ID);
+        advance(EXPIRE_AFTER_ACCESS_MS + 1);
+
+        // When
+        AspspSettings actual = snapshotService.getAspspSettings(INSTANCE_ID);
+
+        // Then
+        assertSame(refreshedSettings, actual);
+        verify(aspspProfileService, times(2)).getAspspSettings(INSTANCE_ID);
+    }
+
+    @Test
+    void getStaleness_withoutSnapshot_shouldBeZero() {
+        assertEquals(0, snapshotService.getStaleness());
+    }
+
+    @Test
+    void isMultitenancyEnabled_shouldLoadSettingOnce() {
+        // Given
+        when(aspspProfileService.isMultitenancyEnabled()).thenReturn(true);
+
+        // Then
+        assertTrue(snapshotService.isMultitenancyEnabled());
+        assertTrue(snapshotService.isMultitenancyEnabled());
+        verify(aspspProfileService, times(1)).isMultitenancyEnabled();
+    }
+
+    private void advance(long millis) {
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
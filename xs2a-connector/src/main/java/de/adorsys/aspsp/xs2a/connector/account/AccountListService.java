@@ -0,0 +1,100 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.BearerTokenValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provides the accounts visible with the bearer token of the current request. The account list is cached per bearer
+ * token, which identifies both the PSU and the consent, so repeated account requests of a TPP within the configured
+ * time are answered without calling Ledgers. Cache hits and misses are published as {@code cache.*} metrics with the
+ * tag {@code cache=ledgersAccountList}.
+ * <p>
+ * The returned accounts are shared between requests and must not be modified.
+ */
+@Slf4j
+@Service
+public class AccountListService implements MeterBinder {
+    private static final String CACHE_NAME = "ledgersAccountList";
+
+    private final AccountRestClient accountRestClient;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final boolean cacheEnabled;
+    private final Cache<String, List<AccountDetailsTO>> accountLists;
+
+    public AccountListService(AccountRestClient accountRestClient, AuthRequestInterceptor authRequestInterceptor,
+                              @Value("${xs2asandbox.account-list.cache.max-size:10000}") long cacheMaxSize,
+                              @Value("${xs2asandbox.account-list.cache.ttl.ms:10000}") long cacheTtl) {
+        this.accountRestClient = accountRestClient;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.cacheEnabled = cacheMaxSize > 0 && cacheTtl > 0;
+        this.accountLists = Caffeine.newBuilder()
+                                    .maximumSize(cacheMaxSize)
+                                    .expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS)
+                                    .recordStats()
+                                    .build();
+    }
+
+    /**
+     * Returns the accounts of the PSU, the bearer token must have been applied to the {@link AuthRequestInterceptor}.
+     */
+    public List<AccountDetailsTO> getListOfAccounts() {
+        String accessToken = authRequestInterceptor.getAccessToken();
+        if (!cacheEnabled || accessToken == null) {
+            return loadListOfAccounts();
+        }
+        return accountLists.get(BearerTokenValidator.hash(accessToken), key -> loadListOfAccounts());
+    }
+
+    /**
+     * Removes the cached accounts of the given bearer token, e.g. when the consent the token was issued for is revoked.
+     */
+    public void evictListOfAccounts(String accessToken) {
+        if (accessToken != null) {
+            accountLists.invalidate(BearerTokenValidator.hash(accessToken));
+        }
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accountLists, CACHE_NAME);
+    }
+
+    private List<AccountDetailsTO> loadListOfAccounts() {
+        log.debug("Loading list of accounts from Ledgers");
+        return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
+                       .map(Collections::unmodifiableList)
+                       .orElseGet(Collections::emptyList);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Account references of a consent access list, indexed by IBAN. References without IBAN (card accounts) are indexed
+ * by the IBAN resolved for them.
+ */
+public class AccountReferenceIndex {
+    private final Map<String, Set<Currency>> currenciesByIban = new HashMap<>();
+    private final Set<String> ibansWithAnyCurrency = new HashSet<>();
+    private final Set<String> referencedIbans = new HashSet<>();
+    private final boolean empty;
+
+    AccountReferenceIndex(List<SpiAccountReference> references, Function<SpiAccountReference, String> ibanResolver) {
+        List<SpiAccountReference> accountReferences = Optional.ofNullable(references).orElseGet(Collections::emptyList);
+        for (SpiAccountReference reference : accountReferences) {
+            String iban = reference.getIban();
+            if (iban != null) {
+                referencedIbans.add(iban);
+            } else {
+                iban = ibanResolver.apply(reference);
+            }
+            if (iban == null) {
+                continue;
+            }
+            if (reference.getCurrency() == null) {
+                ibansWithAnyCurrency.add(iban);
+            } else {
+                currenciesByIban.computeIfAbsent(iban, i -> new HashSet<>()).add(reference.getCurrency());
+            }
+        }
+        empty = accountReferences.isEmpty();
+    }
+
+    /**
+     * Checks whether there is a reference to the account, either without currency or with the given one.
+     */
+    public boolean contains(String iban, Currency currency) {
+        if (ibansWithAnyCurrency.contains(iban)) {
+            return true;
+        }
+        Set<Currency> currencies = currenciesByIban.get(iban);
+        return currencies != null && currencies.contains(currency);
+    }
+
+    /**
+     * Checks whether the IBAN is referenced explicitly, regardless of the currency.
+     */
+    public boolean containsReferencedIban(String iban) {
+        return referencedIbans.contains(iban);
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+}
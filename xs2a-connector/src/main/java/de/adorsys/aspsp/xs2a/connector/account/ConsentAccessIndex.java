@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAdditionalInformationAccess;
+import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
+
+import java.util.Optional;
+
+/**
+ * Indexes of all account reference lists of a consent access. The indexes are built once per request, so that the
+ * accounts of a PSU are matched against the consent without scanning the reference lists for every account.
+ */
+public class ConsentAccessIndex {
+    private final SpiAccountAccess accountAccess;
+    private final AccountReferenceIndex accounts;
+    private final AccountReferenceIndex balances;
+    private final AccountReferenceIndex transactions;
+    private final AccountReferenceIndex ownerName;
+
+    public ConsentAccessIndex(SpiAccountAccess accountAccess, IbanResolverMockService ibanResolverMockService) {
+        this.accountAccess = accountAccess;
+        this.accounts = new AccountReferenceIndex(accountAccess.getAccounts(), ibanResolverMockService::handleIbanByAccountReference);
+        this.balances = new AccountReferenceIndex(accountAccess.getBalances(), ibanResolverMockService::handleIbanByAccountReference);
+        this.transactions = new AccountReferenceIndex(accountAccess.getTransactions(), ibanResolverMockService::handleIbanByAccountReference);
+        this.ownerName = new AccountReferenceIndex(Optional.ofNullable(accountAccess.getSpiAdditionalInformationAccess())
+                                                           .map(SpiAdditionalInformationAccess::getOwnerName)
+                                                           .orElse(null),
+                                                   ibanResolverMockService::handleIbanByAccountReference);
+    }
+
+    public SpiAccountAccess getAccountAccess() {
+        return accountAccess;
+    }
+
+    public AccountReferenceIndex getAccounts() {
+        return accounts;
+    }
+
+    public AccountReferenceIndex getBalances() {
+        return balances;
+    }
+
+    public AccountReferenceIndex getTransactions() {
+        return transactions;
+    }
+
+    public AccountReferenceIndex getOwnerName() {
+        return ownerName;
+    }
+}
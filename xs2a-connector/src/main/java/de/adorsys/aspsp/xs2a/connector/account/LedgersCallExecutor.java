@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executes independent Ledgers calls of a request concurrently. The number of calls running at the same time is
+ * limited by {@code xs2asandbox.ledgers.max-parallel-calls} for all requests together, further calls wait in a queue
+ * of {@code xs2asandbox.ledgers.queue-capacity} calls. Once the queue is full, calls are executed by the calling thread
+ * itself, so that a slow Ledgers holds back the requests instead of piling up queued calls.
+ * <p>
+ * The bearer token is held by the {@link AuthRequestInterceptor} per thread, so the token of the calling thread is
+ * applied to the executing thread for the time of the call.
+ */
+@Component
+public class LedgersCallExecutor implements DisposableBean {
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final ExecutorService executorService;
+
+    public LedgersCallExecutor(AuthRequestInterceptor authRequestInterceptor,
+                               @Value("${xs2asandbox.ledgers.max-parallel-calls:8}") int maxParallelCalls,
+                               @Value("${xs2asandbox.ledgers.queue-capacity:100}") int queueCapacity) {
+        this.authRequestInterceptor = authRequestInterceptor;
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxParallelCalls, maxParallelCalls,
+                                                                       60, TimeUnit.SECONDS,
+                                                                       new LinkedBlockingQueue<>(Math.max(queueCapacity, 1)),
+                                                                       new LedgersCallThreadFactory(),
+                                                                       new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executorService = threadPoolExecutor;
+    }
+
+    /**
+     * Starts the call with the bearer token of the current thread. If the call is executed by the current thread, its
+     * token is left bound.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+        Thread callingThread = Thread.currentThread();
+        String accessToken = authRequestInterceptor.getAccessToken();
+        return CompletableFuture.supplyAsync(() -> {
+            if (Thread.currentThread() == callingThread) {
+                return call.get();
+            }
+            authRequestInterceptor.setAccessToken(accessToken);
+            try {
+                return call.get();
+            } finally {
+                authRequestInterceptor.setAccessToken(null);
+            }
+        }, executorService);
+    }
+
+    /**
+     * Waits for the result of the call. An exception thrown by the call, e.g. a {@code FeignException}, is rethrown
+     * as it is, so that callers handle it as if the call had been executed on their own thread.
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executorService.shutdown();
+    }
+
+    private static class LedgersCallThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ledgers-call-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
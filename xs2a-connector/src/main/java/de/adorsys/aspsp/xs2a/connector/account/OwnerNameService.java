@@ -16,40 +16,66 @@
 
 package de.adorsys.aspsp.xs2a.connector.account;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.psd2.xs2a.core.ais.AccountAccessType;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
-import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAdditionalInformationAccess;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
-import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
-import java.util.Currency;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+/**
+ * Resolves account owner names from the additional account information of Ledgers. The owner names of an account
+ * list are requested concurrently through the {@link LedgersCallExecutor}, as Ledgers provides them for a single
+ * account only, and are kept per account for the time configured by {@code xs2asandbox.owner-name.cache.ttl.ms}.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OwnerNameService {
     private final AccountRestClient accountRestClient;
     private final IbanResolverMockService ibanResolverMockService;
+    private final LedgersCallExecutor ledgersCallExecutor;
+    private final boolean cacheEnabled;
+    private final Cache<String, Optional<String>> ownerNames;
+
+    public OwnerNameService(AccountRestClient accountRestClient, IbanResolverMockService ibanResolverMockService,
+                            LedgersCallExecutor ledgersCallExecutor,
+                            @Value("${xs2asandbox.owner-name.cache.max-size:10000}") long cacheMaxSize,
+                            @Value("${xs2asandbox.owner-name.cache.ttl.ms:60000}") long cacheTtl) {
+        this.accountRestClient = accountRestClient;
+        this.ibanResolverMockService = ibanResolverMockService;
+        this.ledgersCallExecutor = ledgersCallExecutor;
+        this.cacheEnabled = cacheMaxSize > 0 && cacheTtl > 0;
+        this.ownerNames = Caffeine.newBuilder()
+                                  .maximumSize(cacheMaxSize)
+                                  .expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS)
+                                  .build();
+    }
 
     public boolean shouldContainOwnerName(IbanAccountReference ibanAccountReference, SpiAccountAccess accountAccess) {
+        return shouldContainOwnerName(ibanAccountReference, new ConsentAccessIndex(accountAccess, ibanResolverMockService));
+    }
+
+    public boolean shouldContainOwnerName(IbanAccountReference ibanAccountReference, ConsentAccessIndex consentAccessIndex) {
+        SpiAccountAccess accountAccess = consentAccessIndex.getAccountAccess();
         SpiAdditionalInformationAccess spiAdditionalInformationAccess = accountAccess.getSpiAdditionalInformationAccess();
         if (spiAdditionalInformationAccess != null && spiAdditionalInformationAccess.getOwnerName() != null) {
-            List<SpiAccountReference> ownerName = spiAdditionalInformationAccess.getOwnerName();
-            return ownerName.isEmpty() || containsAccountReferenceWithIban(ownerName, ibanAccountReference.getIban(), ibanAccountReference.getCurrency());
+            AccountReferenceIndex ownerName = consentAccessIndex.getOwnerName();
+            return ownerName.isEmpty() || ownerName.contains(ibanAccountReference.getIban(), ibanAccountReference.getCurrency());
         }
 
         AccountAccessType allAccountsWithOwnerName = AccountAccessType.ALL_ACCOUNTS_WITH_OWNER_NAME;
@@ -58,21 +84,71 @@ public class OwnerNameService {
     }
 
     public SpiAccountDetails enrichAccountDetailsWithOwnerName(SpiAccountDetails accountDetails) {
-        String accountOwnerNameFromLedgers = getAccountOwnerNameFromLedgers(accountDetails.getResourceId());
-        accountDetails.setOwnerName(accountOwnerNameFromLedgers);
+        enrichAccountDetailsListWithOwnerName(Collections.singletonList(accountDetails));
         return accountDetails;
     }
 
     public SpiCardAccountDetails enrichCardAccountDetailsWithOwnerName(SpiCardAccountDetails cardAccountDetails) {
-        String accountOwnerNameFromLedgers = getAccountOwnerNameFromLedgers(cardAccountDetails.getResourceId());
-        cardAccountDetails.setOwnerName(accountOwnerNameFromLedgers);
+        enrichCardAccountDetailsListWithOwnerName(Collections.singletonList(cardAccountDetails));
         return cardAccountDetails;
     }
 
-    private boolean containsAccountReferenceWithIban(List<SpiAccountReference> references, @NotNull String iban, Currency currency) {
-        return references.stream()
-                       .filter(reference -> iban.equals(getIbanFromAccessReference(reference)))
-                       .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(currency));
+    /**
+     * Sets the owner names of all given accounts, the owner names missing in the cache are requested concurrently.
+     */
+    public List<SpiAccountDetails> enrichAccountDetailsListWithOwnerName(List<SpiAccountDetails> accountDetailsList) {
+        Map<String, String> accountOwnerNames = getAccountOwnerNames(accountDetailsList.stream()
+                                                                             .map(SpiAccountDetails::getResourceId)
+                                                                             .collect(Collectors.toSet()));
+        accountDetailsList.forEach(accountDetails -> accountDetails.setOwnerName(accountOwnerNames.get(accountDetails.getResourceId())));
+        return accountDetailsList;
+    }
+
+    /**
+     * Sets the owner names of all given card accounts, the owner names missing in the cache are requested concurrently.
+     */
+    public List<SpiCardAccountDetails> enrichCardAccountDetailsListWithOwnerName(List<SpiCardAccountDetails> cardAccountDetailsList) {
+        Map<String, String> accountOwnerNames = getAccountOwnerNames(cardAccountDetailsList.stream()
+                                                                             .map(SpiCardAccountDetails::getResourceId)
+                                                                             .collect(Collectors.toSet()));
+        cardAccountDetailsList.forEach(cardAccountDetails -> cardAccountDetails.setOwnerName(accountOwnerNames.get(cardAccountDetails.getResourceId())));
+        return cardAccountDetailsList;
+    }
+
+    private Map<String, String> getAccountOwnerNames(Set<String> resourceIds) {
+        Map<String, Optional<String>> accountOwnerNames = new HashMap<>();
+        if (cacheEnabled) {
+            accountOwnerNames.putAll(ownerNames.getAllPresent(resourceIds));
+        }
+
+        Set<String> missingResourceIds = new HashSet<>(resourceIds);
+        missingResourceIds.removeAll(accountOwnerNames.keySet());
+        if (!missingResourceIds.isEmpty()) {
+            Map<String, Optional<String>> loadedOwnerNames = loadAccountOwnerNames(missingResourceIds);
+            if (cacheEnabled) {
+                ownerNames.putAll(loadedOwnerNames);
+            }
+            accountOwnerNames.putAll(loadedOwnerNames);
+        }
+
+        Map<String, String> result = new HashMap<>();
+        accountOwnerNames.forEach((resourceId, ownerName) -> result.put(resourceId, ownerName.orElse(null)));
+        return result;
+    }
+
+    private Map<String, Optional<String>> loadAccountOwnerNames(Set<String> resourceIds) {
+        if (resourceIds.size() == 1) {
+            String resourceId = resourceIds.iterator().next();
+            return Collections.singletonMap(resourceId, Optional.ofNullable(getAccountOwnerNameFromLedgers(resourceId)));
+        }
+
+        log.debug("Requesting owner names of {} accounts from Ledgers", resourceIds.size());
+        Map<String, CompletableFuture<String>> requests = new HashMap<>();
+        resourceIds.forEach(resourceId -> requests.put(resourceId, ledgersCallExecutor.supplyAsync(() -> getAccountOwnerNameFromLedgers(resourceId))));
+
+        Map<String, Optional<String>> accountOwnerNames = new HashMap<>();
+        requests.forEach((resourceId, request) -> accountOwnerNames.put(resourceId, Optional.ofNullable(LedgersCallExecutor.join(request))));
+        return accountOwnerNames;
     }
 
     private String getAccountOwnerNameFromLedgers(String resourceId) {
@@ -87,12 +163,4 @@ public class OwnerNameService {
                        .map(AdditionalAccountInformationTO::getAccountOwnerName)
                        .collect(Collectors.joining(", "));
     }
-
-    private String getIbanFromAccessReference(SpiAccountReference reference) {
-        String iban = reference.getIban();
-
-        return iban != null
-                       ? iban
-                       : ibanResolverMockService.handleIbanByAccountReference(reference);
-    }
 }
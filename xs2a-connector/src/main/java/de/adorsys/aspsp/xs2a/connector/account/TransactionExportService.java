@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.AmountTO;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransactionsDownloadResponse;
+import feign.FeignException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports the transactions of long periods into files, which are served by the download link of the transaction
+ * report. The period is requested from Ledgers window by window through the {@link TransactionListService} and every
+ * window is written to the file as soon as it is received, so only the transactions of one window are held in memory.
+ * Exports larger than 2 GB are rejected, as the download size is reported as {@code int}.
+ * <p>
+ * An export can be downloaded with the consent it was created for only and is deleted after
+ * {@code xs2asandbox.transactions.download.ttl.ms}. The exports are registered in the memory of the instance that
+ * created them, so their download IDs are unknown to other instances and after a restart of the instance.
+ */
+@Slf4j
+@Service
+public class TransactionExportService implements DisposableBean {
+    private static final String FILE_NAME = "transactions.json";
+    private static final long MAX_EXPORT_SIZE = Integer.MAX_VALUE;
+
+    private final TransactionListService transactionListService;
+    private final Path directory;
+    private final long maxInlinePeriodDays;
+    private final long ttl;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Map<String, TransactionExport> exports = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService cleanupExecutor;
+
+    public TransactionExportService(TransactionListService transactionListService,
+                                    @Value("${xs2asandbox.transactions.download.directory:${java.io.tmpdir}}") String directory,
+                                    @Value("${xs2asandbox.transactions.download.max-inline-period-days:366}") long maxInlinePeriodDays,
+                                    @Value("${xs2asandbox.transactions.download.ttl.ms:3600000}") long ttl) {
+        this.transactionListService = transactionListService;
+        this.directory = Paths.get(directory);
+        this.maxInlinePeriodDays = maxInlinePeriodDays;
+        this.ttl = ttl;
+        this.cleanupExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-export-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (ttl > 0) {
+            cleanupExecutor.scheduleWithFixedDelay(this::deleteExpiredExports, ttl, ttl, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Checks whether the transactions of the period are exported instead of being returned within the report,
+     * a {@code max-inline-period-days} of 0 disables the export.
+     */
+    public boolean isExported(LocalDate dateFrom, LocalDate dateTo) {
+        return maxInlinePeriodDays > 0 && dateFrom.plusDays(maxInlinePeriodDays).isBefore(dateTo);
+    }
+
+    /**
+     * Writes the booked transactions of the account into a new export, the bearer token must have been applied to the
+     * {@code AuthRequestInterceptor}.
+     *
+     * @return the download ID of the export
+     */
+    public String exportTransactions(String consentId, String resourceId, LocalDate dateFrom, LocalDate dateTo) {
+        Path file = createFile();
+        try {
+            int count = writeTransactions(file, resourceId, dateFrom, dateTo);
+            String downloadId = UUID.randomUUID().toString();
+            exports.put(downloadId, new TransactionExport(consentId, file, System.currentTimeMillis() + ttl));
+            log.info("Exported {} transactions of account {} with download ID: {}", count, resourceId, downloadId);
+            return downloadId;
+        } catch (IOException e) {
+            deleteFile(file);
+            log.error("Export of transactions of account {} failed", resourceId, e);
+            throw FeignExceptionHandler.getException(HttpStatus.INTERNAL_SERVER_ERROR, "Transactions could not be exported");
+        } catch (RuntimeException e) {
+            deleteFile(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the export for downloading, the returned stream reads the file through a {@link FileChannel}.
+     *
+     * @return the export or empty if it does not exist, has expired or belongs to another consent
+     */
+    public Optional<SpiTransactionsDownloadResponse> openExport(String consentId, String downloadId) {
+        TransactionExport export = exports.get(downloadId);
+        if (export == null || export.isExpired(System.currentTimeMillis()) || !export.getConsentId().equals(consentId)) {
+            return Optional.empty();
+        }
+        try {
+            FileChannel channel = FileChannel.open(export.getFile(), StandardOpenOption.READ);
+            InputStream stream = Channels.newInputStream(channel);
+            return Optional.of(new SpiTransactionsDownloadResponse(stream, FILE_NAME, Math.toIntExact(channel.size())));
+        } catch (IOException e) {
+            log.error("Export with download ID {} could not be opened", downloadId, e);
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        cleanupExecutor.shutdownNow();
+        exports.values().forEach(export -> deleteFile(export.getFile()));
+        exports.clear();
+    }
+
+    void deleteExpiredExports() {
+        long now = System.currentTimeMillis();
+        exports.entrySet().removeIf(entry -> entry.getValue().isExpired(now) && deleteFile(entry.getValue().getFile()));
+    }
+
+    private Path createFile() {
+        try {
+            Files.createDirectories(directory);
+            return Files.createTempFile(directory, "transactions-", ".json");
+        } catch (IOException e) {
+            log.error("Export file could not be created in {}", directory, e);
+            throw FeignExceptionHandler.getException(HttpStatus.INTERNAL_SERVER_ERROR, "Transactions could not be exported");
+        }
+    }
+
+    private int writeTransactions(Path file, String resourceId, LocalDate dateFrom, LocalDate dateTo) throws IOException {
+        AtomicInteger count = new AtomicInteger();
+        try (JsonGenerator generator = jsonFactory.createGenerator(Files.newOutputStream(file), JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("transactions");
+            generator.writeArrayFieldStart("booked");
+            transactionListService.forEachWindow(resourceId, dateFrom, dateTo, transactions -> {
+                try {
+                    for (TransactionTO transaction : transactions) {
+                        writeTransaction(generator, transaction);
+                        count.incrementAndGet();
+                    }
+                    generator.flush();
+                    checkSize(file, resourceId);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (FeignException e) {
+            log.error("Transactions of account {} from {} to {} could not be exported", resourceId, dateFrom, dateTo);
+            throw e;
+        }
+        return count.get();
+    }
+
+    private void checkSize(Path file, String resourceId) throws IOException {
+        if (Files.size(file) > MAX_EXPORT_SIZE) {
+            log.error("Export of transactions of account {} exceeds {} bytes", resourceId, MAX_EXPORT_SIZE);
+            throw FeignExceptionHandler.getException(HttpStatus.INTERNAL_SERVER_ERROR, "Transactions of the period exceed the maximum export size");
+        }
+    }
+
+    private void writeTransaction(JsonGenerator generator, TransactionTO transaction) throws IOException {
+        generator.writeStartObject();
+        writeField(generator, "transactionId", transaction.getTransactionId());
+        writeField(generator, "entryReference", transaction.getEntryReference());
+        writeField(generator, "endToEndId", transaction.getEndToEndId());
+        writeField(generator, "mandateId", transaction.getMandateId());
+        writeField(generator, "checkId", transaction.getCheckId());
+        writeField(generator, "creditorId", transaction.getCreditorId());
+        writeField(generator, "bookingDate", transaction.getBookingDate());
+        writeField(generator, "valueDate", transaction.getValueDate());
+        writeAmount(generator, transaction.getAmount());
+        writeField(generator, "creditorName", transaction.getCreditorName());
+        writeAccountReference(generator, "creditorAccount", transaction.getCreditorAccount());
+        writeField(generator, "creditorAgent", transaction.getCreditorAgent());
+        writeField(generator, "ultimateCreditor", transaction.getUltimateCreditor());
+        writeField(generator, "debtorName", transaction.getDebtorName());
+        writeAccountReference(generator, "debtorAccount", transaction.getDebtorAccount());
+        writeField(generator, "debtorAgent", transaction.getDebtorAgent());
+        writeField(generator, "ultimateDebtor", transaction.getUltimateDebtor());
+        writeField(generator, "remittanceInformationUnstructured", transaction.getRemittanceInformationUnstructured());
+        writeField(generator, "purposeCode", transaction.getPurposeCode());
+        writeField(generator, "bankTransactionCode", transaction.getBankTransactionCode());
+        writeField(generator, "proprietaryBankTransactionCode", transaction.getProprietaryBankTransactionCode());
+        generator.writeEndObject();
+    }
+
+    private void writeAmount(JsonGenerator generator, AmountTO amount) throws IOException {
+        if (amount == null) {
+            return;
+        }
+        generator.writeObjectFieldStart("transactionAmount");
+        writeField(generator, "currency", amount.getCurrency());
+        writeField(generator, "amount", amount.getAmount() == null ? null : amount.getAmount().toPlainString());
+        generator.writeEndObject();
+    }
+
+    private void writeAccountReference(JsonGenerator generator, String fieldName, AccountReferenceTO reference) throws IOException {
+        if (reference == null) {
+            return;
+        }
+        generator.writeObjectFieldStart(fieldName);
+        writeField(generator, "iban", reference.getIban());
+        writeField(generator, "bban", reference.getBban());
+        writeField(generator, "pan", reference.getPan());
+        writeField(generator, "maskedPan", reference.getMaskedPan());
+        writeField(generator, "msisdn", reference.getMsisdn());
+        writeField(generator, "currency", reference.getCurrency());
+        generator.writeEndObject();
+    }
+
+    private void writeField(JsonGenerator generator, String fieldName, Object value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(fieldName, value.toString());
+        }
+    }
+
+    private boolean deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            log.warn("Export file {} could not be deleted: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private static class TransactionExport {
+        private final String consentId;
+        private final Path file;
+        private final long expiresAt;
+
+        TransactionExport(String consentId, Path file, long expiresAt) {
+            this.consentId = consentId;
+            this.file = file;
+            this.expiresAt = expiresAt;
+        }
+
+        String getConsentId() {
+            return consentId;
+        }
+
+        Path getFile() {
+            return file;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.BearerTokenValidator;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Provides the transactions of an account for a booking period. Periods longer than
+ * {@code xs2asandbox.transactions.window-days} are split into windows of that length, which are requested from Ledgers
+ * concurrently through the {@link LedgersCallExecutor}, as the duration of a Ledgers call grows with the period.
+ * The windows are merged in booking order, transactions already contained in an earlier window are skipped.
+ * <p>
+ * The transactions of an account are cached up to the last completed booking day, so later requests fetch only the
+ * bookings after that day from Ledgers. The cache is kept per bearer token and account and is limited to
+ * {@code xs2asandbox.transactions.cache.max-transactions} transactions for all accounts together, accounts not
+ * requested for the longest time are evicted first. Cache hits and misses are published as {@code cache.*} metrics
+ * with the tag {@code cache=ledgersTransactions}.
+ */
+@Slf4j
+@Service
+public class TransactionListService implements MeterBinder {
+    private static final String CACHE_NAME = "ledgersTransactions";
+    private static final int MAX_REPORTED_ACCOUNTS = 10_000;
+    private static final Comparator<TransactionTO> BOOKING_ORDER = Comparator.comparing(TransactionTO::getBookingDate,
+                                                                                        Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final AccountRestClient accountRestClient;
+    private final AuthRequestInterceptor authRequestInterceptor;
+    private final LedgersCallExecutor ledgersCallExecutor;
+    private final long windowDays;
+    private final boolean cacheEnabled;
+    private final Cache<String, AccountTransactions> accountTransactions;
+    private final Cache<String, String> lastReportedTransactions;
+
+    public TransactionListService(AccountRestClient accountRestClient, AuthRequestInterceptor authRequestInterceptor,
+                                  LedgersCallExecutor ledgersCallExecutor,
+                                  @Value("${xs2asandbox.transactions.window-days:31}") long windowDays,
+                                  @Value("${xs2asandbox.transactions.cache.max-transactions:100000}") long cacheMaxTransactions,
+                                  @Value("${xs2asandbox.transactions.cache.ttl.ms:600000}") long cacheTtl) {
+        this.accountRestClient = accountRestClient;
+        this.authRequestInterceptor = authRequestInterceptor;
+        this.ledgersCallExecutor = ledgersCallExecutor;
+        this.windowDays = windowDays;
+        this.cacheEnabled = cacheMaxTransactions > 0 && cacheTtl > 0;
+        this.accountTransactions = Caffeine.newBuilder()
+                                           .maximumWeight(Math.max(cacheMaxTransactions, 0))
+                                           .weigher((String key, AccountTransactions transactions) -> transactions.size() + 1)
+                                           .expireAfterAccess(Math.max(cacheTtl, 0), TimeUnit.MILLISECONDS)
+                                           .recordStats()
+                                           .build();
+        this.lastReportedTransactions = Caffeine.newBuilder()
+                                                .maximumSize(MAX_REPORTED_ACCOUNTS)
+                                                .expireAfterAccess(Math.max(cacheTtl, 0), TimeUnit.MILLISECONDS)
+                                                .build();
+    }
+
+    /**
+     * Returns the mapped transactions of the period, the bearer token must have been applied to the
+     * {@code AuthRequestInterceptor}. A {@code window-days} of 0 requests the whole period at once.
+     *
+     * @param entryReferenceFrom if set, only the transactions booked after the transaction with this entry reference
+     *                           or transaction ID are returned. A reference not booked within the period is looked up
+     *                           by transaction ID in Ledgers and rejected with {@code 400 Bad Request} if it is unknown
+     * @param deltaList          if set, only the transactions booked after the last transaction reported to the consent
+     *                           for this account are returned
+     */
+    public <T> List<T> getTransactions(String consentId, String resourceId, LocalDate dateFrom, LocalDate dateTo,
+                                       String entryReferenceFrom, boolean deltaList,
+                                       Function<List<TransactionTO>, List<T>> mapper) {
+        String accessToken = cacheEnabled ? authRequestInterceptor.getAccessToken() : null;
+        AccountTransactions transactions = accessToken != null
+                                                   ? getCachedTransactions(BearerTokenValidator.hash(accessToken) + ":" + resourceId,
+                                                                           resourceId, dateFrom, dateTo)
+                                                   : new AccountTransactions(dateFrom, dateTo, loadTransactions(resourceId, dateFrom, dateTo));
+
+        String reportKey = consentId + ":" + resourceId;
+        int start = entryReferenceFrom == null ? 0 : indexAfter(transactions, resourceId, entryReferenceFrom, dateFrom, dateTo);
+        if (deltaList) {
+            start = Math.max(start, transactions.indexAfter(lastReportedTransactions.getIfPresent(reportKey)));
+        }
+        List<TransactionTO> selected = transactions.select(start, dateFrom, dateTo);
+        if (!selected.isEmpty() && selected.get(selected.size() - 1).getTransactionId() != null) {
+            lastReportedTransactions.put(reportKey, selected.get(selected.size() - 1).getTransactionId());
+        }
+        return mapper.apply(selected);
+    }
+
+    /**
+     * Passes the transactions of the period to the consumer window by window, each window in booking order. The
+     * bearer token must have been applied to the {@code AuthRequestInterceptor}. The windows are requested one after
+     * another and are not cached, so only the transactions of one window are held in memory.
+     */
+    public void forEachWindow(String resourceId, LocalDate dateFrom, LocalDate dateTo, Consumer<List<TransactionTO>> consumer) {
+        forEachPeriod(dateFrom, dateTo, (from, to) -> consumer.accept(getWindow(resourceId, from, to)));
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, accountTransactions, CACHE_NAME);
+    }
+
+    /**
+     * Resolves the entry reference within the period only, so the result does not depend on the cached days. A
+     * transaction booked before the period precedes all transactions of the period, one booked after it follows them.
+     */
+    private int indexAfter(AccountTransactions transactions, String resourceId, String entryReferenceFrom,
+                           LocalDate dateFrom, LocalDate dateTo) {
+        int start = transactions.indexAfter(entryReferenceFrom, dateFrom, dateTo);
+        if (start >= 0) {
+            return start;
+        }
+        LocalDate bookingDate = getBookingDate(resourceId, entryReferenceFrom);
+        return bookingDate == null || bookingDate.isBefore(dateFrom) ? 0 : transactions.size();
+    }
+
+    private LocalDate getBookingDate(String resourceId, String transactionId) {
+        TransactionTO transaction;
+        try {
+            transaction = accountRestClient.getTransactionById(resourceId, transactionId).getBody();
+        } catch (FeignException e) {
+            if (e.status() != HttpStatus.NOT_FOUND.value() && e.status() != HttpStatus.BAD_REQUEST.value()) {
+                throw e;
+            }
+            transaction = null;
+        }
+        if (transaction == null) {
+            log.info("Transaction with entry reference {} of account {} is unknown", transactionId, resourceId);
+            throw FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST, "Unknown entryReferenceFrom: " + transactionId);
+        }
+        return transaction.getBookingDate();
+    }
+
+    private AccountTransactions getCachedTransactions(String key, String resourceId, LocalDate dateFrom, LocalDate dateTo) {
+        LocalDate lastCompletedDay = LocalDate.now().minusDays(1);
+        LocalDate watermark = dateTo.isBefore(lastCompletedDay) ? dateTo : lastCompletedDay;
+        AccountTransactions cached = accountTransactions.getIfPresent(key);
+        AccountTransactions updated;
+        if (cached == null || cached.getDateFrom().isAfter(dateFrom)) {
+            updated = new AccountTransactions(dateFrom, watermark, loadTransactions(resourceId, dateFrom, dateTo));
+        } else if (cached.getWatermark().isBefore(dateTo)) {
+            LocalDate deltaFrom = cached.getWatermark().plusDays(1);
+            log.debug("Requesting transactions of account {} booked since {}", resourceId, deltaFrom);
+            updated = cached.append(watermark, loadTransactions(resourceId, deltaFrom, dateTo));
+        } else {
+            return cached;
+        }
+        accountTransactions.put(key, updated);
+        return updated;
+    }
+
+    private List<TransactionTO> loadTransactions(String resourceId, LocalDate dateFrom, LocalDate dateTo) {
+        if (windowDays <= 0 || !dateFrom.plusDays(windowDays).isBefore(dateTo)) {
+            return getWindow(resourceId, dateFrom, dateTo);
+        }
+
+        List<CompletableFuture<List<TransactionTO>>> windows = new ArrayList<>();
+        forEachPeriod(dateFrom, dateTo, (from, to) -> windows.add(ledgersCallExecutor.supplyAsync(() -> getWindow(resourceId, from, to))));
+        log.debug("Requesting transactions of account {} in {} windows", resourceId, windows.size());
+
+        try {
+            List<TransactionTO> transactions = new ArrayList<>();
+            Set<String> transactionIds = new HashSet<>();
+            for (CompletableFuture<List<TransactionTO>> window : windows) {
+                for (TransactionTO transaction : LedgersCallExecutor.join(window)) {
+                    if (transaction.getTransactionId() == null || transactionIds.add(transaction.getTransactionId())) {
+                        transactions.add(transaction);
+                    }
+                }
+            }
+            return transactions;
+        } catch (RuntimeException e) {
+            windows.forEach(window -> window.cancel(false));
+            throw e;
+        }
+    }
+
+    private void forEachPeriod(LocalDate dateFrom, LocalDate dateTo, BiConsumer<LocalDate, LocalDate> action) {
+        if (windowDays <= 0) {
+            action.accept(dateFrom, dateTo);
+            return;
+        }
+        for (LocalDate windowFrom = dateFrom; !windowFrom.isAfter(dateTo); windowFrom = windowFrom.plusDays(windowDays)) {
+            action.accept(windowFrom, min(windowFrom.plusDays(windowDays - 1), dateTo));
+        }
+    }
+
+    private List<TransactionTO> getWindow(String resourceId, LocalDate dateFrom, LocalDate dateTo) {
+        List<TransactionTO> transactions = Optional.ofNullable(accountRestClient.getTransactionByDates(resourceId, dateFrom, dateTo).getBody())
+                                                   .map(ArrayList::new)
+                                                   .orElseGet(ArrayList::new);
+        transactions.sort(BOOKING_ORDER);
+        return transactions;
+    }
+
+    private static LocalDate min(LocalDate first, LocalDate second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    /**
+     * Transactions of an account in booking order with an index of their positions. The transactions booked up to
+     * the watermark are complete, later days may still receive bookings.
+     */
+    private static class AccountTransactions {
+        private final LocalDate dateFrom;
+        private final LocalDate watermark;
+        private final List<TransactionTO> transactions;
+        private final Map<String, Integer> positions;
+
+        AccountTransactions(LocalDate dateFrom, LocalDate watermark, List<TransactionTO> transactions) {
+            this.dateFrom = dateFrom;
+            this.watermark = watermark;
+            this.transactions = transactions;
+            this.positions = new HashMap<>();
+            for (int i = 0; i < transactions.size(); i++) {
+                TransactionTO transaction = transactions.get(i);
+                if (transaction.getEntryReference() != null) {
+                    positions.putIfAbsent(transaction.getEntryReference(), i);
+                }
+                if (transaction.getTransactionId() != null) {
+                    positions.put(transaction.getTransactionId(), i);
+                }
+            }
+        }
+
+        LocalDate getDateFrom() {
+            return dateFrom;
+        }
+
+        LocalDate getWatermark() {
+            return watermark;
+        }
+
+        int size() {
+            return transactions.size();
+        }
+
+        /**
+         * Keeps the completed days and replaces the later ones by the given bookings.
+         */
+        AccountTransactions append(LocalDate newWatermark, List<TransactionTO> bookings) {
+            List<TransactionTO> merged = new ArrayList<>(transactions.size() + bookings.size());
+            Set<String> transactionIds = new HashSet<>();
+            for (TransactionTO transaction : transactions) {
+                if (transaction.getBookingDate() != null && !transaction.getBookingDate().isAfter(watermark)) {
+                    merged.add(transaction);
+                    transactionIds.add(transaction.getTransactionId());
+                }
+            }
+            for (TransactionTO booking : bookings) {
+                if (booking.getTransactionId() == null || !transactionIds.contains(booking.getTransactionId())) {
+                    merged.add(booking);
+                }
+            }
+            return new AccountTransactions(dateFrom, newWatermark.isAfter(watermark) ? newWatermark : watermark, merged);
+        }
+
+        /**
+         * Returns the position following the transaction with the given entry reference or transaction ID, 0 if no
+         * reference is given and -1 if there is no such transaction.
+         */
+        int indexAfter(String reference) {
+            if (reference == null) {
+                return 0;
+            }
+            Integer position = positions.get(reference);
+            return position == null ? -1 : position + 1;
+        }
+
+        /**
+         * Returns the position following the transaction with the given entry reference or transaction ID, -1 if there
+         * is no such transaction booked within the period.
+         */
+        int indexAfter(String reference, LocalDate from, LocalDate to) {
+            Integer position = positions.get(reference);
+            if (position == null) {
+                return -1;
+            }
+            LocalDate bookingDate = transactions.get(position).getBookingDate();
+            return bookingDate == null || !bookingDate.isBefore(from) && !bookingDate.isAfter(to) ? position + 1 : -1;
+        }
+
+        List<TransactionTO> select(int start, LocalDate from, LocalDate to) {
+            List<TransactionTO> selected = new ArrayList<>();
+            for (int i = start; i < transactions.size(); i++) {
+                LocalDate bookingDate = transactions.get(i).getBookingDate();
+                if (bookingDate == null || !bookingDate.isBefore(from) && !bookingDate.isAfter(to)) {
+                    selected.add(transactions.get(i));
+                }
+            }
+            return selected;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.adorsys.aspsp.xs2a.connector.cms;
+
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes payment statuses to the CMS behind the payment authorisation. The statuses are queued per payment, a newer
+ * status replaces the queued status of the payment, and written by a background thread in batches of at most
+ * {@code xs2asandbox.cms.payment-status.batch-size} every {@code xs2asandbox.cms.payment-status.flush-interval.ms}.
+ * Failed writes are retried with exponential backoff up to {@code xs2asandbox.cms.payment-status.retry.max-attempts}
+ * times.
+ * <p>
+ * Statuses are written synchronously unless {@code xs2asandbox.cms.payment-status.async} is enabled, and if the queue
+ * is full. If {@code xs2asandbox.cms.payment-status.journal} is set, the queued statuses are kept in a
+ * {@link PaymentStatusJournal} and written after a restart, without it they are lost on a crash.
+ * <p>
+ * The queued status of a payment is discarded as soon as a newer status has been reported to XS2A, which writes that
+ * status to the CMS itself, so a late or retried write cannot overwrite it.
+ */
+@Slf4j
+@Component
+public class CmsPaymentStatusQueue implements MeterBinder, DisposableBean {
+    private static final String METRIC_PREFIX = "cms.payment-status.";
+    private static final long MAX_BACKOFF_MS = 300_000;
+    private static final int JOURNAL_COMPACTION_RECORDS = 1_000;
+
+    private final CmsPsuPisClient cmsPsuPisClient;
+    private final boolean async;
+    private final int capacity;
+    private final int batchSize;
+    private final long retryBackoff;
+    private final int maxAttempts;
+    private final PaymentStatusJournal journal;
+    private final Map<String, PaymentStatusUpdate> pendingUpdates = new ConcurrentHashMap<>();
+    private final Map<String, PaymentStatusUpdate> inFlightUpdates = new ConcurrentHashMap<>();
+    private final Object journalLock = new Object();
+    private final ScheduledExecutorService flushExecutor;
+    private volatile Timer flushTimer;
+
+    public CmsPaymentStatusQueue(CmsPsuPisClient cmsPsuPisClient,
+                                 @Value("${xs2asandbox.cms.payment-status.async:false}") boolean async,
+                                 @Value("${xs2asandbox.cms.payment-status.queue.capacity:10000}") int capacity,
+                                 @Value("${xs2asandbox.cms.payment-status.batch-size:100}") int batchSize,
+                                 @Value("${xs2asandbox.cms.payment-status.flush-interval.ms:200}") long flushInterval,
+                                 @Value("${xs2asandbox.cms.payment-status.retry.backoff.ms:1000}") long retryBackoff,
+                                 @Value("${xs2asandbox.cms.payment-status.retry.max-attempts:10}") int maxAttempts,
+                                 @Value("${xs2asandbox.cms.payment-status.journal:}") String journalPath) {
+        this.cmsPsuPisClient = cmsPsuPisClient;
+        this.async = async && capacity > 0 && flushInterval > 0;
+        this.capacity = capacity;
+        this.batchSize = Math.max(batchSize, 1);
+        this.retryBackoff = Math.max(retryBackoff, 0);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.journal = this.async && StringUtils.isNotBlank(journalPath)
+                               ? new PaymentStatusJournal(Paths.get(journalPath))
+                               : null;
+        if (journal != null) {
+            try {
+                pendingUpdates.putAll(journal.open());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Payment status journal " + journalPath + " could not be opened", e);
+            }
+            log.info("{} payment statuses replayed from journal {}", pendingUpdates.size(), journalPath);
+        } else if (this.async) {
+            log.warn("Payment statuses are written to the CMS in the background without journal, queued statuses are lost on a crash");
+        }
+
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cms-payment-status-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (this.async) {
+            flushExecutor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues the payment status for the CMS, replacing a queued status of the payment.
+     */
+    public void updatePaymentStatus(String paymentId, TransactionStatus transactionStatus, String instanceId) {
+        if (!async) {
+            cmsPsuPisClient.updatePaymentStatus(paymentId, transactionStatus, instanceId);
+            return;
+        }
+
+        PaymentStatusUpdate update = new PaymentStatusUpdate(paymentId, transactionStatus, instanceId);
+        synchronized (journalLock) {
+            if (pendingUpdates.size() < capacity || pendingUpdates.containsKey(paymentId)) {
+                if (journal != null) {
+                    try {
+                        journal.appendUpdate(update);
+                    } catch (IOException e) {
+                        log.warn("Status of payment [{}] could not be journaled: {}", paymentId, e.getMessage());
+                    }
+                }
+                pendingUpdates.put(paymentId, update);
+                return;
+            }
+        }
+        log.warn("Payment status queue is full, status of payment [{}] is written synchronously", paymentId);
+        cmsPsuPisClient.updatePaymentStatus(paymentId, transactionStatus, instanceId);
+    }
+
+    /**
+     * Discards the queued status of the payment, called when a newer status of the payment has been reported to XS2A.
+     * A write already in progress is not retried anymore.
+     */
+    public void discardPaymentStatus(String paymentId) {
+        if (!async) {
+            return;
+        }
+        PaymentStatusUpdate discarded;
+        synchronized (journalLock) {
+            discarded = pendingUpdates.remove(paymentId);
+            inFlightUpdates.remove(paymentId);
+        }
+        if (discarded != null) {
+            log.debug("Queued status {} of payment [{}] is discarded", discarded.getTransactionStatus(), paymentId);
+            journalDelivery(discarded);
+        }
+    }
+
+    public int getQueueDepth() {
+        return pendingUpdates.size();
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + "queue.depth", this, CmsPaymentStatusQueue::getQueueDepth)
+                .description("Payment statuses waiting to be written to the CMS")
+                .register(registry);
+        flushTimer = Timer.builder(METRIC_PREFIX + "flush")
+                             .description("Time to write a batch of payment statuses to the CMS")
+                             .register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flushExecutor.shutdown();
+        if (!async) {
+            return;
+        }
+        if (!flushExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Payment status flush did not stop in time, {} statuses are not written to the CMS", pendingUpdates.size());
+            return;
+        }
+        // the flush thread has stopped, write the due statuses until none are left
+        int written;
+        do {
+            written = flush();
+        } while (written > 0);
+        for (PaymentStatusUpdate update : pendingUpdates.values()) {
+            log.warn("Status {} of payment [{}] is not written to the CMS on shutdown{}", update.getTransactionStatus(),
+                     update.getPaymentId(), journal == null ? "" : ", it is kept in the journal");
+        }
+        if (journal != null) {
+            synchronized (journalLock) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    log.warn("Payment status journal could not be closed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of the due statuses, called by the flush thread or, once it has stopped, on shutdown.
+     *
+     * @return the number of statuses written or retried
+     */
+    int flush() {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        int written = 0;
+        try {
+            for (PaymentStatusUpdate update : pendingUpdates.values()) {
+                if (written >= batchSize) {
+                    break;
+                }
+                if (update.isDue(now) && take(update)) {
+                    write(update, now);
+                    written++;
+                }
+            }
+            compactJournal();
+        } catch (RuntimeException e) {
+            log.error("Payment statuses could not be flushed", e);
+        }
+
+        Timer timer = flushTimer;
+        if (written > 0 && timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return written;
+    }
+
+    private boolean take(PaymentStatusUpdate update) {
+        synchronized (journalLock) {
+            if (!pendingUpdates.remove(update.getPaymentId(), update)) {
+                return false;
+            }
+            inFlightUpdates.put(update.getPaymentId(), update);
+            return true;
+        }
+    }
+
+    private void write(PaymentStatusUpdate update, long now) {
+        try {
+            cmsPsuPisClient.updatePaymentStatus(update.getPaymentId(), update.getTransactionStatus(), update.getInstanceId());
+            inFlightUpdates.remove(update.getPaymentId(), update);
+            journalDelivery(update);
+        } catch (RuntimeException e) {
+            if (update.getAttempts() + 1 >= maxAttempts) {
+                log.error("Status {} of payment [{}] could not be written to the CMS after {} attempts: {}",
+                          update.getTransactionStatus(), update.getPaymentId(), maxAttempts, e.getMessage());
+                inFlightUpdates.remove(update.getPaymentId(), update);
+                journalDelivery(update);
+                return;
+            }
+            long backoff = Math.min(retryBackoff << Math.min(update.getAttempts(), 20), MAX_BACKOFF_MS);
+            synchronized (journalLock) {
+                // a status discarded during the write is not retried, a newer queued status is kept
+                if (inFlightUpdates.remove(update.getPaymentId(), update)) {
+                    pendingUpdates.putIfAbsent(update.getPaymentId(), update.retryAt(now + backoff));
+                    log.warn("Status {} of payment [{}] could not be written to the CMS, retrying in {} ms: {}",
+                             update.getTransactionStatus(), update.getPaymentId(), backoff, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void journalDelivery(PaymentStatusUpdate update) {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            try {
+                journal.appendDelivery(update);
+            } catch (IOException e) {
+                log.warn("Delivery of payment [{}] status could not be journaled: {}", update.getPaymentId(), e.getMessage());
+            }
+        }
+    }
+
+    private void compactJournal() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (journalLock) {
+            if (journal.getRecords() < 2 * pendingUpdates.size() + JOURNAL_COMPACTION_RECORDS) {
+                return;
+            }
+            try {
+                journal.rewrite(pendingUpdates.values());
+            } catch (IOException e) {
+                log.warn("Payment status journal could not be compacted: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.adorsys.aspsp.xs2a.connector.cms;
+
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only journal of the queued payment status updates. Every queued status is appended as update record and
+ * every status written to the CMS as delivery record, so the updates not delivered before a restart can be replayed.
+ * The journal is rewritten with the pending updates only when it is opened and when it has grown, records of a torn
+ * last line are skipped.
+ * <p>
+ * Records are flushed to the operating system, not synced to the disk, so they survive a restart of the connector
+ * but not a crash of the host.
+ */
+class PaymentStatusJournal {
+    private static final String UPDATE = "U";
+    private static final String DELIVERY = "D";
+    private static final String SEPARATOR = "\t";
+
+    private final Path path;
+    private BufferedWriter writer;
+    private int records;
+
+    PaymentStatusJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns the updates not delivered yet and starts a journal containing them only.
+     */
+    Map<String, PaymentStatusUpdate> open() throws IOException {
+        Map<String, PaymentStatusUpdate> updates = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                replay(line, updates);
+            }
+        } else if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        rewrite(updates.values());
+        return updates;
+    }
+
+    void appendUpdate(PaymentStatusUpdate update) throws IOException {
+        append(UPDATE, update);
+    }
+
+    void appendDelivery(PaymentStatusUpdate update) throws IOException {
+        append(DELIVERY, update);
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    void rewrite(Collection<PaymentStatusUpdate> pendingUpdates) throws IOException {
+        close();
+        Path rewritten = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter rewriter = Files.newBufferedWriter(rewritten, StandardCharsets.UTF_8)) {
+            for (PaymentStatusUpdate update : pendingUpdates) {
+                rewriter.write(toRecord(UPDATE, update));
+            }
+        }
+        Files.move(rewritten, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        records = pendingUpdates.size();
+    }
+
+    void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void append(String type, PaymentStatusUpdate update) throws IOException {
+        if (writer == null) {
+            throw new IOException("Payment status journal " + path + " is not open");
+        }
+        writer.write(toRecord(type, update));
+        writer.flush();
+        records++;
+    }
+
+    private static void replay(String record, Map<String, PaymentStatusUpdate> updates) {
+        String[] fields = record.split(SEPARATOR, -1);
+        if (fields.length != 4) {
+            return;
+        }
+        TransactionStatus transactionStatus;
+        try {
+            transactionStatus = TransactionStatus.valueOf(fields[2]);
+        } catch (IllegalArgumentException e) {
+            return;
+        }
+
+        String paymentId = fields[1];
+        if (UPDATE.equals(fields[0])) {
+            updates.put(paymentId, new PaymentStatusUpdate(paymentId, transactionStatus, StringUtils.defaultIfEmpty(fields[3], null)));
+        } else if (DELIVERY.equals(fields[0])) {
+            PaymentStatusUpdate pending = updates.get(paymentId);
+            if (pending != null && pending.getTransactionStatus() == transactionStatus) {
+                updates.remove(paymentId);
+            }
+        }
+    }
+
+    private static String toRecord(String type, PaymentStatusUpdate update) {
+        return type + SEPARATOR + update.getPaymentId() + SEPARATOR + update.getTransactionStatus().name()
+                       + SEPARATOR + StringUtils.defaultString(update.getInstanceId()) + "\n";
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.adorsys.aspsp.xs2a.connector.cms;
+
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+
+/**
+ * Payment status queued for the CMS, immutable so that a newer status of the payment can replace it atomically.
+ */
+class PaymentStatusUpdate {
+    private final String paymentId;
+    private final TransactionStatus transactionStatus;
+    private final String instanceId;
+    private final int attempts;
+    private final long notBefore;
+
+    PaymentStatusUpdate(String paymentId, TransactionStatus transactionStatus, String instanceId) {
+        this(paymentId, transactionStatus, instanceId, 0, 0);
+    }
+
+    private PaymentStatusUpdate(String paymentId, TransactionStatus transactionStatus, String instanceId, int attempts, long notBefore) {
+        this.paymentId = paymentId;
+        this.transactionStatus = transactionStatus;
+        this.instanceId = instanceId;
+        this.attempts = attempts;
+        this.notBefore = notBefore;
+    }
+
+    PaymentStatusUpdate retryAt(long retryTime) {
+        return new PaymentStatusUpdate(paymentId, transactionStatus, instanceId, attempts + 1, retryTime);
+    }
+
+    String getPaymentId() {
+        return paymentId;
+    }
+
+    TransactionStatus getTransactionStatus() {
+        return transactionStatus;
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    int getAttempts() {
+        return attempts;
+    }
+
+    boolean isDue(long now) {
+        return notBefore <= now;
+    }
+}
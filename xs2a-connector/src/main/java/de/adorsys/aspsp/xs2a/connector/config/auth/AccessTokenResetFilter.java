@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Removes the bearer token bound to the worker thread by {@link AuthRequestInterceptor} when a request starts and
+ * when it is completed, so that a PSU token which was not cleared by the SPI is never sent with the Ledgers calls of
+ * the next request served by the same thread.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AccessTokenResetFilter extends OncePerRequestFilter {
+    private final AuthRequestInterceptor authRequestInterceptor;
+
+    public AccessTokenResetFilter(AuthRequestInterceptor authRequestInterceptor) {
+        this.authRequestInterceptor = authRequestInterceptor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        authRequestInterceptor.setAccessToken(null);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package de.adorsys.aspsp.xs2a.connector.config.auth;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.BearerTokenValidator;
+import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 
 @Configuration
 public class AuthConfig {
@@ -11,4 +14,13 @@ public class AuthConfig {
 	public AuthRequestInterceptor getClientAuth() {
 		return new AuthRequestInterceptor();
 	}
+
+	@Bean
+	public BearerTokenValidator bearerTokenValidator(UserMgmtRestClient userMgmtRestClient, AuthRequestInterceptor authRequestInterceptor,
+													 @Value("${xs2asandbox.token-validation.cache.max-size:10000}") long maxSize,
+													 @Value("${xs2asandbox.token-validation.cache.ttl.ms:300000}") long maxTtl,
+													 @Value("${xs2asandbox.token-validation.cache.negative-ttl.ms:5000}") long negativeTtl,
+													 @Value("${xs2asandbox.token-validation.verification-key:}") String verificationKey) {
+		return new BearerTokenValidator(userMgmtRestClient, authRequestInterceptor, maxSize, maxTtl, negativeTtl, verificationKey);
+	}
 }
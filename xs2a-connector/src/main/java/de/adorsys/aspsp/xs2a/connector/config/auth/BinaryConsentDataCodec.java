@@ -0,0 +1,105 @@
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Compact binary format for consent data. The payload is Smile encoded and prefixed by a three byte header:
+ * <ol>
+ * <li>format marker {@code 0x00}, never the first byte of a JSON document</li>
+ * <li>format version</li>
+ * <li>type tag of the stored response</li>
+ * </ol>
+ */
+public class BinaryConsentDataCodec implements ConsentDataCodec {
+    static final byte FORMAT_MARKER = 0x00;
+    static final byte FORMAT_VERSION = 1;
+    static final int HEADER_LENGTH = 3;
+
+    private final ObjectMapper smileMapper;
+
+    public BinaryConsentDataCodec() {
+        smileMapper = new ObjectMapper(new SmileFactory());
+        smileMapper.registerModule(new JavaTimeModule());
+        smileMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public boolean canDecode(byte[] consentData) {
+        return consentData != null && consentData.length > 0 && consentData[0] == FORMAT_MARKER;
+    }
+
+    @Override
+    public byte[] encode(SCAResponseTO response) throws IOException {
+        ResponseType type = ResponseType.getByClass(response.getClass());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(512);
+        outputStream.write(FORMAT_MARKER);
+        outputStream.write(FORMAT_VERSION);
+        outputStream.write(type.tag);
+        smileMapper.writeValue(outputStream, response);
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public SCAResponseTO decode(byte[] consentData) throws IOException {
+        checkHeader(consentData);
+        ResponseType type = ResponseType.getByTag(consentData[2]);
+        return smileMapper.readValue(consentData, HEADER_LENGTH, consentData.length - HEADER_LENGTH, type.klass);
+    }
+
+    @Override
+    public <T extends SCAResponseTO> T decode(byte[] consentData, Class<T> klass) throws IOException {
+        checkHeader(consentData);
+        return smileMapper.readValue(consentData, HEADER_LENGTH, consentData.length - HEADER_LENGTH, klass);
+    }
+
+    private void checkHeader(byte[] consentData) throws IOException {
+        if (!canDecode(consentData) || consentData.length <= HEADER_LENGTH) {
+            throw new IOException("Consent data is not in binary format");
+        }
+        if (consentData[1] != FORMAT_VERSION) {
+            throw new IOException("Unsupported consent data format version: " + consentData[1]);
+        }
+    }
+
+    private enum ResponseType {
+        CONSENT((byte) 1, SCAConsentResponseTO.class),
+        LOGIN((byte) 2, SCALoginResponseTO.class),
+        PAYMENT((byte) 3, SCAPaymentResponseTO.class);
+
+        private final byte tag;
+        private final Class<? extends SCAResponseTO> klass;
+
+        ResponseType(byte tag, Class<? extends SCAResponseTO> klass) {
+            this.tag = tag;
+            this.klass = klass;
+        }
+
+        static ResponseType getByTag(byte tag) throws IOException {
+            for (ResponseType type : values()) {
+                if (type.tag == tag) {
+                    return type;
+                }
+            }
+            throw new IOException("Unknown response type tag: " + tag);
+        }
+
+        static ResponseType getByClass(Class<?> klass) throws IOException {
+            for (ResponseType type : values()) {
+                if (type.klass == klass) {
+                    return type;
+                }
+            }
+            throw new IOException("Unknown response type: " + klass.getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+
+import java.io.IOException;
+
+/**
+ * Serialisation format of the ASPSP consent data, which is persisted by CMS between the calls of one flow.
+ */
+public interface ConsentDataCodec {
+
+    /**
+     * Checks whether the given consent data has been written in the format of this codec.
+     */
+    boolean canDecode(byte[] consentData);
+
+    byte[] encode(SCAResponseTO response) throws IOException;
+
+    SCAResponseTO decode(byte[] consentData) throws IOException;
+
+    <T extends SCAResponseTO> T decode(byte[] consentData, Class<T> klass) throws IOException;
+}
@@ -0,0 +1,173 @@
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Plain JSON format, in which consent data has been stored so far. The root object may be wrapped by its name.
+ * <p>
+ * The consent data is tokenized only once: the tokens are buffered while the {@code objectType} discriminator is
+ * looked up and then bound to the concrete response class straight from the buffer.
+ */
+public class JsonConsentDataCodec implements ConsentDataCodec {
+    private static final String OBJECT_TYPE = "objectType";
+    private static final String CONSENT_RESPONSE_TYPE = SCAConsentResponseTO.class.getSimpleName();
+    private static final String LOGIN_RESPONSE_TYPE = SCALoginResponseTO.class.getSimpleName();
+    private static final String PAYMENT_RESPONSE_TYPE = SCAPaymentResponseTO.class.getSimpleName();
+
+    private final ObjectMapper mapper;
+
+    public JsonConsentDataCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean canDecode(byte[] consentData) {
+        return true;
+    }
+
+    @Override
+    public byte[] encode(SCAResponseTO response) throws IOException {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Override
+    public SCAResponseTO decode(byte[] consentData) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(consentData)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                JsonNode jsonNode = prepareNode(consentData);
+                return readValue(mapper.treeAsTokens(jsonNode), responseClass(objectType(jsonNode)));
+            }
+            BufferedObject bufferedObject = bufferObject(parser);
+            return readValue(bufferedObject.asParser(), responseClass(bufferedObject.objectType()));
+        }
+    }
+
+    @Override
+    public <T extends SCAResponseTO> T decode(byte[] consentData, Class<T> klass) throws IOException {
+        try (JsonParser parser = mapper.getFactory().createParser(consentData)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return readValue(mapper.treeAsTokens(prepareNode(consentData)), klass);
+            }
+            return readValue(bufferObject(parser).asParser(), klass);
+        }
+    }
+
+    private <T> T readValue(JsonParser parser, Class<T> klass) throws IOException {
+        try (JsonParser jsonParser = parser) {
+            return mapper.readValue(jsonParser, klass);
+        }
+    }
+
+    private Class<? extends SCAResponseTO> responseClass(String type) throws IOException {
+        if (CONSENT_RESPONSE_TYPE.equals(type)) {
+            return SCAConsentResponseTO.class;
+        } else if (LOGIN_RESPONSE_TYPE.equals(type)) {
+            return SCALoginResponseTO.class;
+        } else if (PAYMENT_RESPONSE_TYPE.equals(type)) {
+            return SCAPaymentResponseTO.class;
+        } else {
+            throw new IOException("Unknown response type: " + type);
+        }
+    }
+
+    /**
+     * Copies the root object, positioned at its {@code START_OBJECT} token, into a token buffer. The object type
+     * of the root and, if the root consists of a single object field, of the wrapped object are recorded on the way.
+     */
+    private BufferedObject bufferObject(JsonParser parser) throws IOException {
+        TokenBuffer tokenBuffer = new TokenBuffer(parser);
+        tokenBuffer.writeStartObject();
+        int fieldCount = 0;
+        String rootObjectType = null;
+        String wrappedObjectType = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            fieldCount++;
+            tokenBuffer.writeFieldName(fieldName);
+            if (OBJECT_TYPE.equals(fieldName)) {
+                rootObjectType = valueToken.isScalarValue() ? parser.getText() : "";
+            }
+            if (fieldCount == 1 && valueToken == JsonToken.START_OBJECT) {
+                wrappedObjectType = copyObject(parser, tokenBuffer);
+            } else {
+                tokenBuffer.copyCurrentStructure(parser);
+            }
+        }
+        tokenBuffer.writeEndObject();
+        return fieldCount == 1
+                       ? new BufferedObject(tokenBuffer, true, wrappedObjectType)
+                       : new BufferedObject(tokenBuffer, false, rootObjectType);
+    }
+
+    private String copyObject(JsonParser parser, TokenBuffer tokenBuffer) throws IOException {
+        String objectType = null;
+        tokenBuffer.writeStartObject();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if (OBJECT_TYPE.equals(fieldName)) {
+                objectType = valueToken.isScalarValue() ? parser.getText() : "";
+            }
+            tokenBuffer.writeFieldName(fieldName);
+            tokenBuffer.copyCurrentStructure(parser);
+        }
+        tokenBuffer.writeEndObject();
+        return objectType;
+    }
+
+    private JsonNode prepareNode(byte[] tokenBytes) throws IOException {
+        JsonNode jsonNode = mapper.readTree(tokenBytes);
+        // size
+        if (jsonNode.size() == 1) { // unwrapped object
+            jsonNode = jsonNode.iterator().next();
+        }
+        return jsonNode;
+    }
+
+    String objectType(JsonNode jsonNode) {
+        return Optional.ofNullable(jsonNode.get(OBJECT_TYPE))
+                       .map(JsonNode::asText)
+                       .orElse(null);
+    }
+
+    private final class BufferedObject {
+        private final TokenBuffer tokenBuffer;
+        private final boolean wrapped;
+        private final String objectType;
+
+        private BufferedObject(TokenBuffer tokenBuffer, boolean wrapped, String objectType) {
+            this.tokenBuffer = tokenBuffer;
+            this.wrapped = wrapped;
+            this.objectType = objectType;
+        }
+
+        String objectType() {
+            return objectType;
+        }
+
+        /**
+         * Returns a parser over the buffered tokens, positioned at the start of the wrapped object if there is one.
+         */
+        JsonParser asParser() throws IOException {
+            JsonParser parser = tokenBuffer.asParser(mapper);
+            if (wrapped) {
+                parser.nextToken(); // START_OBJECT of the root
+                parser.nextToken(); // FIELD_NAME of the wrapped object
+            }
+            parser.nextToken();
+            return parser;
+        }
+    }
+}
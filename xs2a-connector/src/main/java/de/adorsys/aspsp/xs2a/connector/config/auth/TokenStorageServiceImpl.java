@@ -1,44 +1,52 @@
 package de.adorsys.aspsp.xs2a.connector.config.auth;
 
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
-import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
-import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
-import de.adorsys.ledgers.middleware.api.domain.sca.SCAPaymentResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.Base64;
-import java.util.Optional;
 
+/**
+ * Reads consent data in any supported format, so that the data written before a format switch stays readable.
+ * New data is written in the format configured by {@code xs2asandbox.consent-data.format} ({@code json} or
+ * {@code binary}).
+ */
 @Service
 public class TokenStorageServiceImpl implements TokenStorageService {
-    @Autowired
-    @Qualifier(value = "objectMapper")
-    private ObjectMapper mapper;
+    private static final String BINARY_FORMAT = "binary";
+
+    private final ConsentDataCodec jsonCodec;
+    private final ConsentDataCodec binaryCodec;
+    private final ConsentDataCodec writeCodec;
+
+    public TokenStorageServiceImpl(@Qualifier(value = "objectMapper") ObjectMapper mapper,
+                                   @Value("${xs2asandbox.consent-data.format:json}") String format) {
+        this.jsonCodec = new JsonConsentDataCodec(mapper);
+        this.binaryCodec = new BinaryConsentDataCodec();
+        this.writeCodec = BINARY_FORMAT.equalsIgnoreCase(format) ? binaryCodec : jsonCodec;
+    }
 
     @Override
     public SCAResponseTO fromBytes(byte[] tokenBytes) throws IOException {
         checkAspspConsentData(tokenBytes);
-        return read(tokenBytes);
+        return codecFor(tokenBytes).decode(tokenBytes);
     }
 
     @Override
     public byte[] toBytes(SCAResponseTO response) throws IOException {
-        return mapper.writeValueAsBytes(response);
+        return writeCodec.encode(response);
     }
 
     @Override
     public <T extends SCAResponseTO> T fromBytes(byte[] tokenBytes, Class<T> klass) throws IOException {
         checkAspspConsentData(tokenBytes);
-        return read(tokenBytes, klass);
+        return codecFor(tokenBytes).decode(tokenBytes, klass);
     }
 
     @Override
@@ -52,40 +60,7 @@ public class TokenStorageServiceImpl implements TokenStorageService {
         }
     }
 
-    private SCAResponseTO read(byte[] tokenBytes) throws IOException {
-        JsonNode jsonNode = prepareNode(tokenBytes);
-        String type = objectType(jsonNode);
-        JsonParser jsonParser = mapper.treeAsTokens(jsonNode);
-        if (SCAConsentResponseTO.class.getSimpleName().equals(type)) {
-            return mapper.readValue(jsonParser, SCAConsentResponseTO.class);
-        } else if (SCALoginResponseTO.class.getSimpleName().equals(type)) {
-            return mapper.readValue(jsonParser, SCALoginResponseTO.class);
-        } else if (SCAPaymentResponseTO.class.getSimpleName().equals(type)) {
-            return mapper.readValue(jsonParser, SCAPaymentResponseTO.class);
-        } else {
-            throw new IOException("Unknown response type: " + type);
-        }
-    }
-
-    private <T extends SCAResponseTO> T read(byte[] tokenBytes, Class<T> klass) throws IOException {
-        JsonNode jsonNode = prepareNode(tokenBytes);
-        JsonParser jsonParser = mapper.treeAsTokens(jsonNode);
-        return mapper.readValue(jsonParser, klass);
+    private ConsentDataCodec codecFor(byte[] tokenBytes) {
+        return binaryCodec.canDecode(tokenBytes) ? binaryCodec : jsonCodec;
     }
-
-    private JsonNode prepareNode(byte[] tokenBytes) throws IOException {
-        JsonNode jsonNode = mapper.readTree(tokenBytes);
-        // size
-        if (jsonNode.size() == 1) { // unwrapped object
-            jsonNode = jsonNode.iterator().next();
-        }
-        return jsonNode;
-    }
-
-    String objectType(JsonNode jsonNode) {
-        return Optional.ofNullable(jsonNode.get("objectType"))
-                       .map(JsonNode::asText)
-                       .orElse(null);
-    }
-
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.rest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the state of the ASPSP HTTP connection pool, picked up automatically when actuator metrics are enabled.
+ */
+public class AspspHttpClientPoolMetrics implements MeterBinder {
+    private static final String METRIC_PREFIX = "aspsp.http-client.pool.";
+
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    public AspspHttpClientPoolMetrics(PoolingHttpClientConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
+    @Override
+    public void bindTo(@NotNull MeterRegistry registry) {
+        registerGauge(registry, "leased", "Connections currently in use", PoolStats::getLeased);
+        registerGauge(registry, "pending", "Requests waiting for a connection", PoolStats::getPending);
+        registerGauge(registry, "available", "Idle connections ready to be reused", PoolStats::getAvailable);
+        registerGauge(registry, "max", "Maximum number of connections", PoolStats::getMax);
+    }
+
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    private void registerGauge(MeterRegistry registry, String name, String description, ToDoubleFunction<PoolStats> value) {
+        Gauge.builder(METRIC_PREFIX + name, this, m -> value.applyAsDouble(m.getTotalStats()))
+                .description(description)
+                .register(registry);
+    }
+}
@@ -15,43 +15,95 @@
  */
 package de.adorsys.aspsp.xs2a.connector.config.rest;
 
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.context.annotation.RequestScope;
 
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures a single, thread-safe rest template for ASPSP calls. It is backed by a pooled Apache HTTP client, so
+ * that connections are kept alive and reused between requests instead of opening a new one for every call.
+ */
 @Configuration
 public class AspspRestConfig {
     @Value("${http-client.read-timeout.ms:10000}")
     private int readTimeout;
     @Value("${http-client.connection-timeout.ms:10000}")
     private int connectionTimeout;
+    @Value("${http-client.pool.connection-request-timeout.ms:10000}")
+    private int connectionRequestTimeout;
+    @Value("${http-client.pool.max-total:200}")
+    private int maxTotal;
+    @Value("${http-client.pool.max-per-route:50}")
+    private int maxPerRoute;
+    @Value("${http-client.pool.idle-eviction.ms:30000}")
+    private long idleEvictionTime;
+    @Value("${http-client.keep-alive.ms:30000}")
+    private long keepAliveTime;
 
     public AspspRestConfig() {
 	}
 
-	public AspspRestConfig(int readTimeout, int connectionTimeout) {
+	public AspspRestConfig(int readTimeout, int connectionTimeout, int connectionRequestTimeout,
+						   int maxTotal, int maxPerRoute, long idleEvictionTime, long keepAliveTime) {
 		this.readTimeout = readTimeout;
 		this.connectionTimeout = connectionTimeout;
+		this.connectionRequestTimeout = connectionRequestTimeout;
+		this.maxTotal = maxTotal;
+		this.maxPerRoute = maxPerRoute;
+		this.idleEvictionTime = idleEvictionTime;
+		this.keepAliveTime = keepAliveTime;
 	}
 
-	@RequestScope
     @Bean(name = "aspspRestTemplate")
-    public RestTemplate restTemplate(){
-        RestTemplate rest = new RestTemplate(clientHttpRequestFactory());
+    public RestTemplate restTemplate(@Qualifier("aspspHttpClient") CloseableHttpClient aspspHttpClient) {
+        RestTemplate rest = new RestTemplate(clientHttpRequestFactory(aspspHttpClient));
         rest.getMessageConverters().removeIf(m -> m.getClass().isAssignableFrom(MappingJackson2XmlHttpMessageConverter.class));
         rest.setErrorHandler(new AspspRestErrorHandler());
         return rest;
     }
 
-    private ClientHttpRequestFactory clientHttpRequestFactory() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+    @Bean(name = "aspspHttpClientConnectionManager")
+    public PoolingHttpClientConnectionManager aspspHttpClientConnectionManager() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        return connectionManager;
+    }
+
+    @Bean(name = "aspspHttpClient")
+    public CloseableHttpClient aspspHttpClient(@Qualifier("aspspHttpClientConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClients.custom()
+                       .setConnectionManager(connectionManager)
+                       .setKeepAliveStrategy((response, context) -> {
+                           long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                           return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAliveTime) : keepAliveTime;
+                       })
+                       .evictExpiredConnections()
+                       .evictIdleConnections(idleEvictionTime, TimeUnit.MILLISECONDS)
+                       .build();
+    }
+
+    @Bean
+    public AspspHttpClientPoolMetrics aspspHttpClientPoolMetrics(@Qualifier("aspspHttpClientConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        return new AspspHttpClientPoolMetrics(connectionManager);
+    }
+
+    private ClientHttpRequestFactory clientHttpRequestFactory(CloseableHttpClient httpClient) {
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
         factory.setReadTimeout(readTimeout);
         factory.setConnectTimeout(connectionTimeout);
+        factory.setConnectionRequestTimeout(connectionRequestTimeout);
         return factory;
     }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.converter;
+
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maps and validates the payments of bulk payments in chunks of {@code xs2asandbox.bulk-payment.chunk-size} while
+ * they are parsed. A chunk is mapped as soon as it is complete, so besides the mapped payments only the parsed
+ * payments of the chunks in flight are held. The chunks of bulks with more than
+ * {@code xs2asandbox.bulk-payment.parallel-threshold} bytes are mapped in parallel by
+ * {@code xs2asandbox.bulk-payment.threads} threads, at most two chunks per thread are in flight.
+ * <p>
+ * Payments which cannot be mapped or fail the validation are collected with their index and rejected together
+ * after the whole bulk has been mapped.
+ */
+@Slf4j
+@Component
+public class BulkPaymentPipeline implements DisposableBean {
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    private final int chunkSize;
+    private final int parallelThreshold;
+    private final int maxChunksInFlight;
+    private final ExecutorService executorService;
+
+    public BulkPaymentPipeline(@Value("${xs2asandbox.bulk-payment.chunk-size:500}") int chunkSize,
+                               @Value("${xs2asandbox.bulk-payment.parallel-threshold:1048576}") int parallelThreshold,
+                               @Value("${xs2asandbox.bulk-payment.threads:4}") int threads) {
+        this.chunkSize = Math.max(chunkSize, 1);
+        this.parallelThreshold = parallelThreshold;
+        this.maxChunksInFlight = threads * 2;
+        this.executorService = threads > 0 ? Executors.newFixedThreadPool(threads, new BulkPaymentThreadFactory()) : null;
+    }
+
+    /**
+     * Starts the mapping of a bulk.
+     *
+     * @param payloadSize size of the bulk in bytes, which decides whether the chunks are mapped in parallel
+     * @param mapper      maps a parsed payment
+     * @param validator   returns the validation error of a mapped payment or {@code null} if it is valid
+     */
+    public <E, T> Batch<E, T> newBatch(int payloadSize, Function<E, T> mapper, Function<T, String> validator) {
+        boolean parallel = executorService != null && payloadSize > parallelThreshold;
+        return new Batch<>(parallel, mapper, validator);
+    }
+
+    @Override
+    public void destroy() {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+    }
+
+    public class Batch<E, T> {
+        private final boolean parallel;
+        private final Function<E, T> mapper;
+        private final Function<T, String> validator;
+        private final Deque<CompletableFuture<Chunk<T>>> chunksInFlight = new ArrayDeque<>();
+        private final List<T> results = new ArrayList<>();
+        private final List<String> failures = new ArrayList<>();
+        private List<E> items;
+        private int itemCount;
+
+        Batch(boolean parallel, Function<E, T> mapper, Function<T, String> validator) {
+            this.parallel = parallel;
+            this.mapper = mapper;
+            this.validator = validator;
+            this.items = new ArrayList<>(chunkSize);
+        }
+
+        public void add(E item) {
+            items.add(item);
+            if (items.size() == chunkSize) {
+                submitChunk();
+            }
+        }
+
+        /**
+         * Returns the mapped payments in the order they were added.
+         *
+         * @throws feign.FeignException if a payment could not be mapped or is invalid
+         */
+        public List<T> finish() {
+            if (!items.isEmpty()) {
+                submitChunk();
+            }
+            while (!chunksInFlight.isEmpty()) {
+                collect(LedgersCallExecutor.join(chunksInFlight.poll()));
+            }
+            if (!failures.isEmpty()) {
+                log.info("Bulk payment with {} payments contains {} invalid payments", itemCount, failures.size());
+                String reported = failures.stream()
+                                          .limit(MAX_REPORTED_FAILURES)
+                                          .collect(Collectors.joining("; "));
+                throw FeignExceptionHandler.getException(HttpStatus.BAD_REQUEST,
+                                                         String.format("Bulk payment contains %d invalid payments: %s", failures.size(), reported));
+            }
+            return results;
+        }
+
+        private void submitChunk() {
+            List<E> chunk = items;
+            int offset = itemCount;
+            itemCount += chunk.size();
+            items = new ArrayList<>(chunkSize);
+            if (!parallel) {
+                collect(mapChunk(chunk, offset));
+                return;
+            }
+            chunksInFlight.add(CompletableFuture.supplyAsync(() -> mapChunk(chunk, offset), executorService));
+            if (chunksInFlight.size() >= maxChunksInFlight) {
+                collect(LedgersCallExecutor.join(chunksInFlight.poll()));
+            }
+        }
+
+        private Chunk<T> mapChunk(List<E> chunk, int offset) {
+            Chunk<T> mapped = new Chunk<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                try {
+                    T result = mapper.apply(chunk.get(i));
+                    String error = validator.apply(result);
+                    if (error == null) {
+                        mapped.results.add(result);
+                    } else {
+                        mapped.failures.add(String.format("payments[%d]: %s", offset + i, error));
+                    }
+                } catch (RuntimeException e) {
+                    mapped.failures.add(String.format("payments[%d]: %s", offset + i, e.getMessage()));
+                }
+            }
+            return mapped;
+        }
+
+        private void collect(Chunk<T> chunk) {
+            if (failures.isEmpty()) {
+                results.addAll(chunk.results);
+            }
+            failures.addAll(chunk.failures);
+        }
+    }
+
+    private static class Chunk<T> {
+        private final List<T> results;
+        private final List<String> failures = new ArrayList<>();
+
+        Chunk(int size) {
+            this.results = new ArrayList<>(size);
+        }
+    }
+
+    private static class BulkPaymentThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "bulk-payment-mapper-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -12,7 +12,10 @@ import de.adorsys.psd2.xs2a.spi.domain.psu.SpiPsuData;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Mapper(componentModel = "spring")
@@ -63,80 +66,75 @@ public abstract class LedgersSpiAccountMapper {
                        .orElse(null);
     } //Full manual mapping here, no extra tests necessary
 
-    public abstract List<SpiTransaction> toSpiTransactions(List<TransactionTO> transactions);
+    /**
+     * Maps the transactions of a report without intermediate objects per field. Account references with the same
+     * values are mapped to one shared instance within the report.
+     */
+    public List<SpiTransaction> toSpiTransactions(List<TransactionTO> transactions) {
+        if (transactions == null) {
+            return null;
+        }
+        List<SpiTransaction> spiTransactions = new ArrayList<>(transactions.size());
+        Map<AccountReferenceTO, SpiAccountReference> accountReferences = new HashMap<>();
+        for (TransactionTO transaction : transactions) {
+            spiTransactions.add(transaction == null ? null : toSpiTransaction(transaction, accountReferences));
+        }
+        return spiTransactions;
+    }
 
-    public abstract List<SpiCardTransaction> toSpiCardTransactions(List<TransactionTO> transactions);
+    public List<SpiCardTransaction> toSpiCardTransactions(List<TransactionTO> transactions) {
+        if (transactions == null) {
+            return null;
+        }
+        List<SpiCardTransaction> spiCardTransactions = new ArrayList<>(transactions.size());
+        for (TransactionTO transaction : transactions) {
+            spiCardTransactions.add(toSpiCardTransaction(transaction));
+        }
+        return spiCardTransactions;
+    }
 
     public SpiTransaction toSpiTransaction(TransactionTO transaction) {
-        return Optional.ofNullable(transaction)
-                       .map(t -> new SpiTransaction(
-                               t.getTransactionId(),
-                               t.getEntryReference(),
-                               t.getEndToEndId(),
-                               t.getMandateId(),
-                               t.getCheckId(),
-                               t.getCreditorId(),
-                               t.getBookingDate(),
-                               t.getValueDate(),
-                               toSpiAmount(t.getAmount()),
-                               toSpiExchangeRateList(t.getExchangeRate()),
-                               t.getCreditorName(),
-                               toSpiAccountReference(t.getCreditorAccount()),
-                               t.getCreditorAgent(),
-                               t.getUltimateCreditor(),
-                               t.getDebtorName(),
-                               toSpiAccountReference(t.getDebtorAccount()),
-                               t.getDebtorAgent(),
-                               t.getUltimateDebtor(),
-                               t.getRemittanceInformationUnstructured(),
-                               MockAccountData.REMITTANCE_UNSTRUCTURED_ARRAY,
-                               mapToRemittance(t.getRemittanceInformationStructured()),
-                               MockAccountData.REMITTANCE_STRUCTURED_ARRAY,
-                               t.getPurposeCode(),
-                               t.getBankTransactionCode(),
-                               t.getProprietaryBankTransactionCode(),
-                               MockAccountData.ADDITIONAL_INFORMATION,
-                               null, // TODO Map proper field https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1100
-                               accountBalanceTOToSpiAccountBalance(t.getBalanceAfterTransaction())))
-                       .orElse(null);
+        return transaction == null ? null : toSpiTransaction(transaction, null);
     }  //Full manual mapping here, no extra tests necessary
 
     public SpiCardTransaction toSpiCardTransaction(TransactionTO transaction) {
-        return Optional.ofNullable(transaction)
-                       .map(t -> new SpiCardTransaction(
-                               t.getTransactionId(),
-                               MockAccountData.TERMINAL_ID,
-                               t.getValueDate(),
-                               MockAccountData.ACCEPTOR_TRANSACTION_DATE_TIME,
-                               t.getBookingDate(),
-                               toSpiAmount(t.getAmount()),
-                               toSpiExchangeRateList(t.getExchangeRate()),
-                               toSpiAmount(t.getAmount()),
-                               toSpiAmount(t.getAmount()),
-                               MockAccountData.MARKUP_FEE_PERCENTAGE,
-                               t.getCreditorId(),
-                               MockAccountData.CARD_ACCEPTOR_ADDRESS,
-                               MockAccountData.CARD_ACCEPTOR_PHONE,
-                               MockAccountData.MERCHANT_CATEGORY_CODE,
-                               MockAccountData.MASKED_PAN,
-                               MockAccountData.TRANSACTION_DETAILS,
-                               false,
-                               t.getProprietaryBankTransactionCode()))
-                       .orElse(null);
+        if (transaction == null) {
+            return null;
+        }
+        return new SpiCardTransaction(
+                transaction.getTransactionId(),
+                MockAccountData.TERMINAL_ID,
+                transaction.getValueDate(),
+                MockAccountData.ACCEPTOR_TRANSACTION_DATE_TIME,
+                transaction.getBookingDate(),
+                toSpiAmount(transaction.getAmount()),
+                toSpiExchangeRateList(transaction.getExchangeRate()),
+                toSpiAmount(transaction.getAmount()),
+                toSpiAmount(transaction.getAmount()),
+                MockAccountData.MARKUP_FEE_PERCENTAGE,
+                transaction.getCreditorId(),
+                MockAccountData.CARD_ACCEPTOR_ADDRESS,
+                MockAccountData.CARD_ACCEPTOR_PHONE,
+                MockAccountData.MERCHANT_CATEGORY_CODE,
+                MockAccountData.MASKED_PAN,
+                MockAccountData.TRANSACTION_DETAILS,
+                false,
+                transaction.getProprietaryBankTransactionCode());
     }  //Full manual mapping here, no extra tests necessary
 
     public SpiAccountReference toSpiAccountReference(AccountReferenceTO reference) {
-        return Optional.ofNullable(reference)
-                       .map(r -> new SpiAccountReference(
-                               r.getIban(),
-                               r.getIban(),
-                               r.getIban(),
-                               r.getBban(),
-                               r.getPan(),
-                               r.getMaskedPan(),
-                               r.getMsisdn(),
-                               r.getCurrency()))
-                       .orElse(null);
+        if (reference == null) {
+            return null;
+        }
+        return new SpiAccountReference(
+                reference.getIban(),
+                reference.getIban(),
+                reference.getIban(),
+                reference.getBban(),
+                reference.getPan(),
+                reference.getMaskedPan(),
+                reference.getMsisdn(),
+                reference.getCurrency());
     } //Full manual mapping here, no extra tests necessary
 
     public abstract List<SpiAccountBalance> toSpiAccountBalancesList(List<AccountBalanceTO> accountBalanceTOS);
@@ -152,21 +150,20 @@ public abstract class LedgersSpiAccountMapper {
     }
 
     public SpiExchangeRate toSpiExchangeRate(ExchangeRateTO exchangeRate) {
-        return Optional.ofNullable(exchangeRate)
-                       .map(e -> new SpiExchangeRate(
-                               e.getCurrencyFrom().getCurrencyCode(),
-                               e.getRateFrom(),
-                               e.getCurrency().getCurrencyCode(),
-                               e.getRateTo(),
-                               e.getRateDate(),
-                               e.getRateContract()))
-                       .orElse(null);
+        if (exchangeRate == null) {
+            return null;
+        }
+        return new SpiExchangeRate(
+                exchangeRate.getCurrencyFrom().getCurrencyCode(),
+                exchangeRate.getRateFrom(),
+                exchangeRate.getCurrency().getCurrencyCode(),
+                exchangeRate.getRateTo(),
+                exchangeRate.getRateDate(),
+                exchangeRate.getRateContract());
     } //Full manual mapping here, no extra tests necessary
 
     public SpiAmount toSpiAmount(AmountTO amount) {
-        return Optional.ofNullable(amount)
-                       .map(a -> new SpiAmount(a.getCurrency(), a.getAmount()))
-                       .orElse(null);
+        return amount == null ? null : new SpiAmount(amount.getCurrency(), amount.getAmount());
     }//Full manual mapping here, no extra tests necessary
 
     public abstract FundsConfirmationRequestTO toFundsConfirmationTO(SpiPsuData psuData, SpiFundsConfirmationRequest spiFundsConfirmationRequest);
@@ -174,4 +171,48 @@ public abstract class LedgersSpiAccountMapper {
     public abstract AccountReferenceTO mapToAccountReferenceTO(SpiAccountReference spiAccountReference);
 
     public abstract Remittance mapToRemittance(RemittanceInformationStructuredTO remittanceInformationStructuredTO);
+
+    private SpiTransaction toSpiTransaction(TransactionTO transaction, Map<AccountReferenceTO, SpiAccountReference> accountReferences) {
+        return new SpiTransaction(
+                transaction.getTransactionId(),
+                transaction.getEntryReference(),
+                transaction.getEndToEndId(),
+                transaction.getMandateId(),
+                transaction.getCheckId(),
+                transaction.getCreditorId(),
+                transaction.getBookingDate(),
+                transaction.getValueDate(),
+                toSpiAmount(transaction.getAmount()),
+                toSpiExchangeRateList(transaction.getExchangeRate()),
+                transaction.getCreditorName(),
+                toSpiAccountReference(transaction.getCreditorAccount(), accountReferences),
+                transaction.getCreditorAgent(),
+                transaction.getUltimateCreditor(),
+                transaction.getDebtorName(),
+                toSpiAccountReference(transaction.getDebtorAccount(), accountReferences),
+                transaction.getDebtorAgent(),
+                transaction.getUltimateDebtor(),
+                transaction.getRemittanceInformationUnstructured(),
+                MockAccountData.REMITTANCE_UNSTRUCTURED_ARRAY,
+                mapToRemittance(transaction.getRemittanceInformationStructured()),
+                MockAccountData.REMITTANCE_STRUCTURED_ARRAY,
+                transaction.getPurposeCode(),
+                transaction.getBankTransactionCode(),
+                transaction.getProprietaryBankTransactionCode(),
+                MockAccountData.ADDITIONAL_INFORMATION,
+                null, // TODO Map proper field https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1100
+                accountBalanceTOToSpiAccountBalance(transaction.getBalanceAfterTransaction()));
+    }
+
+    private SpiAccountReference toSpiAccountReference(AccountReferenceTO reference, Map<AccountReferenceTO, SpiAccountReference> accountReferences) {
+        if (reference == null || accountReferences == null) {
+            return toSpiAccountReference(reference);
+        }
+        SpiAccountReference spiAccountReference = accountReferences.get(reference);
+        if (spiAccountReference == null) {
+            spiAccountReference = toSpiAccountReference(reference);
+            accountReferences.put(reference, spiAccountReference);
+        }
+        return spiAccountReference;
+    }
 }
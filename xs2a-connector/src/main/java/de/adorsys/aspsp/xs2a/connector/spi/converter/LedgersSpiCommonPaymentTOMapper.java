@@ -18,7 +18,6 @@ package de.adorsys.aspsp.xs2a.connector.spi.converter;
 
 import de.adorsys.ledgers.middleware.api.domain.payment.FrequencyCodeTO;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
-import de.adorsys.ledgers.middleware.client.mappers.PaymentMapperTO;
 import de.adorsys.psd2.mapper.Xs2aObjectMapper;
 import de.adorsys.psd2.model.ExecutionRule;
 import de.adorsys.psd2.model.PeriodicPaymentInitiationXmlPart2StandingorderTypeJson;
@@ -36,17 +35,17 @@ import java.util.Optional;
 public class LedgersSpiCommonPaymentTOMapper {
     private final StandardPaymentProductsResolverConnector standardPaymentProductsResolverConnector;
     private final LedgersSpiPaymentToMapper ledgersSpiPaymentToMapper;
-    private final PaymentMapperTO paymentMapperTO;
+    private final RawPaymentReader rawPaymentReader;
     private final Xs2aObjectMapper xs2aObjectMapper;
 
     public PaymentTO mapToPaymentTO(PaymentType paymentType, SpiPaymentInfo spiPaymentInfo) {
         if (standardPaymentProductsResolverConnector.isRawPaymentProduct(spiPaymentInfo.getPaymentProduct())) {
-            PaymentTO paymentTO = paymentMapperTO.toAbstractPayment(new String(spiPaymentInfo.getPaymentData()),
-                                                                    paymentType.name(),
-                                                                    spiPaymentInfo.getPaymentProduct());
+            RawPaymentReader.RawPayment rawPayment = rawPaymentReader.read(spiPaymentInfo.getPaymentData(), paymentType,
+                                                                           spiPaymentInfo.getPaymentProduct());
+            PaymentTO paymentTO = rawPayment.getPaymentTO();
             paymentTO.setPaymentId(spiPaymentInfo.getPaymentId());
             if (PaymentType.PERIODIC == paymentType) {
-                enrichPeriodicPaymentFields(paymentTO, spiPaymentInfo);
+                enrichPeriodicPaymentFields(paymentTO, rawPayment);
             }
             return paymentTO;
         } else {
@@ -63,11 +62,15 @@ public class LedgersSpiCommonPaymentTOMapper {
         }
     }
 
-    private PaymentTO enrichPeriodicPaymentFields(PaymentTO paymentTO, SpiPaymentInfo spiPaymentInfo) {
-        String paymentData = new String(spiPaymentInfo.getPaymentData());
+    private PaymentTO enrichPeriodicPaymentFields(PaymentTO paymentTO, RawPaymentReader.RawPayment rawPayment) {
         try {
-            String json = paymentData.substring(paymentData.indexOf("{"), paymentData.lastIndexOf("}") + 1);
-            PeriodicPaymentInitiationXmlPart2StandingorderTypeJson periodicTypeJson = xs2aObjectMapper.readValue(json, PeriodicPaymentInitiationXmlPart2StandingorderTypeJson.class);
+            if (!rawPayment.hasJsonPart()) {
+                throw new IllegalArgumentException("Standing order part is missing");
+            }
+            PeriodicPaymentInitiationXmlPart2StandingorderTypeJson periodicTypeJson = xs2aObjectMapper.readValue(rawPayment.getPaymentData(),
+                                                                                                                 rawPayment.getJsonOffset(),
+                                                                                                                 rawPayment.getJsonLength(),
+                                                                                                                 PeriodicPaymentInitiationXmlPart2StandingorderTypeJson.class);
             paymentTO.setStartDate(periodicTypeJson.getStartDate());
             paymentTO.setEndDate(periodicTypeJson.getEndDate());
             paymentTO.setDayOfExecution(Optional.ofNullable(periodicTypeJson.getDayOfExecution())
@@ -81,7 +84,7 @@ public class LedgersSpiCommonPaymentTOMapper {
                             .map(f -> FrequencyCodeTO.valueOf(f.name()))
                             .orElse(null));
         } catch (Exception e) {
-            log.debug("Wrong multipart/form-data content for raw periodic payment: {}", paymentData);
+            log.debug("Wrong multipart/form-data content for raw periodic payment {}: {}", paymentTO.getPaymentId(), e.getMessage());
             throw new IllegalArgumentException("Wrong multipart/form-data content for raw periodic payment");
         }
         return paymentTO;
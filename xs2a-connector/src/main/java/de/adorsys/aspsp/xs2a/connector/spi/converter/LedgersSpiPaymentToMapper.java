@@ -16,7 +16,10 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.converter;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
 import de.adorsys.ledgers.middleware.api.domain.general.AddressTO;
 import de.adorsys.ledgers.middleware.api.domain.payment.*;
@@ -32,14 +35,18 @@ import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.Collections;
 import java.util.Currency;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class LedgersSpiPaymentToMapper {
+    private static final String PAYMENTS_FIELD = "payments";
+
     @Autowired
     protected ObjectMapper objectMapper;
+    @Autowired
+    protected BulkPaymentPipeline bulkPaymentPipeline;
 
     public PaymentTO toPaymentTO_Single(SpiPaymentInfo spiPaymentInfo) {
         return Optional.ofNullable(spiPaymentInfo.getPaymentData())
@@ -60,27 +67,46 @@ public class LedgersSpiPaymentToMapper {
                        .orElse(null);
     }
 
+    /**
+     * Maps a bulk payment while its JSON is parsed, the payments are mapped and validated in chunks by the
+     * {@link BulkPaymentPipeline} instead of binding the whole bulk first.
+     */
     public PaymentTO toPaymentTO_Bulk(SpiPaymentInfo spiPaymentInfo) {
-        return Optional.ofNullable(spiPaymentInfo.getPaymentData())
-                       .filter(ArrayUtils::isNotEmpty)
-                       .map(paymentData -> convert(paymentData, BulkPaymentInitiationJson.class))
-                       .map(payment -> {
-
-                           PaymentTO paymentTO = new PaymentTO();
-                           paymentTO.setPaymentId(spiPaymentInfo.getPaymentId());
-                           paymentTO.setPaymentType(PaymentTypeTO.valueOf(spiPaymentInfo.getPaymentType().name()));
-                           paymentTO.setPaymentProduct(spiPaymentInfo.getPaymentProduct());
-                           paymentTO.setDebtorAccount(mapToAccountReferenceTO(payment.getDebtorAccount()));
-                           paymentTO.setBatchBookingPreferred(payment.getBatchBookingPreferred());
-                           paymentTO.setRequestedExecutionDate(payment.getRequestedExecutionDate());
-                           paymentTO.setRequestedExecutionTime(Optional.ofNullable(payment.getRequestedExecutionTime()).map(OffsetDateTime::toLocalTime).orElse(null));
-                           paymentTO.setTargets(payment.getPayments().stream()
-                                                        .map(bulk -> mapToPaymentTargetTO(bulk, spiPaymentInfo))
-                                                        .collect(Collectors.toList()));
-                           return paymentTO;
-                       })
-                       .orElse(null);
-
+        byte[] paymentData = spiPaymentInfo.getPaymentData();
+        if (ArrayUtils.isEmpty(paymentData)) {
+            return null;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(paymentData)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                log.warn("Can't convert byte[] to Object {}", BulkPaymentInitiationJson.class.getSimpleName());
+                return null;
+            }
+            ObjectNode bulkFields = objectMapper.createObjectNode();
+            List<PaymentTargetTO> targets = Collections.emptyList();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                if (parser.nextToken() == JsonToken.START_ARRAY && PAYMENTS_FIELD.equals(fieldName)) {
+                    targets = mapBulkPayments(parser, paymentData.length, spiPaymentInfo);
+                } else {
+                    bulkFields.set(fieldName, parser.readValueAsTree());
+                }
+            }
+            BulkPaymentInitiationJson payment = objectMapper.treeToValue(bulkFields, BulkPaymentInitiationJson.class);
+
+            PaymentTO paymentTO = new PaymentTO();
+            paymentTO.setPaymentId(spiPaymentInfo.getPaymentId());
+            paymentTO.setPaymentType(PaymentTypeTO.valueOf(spiPaymentInfo.getPaymentType().name()));
+            paymentTO.setPaymentProduct(spiPaymentInfo.getPaymentProduct());
+            paymentTO.setDebtorAccount(mapToAccountReferenceTO(payment.getDebtorAccount()));
+            paymentTO.setBatchBookingPreferred(payment.getBatchBookingPreferred());
+            paymentTO.setRequestedExecutionDate(payment.getRequestedExecutionDate());
+            paymentTO.setRequestedExecutionTime(Optional.ofNullable(payment.getRequestedExecutionTime()).map(OffsetDateTime::toLocalTime).orElse(null));
+            paymentTO.setTargets(targets);
+            return paymentTO;
+        } catch (IOException e) {
+            log.warn("Can't convert byte[] to Object {}", e.getMessage());
+            return null;
+        }
     }
 
     public PaymentTO toPaymentTO_Periodic(SpiPaymentInfo spiPaymentInfo) {
@@ -128,6 +154,34 @@ public class LedgersSpiPaymentToMapper {
         }
     }
 
+    private List<PaymentTargetTO> mapBulkPayments(JsonParser parser, int payloadSize, SpiPaymentInfo spiPaymentInfo) throws IOException {
+        BulkPaymentPipeline.Batch<PaymentInitiationBulkElementJson, PaymentTargetTO> batch =
+                bulkPaymentPipeline.newBatch(payloadSize, payment -> mapToPaymentTargetTO(payment, spiPaymentInfo), this::validatePaymentTarget);
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.END_ARRAY) {
+            batch.add(parser.readValueAs(PaymentInitiationBulkElementJson.class));
+            token = parser.nextToken();
+        }
+        return batch.finish();
+    }
+
+    private String validatePaymentTarget(PaymentTargetTO paymentTarget) {
+        if (paymentTarget == null) {
+            return "payment is missing";
+        }
+        AmountTO amount = paymentTarget.getInstructedAmount();
+        if (amount == null || amount.getAmount() == null || amount.getCurrency() == null) {
+            return "instructed amount is missing";
+        }
+        if (amount.getAmount().signum() <= 0) {
+            return "instructed amount is not positive";
+        }
+        if (paymentTarget.getCreditorAccount() == null) {
+            return "creditor account is missing";
+        }
+        return null;
+    }
+
     private AccountReferenceTO mapToAccountReferenceTO(AccountReference accountReference) {
         if (accountReference == null) {
             return null;
@@ -0,0 +1,400 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.converter;
+
+import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
+import de.adorsys.ledgers.middleware.api.domain.general.AddressTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.AmountTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTargetTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTypeTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PurposeCodeTO;
+import de.adorsys.psd2.xs2a.core.profile.PaymentType;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Reads raw payments directly from the payment data: a pain.001 document or a multipart body with a pain.001 part
+ * and, for periodic payments, a JSON part with the standing order. The parts are located by scanning the bytes for
+ * the multipart boundary and the pain.001 part is read by a StAX reader over the bytes of the part, so the payment
+ * data is never copied into a string.
+ * <p>
+ * Payment data larger than {@code xs2asandbox.raw-payment.max-size} bytes or with more than
+ * {@code xs2asandbox.raw-payment.max-transactions} credit transfers is rejected.
+ */
+@Component
+public class RawPaymentReader {
+    private static final byte[] DASHES = "--".getBytes(StandardCharsets.US_ASCII);
+    private static final String CONTENT_TYPE = "content-type:";
+
+    private final XMLInputFactory inputFactory;
+    private final int maxSize;
+    private final int maxTransactions;
+
+    public RawPaymentReader(@Value("${xs2asandbox.raw-payment.max-size:10485760}") int maxSize,
+                            @Value("${xs2asandbox.raw-payment.max-transactions:10000}") int maxTransactions) {
+        this.maxSize = maxSize;
+        this.maxTransactions = maxTransactions;
+        this.inputFactory = XMLInputFactory.newFactory();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads the payment data of a raw payment.
+     *
+     * @throws IllegalArgumentException if the payment data exceeds the limits or is no valid raw payment
+     */
+    public RawPayment read(byte[] paymentData, PaymentType paymentType, String paymentProduct) {
+        if (paymentData.length > maxSize) {
+            throw new IllegalArgumentException(String.format("Raw payment exceeds the maximum size of %d bytes", maxSize));
+        }
+        Part xmlPart = null;
+        Part jsonPart = null;
+        for (Part part : scanParts(paymentData)) {
+            if (part.isJson(paymentData)) {
+                jsonPart = jsonPart == null ? part : jsonPart;
+            } else if (xmlPart == null) {
+                xmlPart = part;
+            }
+        }
+        if (xmlPart == null) {
+            throw new IllegalArgumentException("Raw payment contains no pain.001 document");
+        }
+
+        PaymentTO paymentTO = new PaymentTO();
+        paymentTO.setPaymentType(PaymentTypeTO.valueOf(paymentType.name()));
+        paymentTO.setPaymentProduct(paymentProduct);
+        try {
+            readPain001(paymentData, xmlPart, paymentTO);
+        } catch (XMLStreamException | DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Wrong pain.001 content for raw payment: " + e.getMessage(), e);
+        }
+        return new RawPayment(paymentTO, paymentData, jsonPart);
+    }
+
+    /**
+     * Splits a multipart body at its boundary, which is taken from the first line. Payment data not starting with a
+     * boundary is returned as single part.
+     */
+    private List<Part> scanParts(byte[] data) {
+        List<Part> parts = new ArrayList<>();
+        int start = skipWhitespace(data, 0);
+        if (!startsWith(data, start, DASHES)) {
+            parts.add(new Part(start, data.length, null));
+            return parts;
+        }
+
+        int lineEnd = indexOf(data, (byte) '\n', start);
+        if (lineEnd < 0) {
+            throw new IllegalArgumentException("Multipart raw payment contains no parts");
+        }
+        byte[] delimiter = copyTrimmed(data, start, lineEnd);
+        int partStart = lineEnd + 1;
+        while (partStart < data.length) {
+            int headersEnd = partStart;
+            String contentType = null;
+            while (true) {
+                int headerEnd = indexOf(data, (byte) '\n', headersEnd);
+                if (headerEnd < 0) {
+                    throw new IllegalArgumentException("Multipart raw payment part has no body");
+                }
+                String header = new String(data, headersEnd, headerEnd - headersEnd, StandardCharsets.US_ASCII).trim();
+                headersEnd = headerEnd + 1;
+                if (header.isEmpty()) {
+                    break;
+                }
+                if (StringUtils.startsWithIgnoreCase(header, CONTENT_TYPE)) {
+                    contentType = header.substring(CONTENT_TYPE.length()).trim();
+                }
+            }
+
+            int next = indexOfDelimiter(data, delimiter, headersEnd);
+            if (next < 0) {
+                throw new IllegalArgumentException("Multipart raw payment is not terminated");
+            }
+            int bodyEnd = next > headersEnd && data[next - 1] == '\n' ? next - 1 : next;
+            if (bodyEnd > headersEnd && data[bodyEnd - 1] == '\r') {
+                bodyEnd--;
+            }
+            parts.add(new Part(headersEnd, bodyEnd, contentType));
+
+            int afterDelimiter = next + delimiter.length;
+            if (startsWith(data, afterDelimiter, DASHES)) {
+                break;
+            }
+            int nextLine = indexOf(data, (byte) '\n', afterDelimiter);
+            partStart = nextLine < 0 ? data.length : nextLine + 1;
+        }
+        return parts;
+    }
+
+    private void readPain001(byte[] data, Part part, PaymentTO paymentTO) throws XMLStreamException {
+        int start = skipWhitespace(data, part.start);
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new ByteArrayInputStream(data, start, part.end - start));
+        try {
+            Deque<String> path = new ArrayDeque<>();
+            List<PaymentTargetTO> targets = new ArrayList<>();
+            PaymentTargetTO target = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    if ("CdtTrfTxInf".equals(path.pop())) {
+                        target = null;
+                    }
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("CdtTrfTxInf".equals(name)) {
+                        if (targets.size() == maxTransactions) {
+                            throw new IllegalArgumentException(String.format("Raw payment exceeds the maximum of %d transactions", maxTransactions));
+                        }
+                        target = new PaymentTargetTO();
+                        targets.add(target);
+                        path.push(name);
+                    } else if (target != null) {
+                        readTargetElement(reader, name, path, target);
+                    } else {
+                        readPaymentElement(reader, name, path, paymentTO);
+                    }
+                }
+            }
+            paymentTO.setTargets(targets);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void readPaymentElement(XMLStreamReader reader, String name, Deque<String> path, PaymentTO paymentTO) throws XMLStreamException {
+        if (!path.contains("PmtInf")) {
+            path.push(name);
+            return;
+        }
+        String parent = path.peek();
+        if ("ReqdExctnDt".equals(name) && "PmtInf".equals(parent)) {
+            paymentTO.setRequestedExecutionDate(LocalDate.parse(reader.getElementText().trim()));
+        } else if ("BtchBookg".equals(name)) {
+            paymentTO.setBatchBookingPreferred(Boolean.valueOf(reader.getElementText().trim()));
+        } else if ("Nm".equals(name) && "Dbtr".equals(parent)) {
+            paymentTO.setDebtorName(reader.getElementText().trim());
+        } else if (path.contains("DbtrAcct") && isAccountElement(name)) {
+            paymentTO.setDebtorAccount(readAccountElement(reader, name, paymentTO.getDebtorAccount()));
+        } else {
+            path.push(name);
+        }
+    }
+
+    private void readTargetElement(XMLStreamReader reader, String name, Deque<String> path, PaymentTargetTO target) throws XMLStreamException {
+        String parent = path.peek();
+        if ("EndToEndId".equals(name)) {
+            target.setEndToEndIdentification(reader.getElementText().trim());
+        } else if ("InstdAmt".equals(name)) {
+            AmountTO amount = new AmountTO();
+            amount.setCurrency(toCurrency(reader.getAttributeValue(null, "Ccy")));
+            amount.setAmount(new BigDecimal(reader.getElementText().trim()));
+            target.setInstructedAmount(amount);
+        } else if ("Nm".equals(name) && "Cdtr".equals(parent)) {
+            target.setCreditorName(reader.getElementText().trim());
+        } else if ("PstlAdr".equals(parent) && path.contains("Cdtr")) {
+            target.setCreditorAddress(readAddressElement(reader, name, target.getCreditorAddress()));
+        } else if (("BIC".equals(name) || "BICFI".equals(name)) && path.contains("CdtrAgt")) {
+            target.setCreditorAgent(reader.getElementText().trim());
+        } else if (path.contains("CdtrAcct") && isAccountElement(name)) {
+            target.setCreditorAccount(readAccountElement(reader, name, target.getCreditorAccount()));
+        } else if ("Ustrd".equals(name) && target.getRemittanceInformationUnstructured() == null) {
+            target.setRemittanceInformationUnstructured(reader.getElementText().trim());
+        } else if ("Cd".equals(name) && "Purp".equals(parent)) {
+            target.setPurposeCode(PurposeCodeTO.valueOf(reader.getElementText().trim()));
+        } else {
+            path.push(name);
+        }
+    }
+
+    private boolean isAccountElement(String name) {
+        return "IBAN".equals(name) || "Ccy".equals(name);
+    }
+
+    private AccountReferenceTO readAccountElement(XMLStreamReader reader, String name, AccountReferenceTO account) throws XMLStreamException {
+        AccountReferenceTO reference = account == null ? new AccountReferenceTO() : account;
+        String text = reader.getElementText().trim();
+        if ("IBAN".equals(name)) {
+            reference.setIban(text);
+        } else {
+            reference.setCurrency(toCurrency(text));
+        }
+        return reference;
+    }
+
+    private AddressTO readAddressElement(XMLStreamReader reader, String name, AddressTO address) throws XMLStreamException {
+        AddressTO result = address == null ? new AddressTO() : address;
+        String text = reader.getElementText().trim();
+        switch (name) {
+            case "StrtNm":
+                result.setStreet(text);
+                break;
+            case "BldgNb":
+                result.setBuildingNumber(text);
+                break;
+            case "PstCd":
+                result.setPostalCode(text);
+                break;
+            case "TwnNm":
+                result.setCity(text);
+                break;
+            case "Ctry":
+                result.setCountry(text);
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
+    private Currency toCurrency(String currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency is missing");
+        }
+        return Currency.getInstance(currency);
+    }
+
+    private static int skipWhitespace(byte[] data, int from) {
+        int index = from;
+        while (index < data.length && Character.isWhitespace(data[index])) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean startsWith(byte[] data, int from, byte[] prefix) {
+        if (from + prefix.length > data.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, byte value, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the next delimiter at the start of a line.
+     */
+    private static int indexOfDelimiter(byte[] data, byte[] delimiter, int from) {
+        int index = from;
+        while (index <= data.length - delimiter.length) {
+            if ((index == from || data[index - 1] == '\n') && startsWith(data, index, delimiter)) {
+                return index;
+            }
+            int lineEnd = indexOf(data, (byte) '\n', index);
+            if (lineEnd < 0) {
+                return -1;
+            }
+            index = lineEnd + 1;
+        }
+        return -1;
+    }
+
+    private static byte[] copyTrimmed(byte[] data, int from, int to) {
+        int end = to;
+        while (end > from && Character.isWhitespace(data[end - 1])) {
+            end--;
+        }
+        byte[] copy = new byte[end - from];
+        System.arraycopy(data, from, copy, 0, copy.length);
+        return copy;
+    }
+
+    private static class Part {
+        private final int start;
+        private final int end;
+        private final String contentType;
+
+        Part(int start, int end, String contentType) {
+            this.start = start;
+            this.end = end;
+            this.contentType = contentType;
+        }
+
+        boolean isJson(byte[] data) {
+            if (contentType != null) {
+                return StringUtils.containsIgnoreCase(contentType, "json");
+            }
+            int first = skipWhitespace(data, start);
+            return first < end && data[first] == '{';
+        }
+    }
+
+    /**
+     * The payment read from the pain.001 part and the location of the JSON part within the payment data.
+     */
+    public static class RawPayment {
+        private final PaymentTO paymentTO;
+        private final byte[] paymentData;
+        private final Part jsonPart;
+
+        RawPayment(PaymentTO paymentTO, byte[] paymentData, Part jsonPart) {
+            this.paymentTO = paymentTO;
+            this.paymentData = paymentData;
+            this.jsonPart = jsonPart;
+        }
+
+        public PaymentTO getPaymentTO() {
+            return paymentTO;
+        }
+
+        public boolean hasJsonPart() {
+            return jsonPart != null;
+        }
+
+        public byte[] getPaymentData() {
+            return paymentData;
+        }
+
+        public int getJsonOffset() {
+            return jsonPart.start;
+        }
+
+        public int getJsonLength() {
+            return jsonPart.end - jsonPart.start;
+        }
+    }
+}
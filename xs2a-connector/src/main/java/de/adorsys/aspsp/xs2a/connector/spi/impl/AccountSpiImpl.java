@@ -16,11 +16,16 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
+import de.adorsys.aspsp.xs2a.connector.account.AccountReferenceIndex;
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionExportService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionListService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
-import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
@@ -41,29 +46,25 @@ import de.adorsys.psd2.xs2a.spi.domain.response.SpiResponse;
 import de.adorsys.psd2.xs2a.spi.service.AccountSpi;
 import feign.FeignException;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.PropertySource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@PropertySource("classpath:mock-data.properties")
 public class AccountSpiImpl implements AccountSpi {
     private static final Logger logger = LoggerFactory.getLogger(AccountSpiImpl.class);
     private static final String RESPONSE_STATUS_200_WITH_EMPTY_BODY = "Response status was 200, but the body was empty!";
@@ -77,14 +78,19 @@ public class AccountSpiImpl implements AccountSpi {
     private final FeignExceptionReader feignExceptionReader;
     private final IbanResolverMockService ibanResolverMockService;
     private final OwnerNameService ownerNameService;
-
-    @Value("${test-download-transaction-list}")
-    private String transactionList;
+    private final AccountListService accountListService;
+    private final LedgersCallExecutor ledgersCallExecutor;
+    private final TransactionExportService transactionExportService;
+    private final TransactionListService transactionListService;
+    private final boolean parallelBalances;
 
     public AccountSpiImpl(AccountRestClient restClient, LedgersSpiAccountMapper accountMapper,
                           AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService tokenService,
                           FeignExceptionReader feignExceptionReader, IbanResolverMockService ibanResolverMockService,
-                          OwnerNameService ownerNameService) {
+                          OwnerNameService ownerNameService, AccountListService accountListService,
+                          LedgersCallExecutor ledgersCallExecutor, TransactionExportService transactionExportService,
+                          TransactionListService transactionListService,
+                          @Value("${xs2asandbox.transactions.parallel-balances:true}") boolean parallelBalances) {
         this.accountRestClient = restClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
@@ -92,6 +98,11 @@ public class AccountSpiImpl implements AccountSpi {
         this.feignExceptionReader = feignExceptionReader;
         this.ibanResolverMockService = ibanResolverMockService;
         this.ownerNameService = ownerNameService;
+        this.accountListService = accountListService;
+        this.ledgersCallExecutor = ledgersCallExecutor;
+        this.transactionExportService = transactionExportService;
+        this.transactionListService = transactionListService;
+        this.parallelBalances = parallelBalances;
     }
 
     @Override
@@ -106,15 +117,14 @@ public class AccountSpiImpl implements AccountSpi {
 
             logger.info("Requested account list for consent with ID: {} and withBalance: {}", accountConsent.getId(),
                         withBalance);
-            List<SpiAccountDetails> accountDetailsList = getSpiAccountDetails(withBalance, accountConsent);
+            ConsentAccessIndex accessIndex = new ConsentAccessIndex(accountConsent.getAccess(), ibanResolverMockService);
+            List<SpiAccountDetails> accountDetailsList = getSpiAccountDetails(withBalance, accountConsent, accessIndex);
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
-            List<SpiAccountDetails> accountDetailsListWithOwnerName = accountDetailsList.stream()
-                                                                              .map(accountDetail -> enrichWithOwnerName(accountDetail, accountConsent.getAccess()))
-                                                                              .collect(Collectors.toList());
+            List<SpiAccountDetails> accountDetailsListWithOwnerName = enrichWithOwnerName(accountDetailsList, accessIndex);
 
-            List<SpiAccountDetails> payload = filterAccountDetailsByWithBalance(withBalance, accountDetailsListWithOwnerName, accountConsent.getAccess());
+            List<SpiAccountDetails> payload = filterAccountDetailsByWithBalance(withBalance, accountDetailsListWithOwnerName, accessIndex);
 
             return SpiResponse.<List<SpiAccountDetails>>builder()
                            .payload(payload)
@@ -167,14 +177,15 @@ public class AccountSpiImpl implements AccountSpi {
                                                        .map(accountMapper::toSpiAccountDetails)
                                                        .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
 
-            SpiAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(accountDetails, accountConsent.getAccess());
+            ConsentAccessIndex accessIndex = new ConsentAccessIndex(accountConsent.getAccess(), ibanResolverMockService);
+            SpiAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(accountDetails, accessIndex);
 
             if (!withBalance) {
                 accountDetailsWithOwnerName.emptyBalances();
             }
             logger.info("The responded account RESOURCE-ID: {}", accountDetailsWithOwnerName.getResourceId());
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<SpiAccountDetails>builder()
                            .payload(accountDetailsWithOwnerName)
@@ -226,17 +237,24 @@ public class AccountSpiImpl implements AccountSpi {
 
             logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
                         accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
-            List<SpiTransaction> transactions = Optional.ofNullable(
-                    accountRestClient.getTransactionByDates(accountReference.getResourceId(), dateFrom, dateTo).getBody())
-                                                        .map(accountMapper::toSpiTransactions).orElseGet(ArrayList::new);
-            List<SpiAccountBalance> balances = getSpiAccountBalances(contextData, withBalance, accountReference,
-                                                                     accountConsent, aspspConsentDataProvider);
+            CompletableFuture<List<SpiAccountBalance>> balances = requestBalances(withBalance, accountReference.getResourceId());
+            SpiTransactionReport transactionReport;
+            if (transactionExportService.isExported(dateFrom, dateTo)) {
+                String downloadId = transactionExportService.exportTransactions(accountConsent.getId(), accountReference.getResourceId(), dateFrom, dateTo);
+                transactionReport = new SpiTransactionReport(downloadId, Collections.emptyList(), LedgersCallExecutor.join(balances),
+                                                             processAcceptMediaType(acceptMediaType), null);
+                logger.info("Transactions are provided by download ID: {}", downloadId);
+            } else {
+                List<SpiTransaction> transactions = transactionListService.getTransactions(accountConsent.getId(), accountReference.getResourceId(), dateFrom, dateTo,
+                                                                                                           entryReferenceFrom, Boolean.TRUE.equals(deltaList),
+                                                                                                           accountMapper::toSpiTransactions);
 
-            SpiTransactionReport transactionReport = new SpiTransactionReport("downloadId", transactions, balances,
-                                                                              processAcceptMediaType(acceptMediaType), null);
-            logger.info("Finally found {} transactions.", transactionReport.getTransactions().size());
+                transactionReport = new SpiTransactionReport(null, transactions, LedgersCallExecutor.join(balances),
+                                                             processAcceptMediaType(acceptMediaType), null);
+                logger.info("Finally found {} transactions.", transactionReport.getTransactions().size());
+            }
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<SpiTransactionReport>builder()
                            .payload(transactionReport)
@@ -278,7 +296,7 @@ public class AccountSpiImpl implements AccountSpi {
                                                  .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
             logger.info("Found transaction with TRANSACTION-ID: {}", transaction.getTransactionId());
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<SpiTransaction>builder()
                            .payload(transaction)
@@ -311,7 +329,7 @@ public class AccountSpiImpl implements AccountSpi {
                                                               .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
             logger.info("Found Balances: {}", accountBalances.size());
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<List<SpiAccountBalance>>builder()
                            .payload(accountBalances)
@@ -340,14 +358,18 @@ public class AccountSpiImpl implements AccountSpi {
 
             logger.info("Requested downloading list of transactions by download ID: {}", downloadId);
 
-            InputStream stream = new ByteArrayInputStream(transactionList.getBytes());
-
-            SpiTransactionsDownloadResponse transactionsDownloadResponse = new SpiTransactionsDownloadResponse(stream, "transactions.json", transactionList.getBytes().length);
+            Optional<SpiTransactionsDownloadResponse> transactionsDownloadResponse = transactionExportService.openExport(spiAccountConsent.getId(), downloadId);
+            if (!transactionsDownloadResponse.isPresent()) {
+                logger.info("Transactions with download ID {} not found or expired", downloadId);
+                return SpiResponse.<SpiTransactionsDownloadResponse>builder()
+                               .error(new TppMessage(MessageErrorCode.RESOURCE_UNKNOWN_404))
+                               .build();
+            }
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<SpiTransactionsDownloadResponse>builder()
-                           .payload(transactionsDownloadResponse)
+                           .payload(transactionsDownloadResponse.get())
                            .build();
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
@@ -360,33 +382,42 @@ public class AccountSpiImpl implements AccountSpi {
         }
     }
 
-    private List<SpiAccountDetails> getSpiAccountDetails(boolean withBalance, @NotNull SpiAccountConsent accountConsent) {
+    private List<SpiAccountDetails> getSpiAccountDetails(boolean withBalance, @NotNull SpiAccountConsent accountConsent,
+                                                         ConsentAccessIndex accessIndex) {
         List<SpiAccountDetails> accountDetailsList;
         if (isGlobalConsent(accountConsent.getAccess()) || isAllAvailableAccountsConsent(accountConsent)) {
             logger.info("Consent with ID: {} is a global or available account Consent", accountConsent.getId());
             accountDetailsList = getAccountDetailsByConsentId();
         } else {
             logger.info("Consent with ID: {} is a regular consent", accountConsent.getId());
-            accountDetailsList = getAccountDetailsFromReferences(withBalance, accountConsent);
+            accountDetailsList = getAccountDetailsFromReferences(withBalance ? accessIndex.getBalances() : accessIndex.getAccounts());
         }
         return accountDetailsList;
     }
 
-    private List<SpiAccountBalance> getSpiAccountBalances(@NotNull SpiContextData contextData,
-                                                          boolean withBalance,
-                                                          @NotNull SpiAccountReference accountReference,
-                                                          @NotNull SpiAccountConsent accountConsent,
-                                                          @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        if (withBalance) {
-            SpiResponse<List<SpiAccountBalance>> response = requestBalancesForAccount(contextData, accountReference,
-                                                                                      accountConsent, aspspConsentDataProvider);
-            if (response.isSuccessful()) {
-                return response.getPayload();
-            } else {
-                throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
-            }
-        } else {
-            return null;
+    /**
+     * Starts requesting the balances of the account. If {@code xs2asandbox.transactions.parallel-balances} is enabled,
+     * the balances are requested concurrently to the transactions, otherwise right away on the current thread.
+     */
+    private CompletableFuture<List<SpiAccountBalance>> requestBalances(boolean withBalance, String resourceId) {
+        if (!withBalance) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (parallelBalances) {
+            return ledgersCallExecutor.supplyAsync(() -> getBalances(resourceId));
+        }
+        return CompletableFuture.completedFuture(getBalances(resourceId));
+    }
+
+    private List<SpiAccountBalance> getBalances(String resourceId) {
+        try {
+            return Optional.ofNullable(accountRestClient.getBalances(resourceId).getBody())
+                           .map(accountMapper::toSpiAccountBalancesList)
+                           .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+        } catch (FeignException feignException) {
+            String devMessage = feignExceptionReader.getErrorMessage(feignException);
+            logger.error("Request balances for account failed: resource ID {}, devMessage {}", resourceId, devMessage);
+            throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
         }
     }
 
@@ -399,51 +430,27 @@ public class AccountSpiImpl implements AccountSpi {
     }
 
     private List<SpiAccountDetails> getAccountDetailsByConsentId() {
-        return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
-                       .map(l -> l.stream().map(accountMapper::toSpiAccountDetails)
-                                         .collect(Collectors.toList()))
-                       .orElseGet(Collections::emptyList);
-    }
-
-    private List<SpiAccountDetails> getAccountDetailsFromReferences(boolean withBalance,
-                                                                    SpiAccountConsent accountConsent) {
-        SpiAccountAccess accountAccess = accountConsent.getAccess();
-        List<SpiAccountReference> references = withBalance ? accountAccess.getBalances() : accountAccess.getAccounts();
-
-        return getAccountDetailsFromReferences(references);
-    }
-
-    private List<SpiAccountDetails> getAccountDetailsFromReferences(List<SpiAccountReference> references) {
-        List<AccountDetailsTO> accountDetails = accountRestClient.getListOfAccounts().getBody();
-
-        if (accountDetails == null) {
-            return Collections.emptyList();
-        }
-
-        return accountDetails.stream()
-                       .filter(account -> containsAccountReferenceWithIban(references, account.getIban(), account.getCurrency()))
+        return accountListService.getListOfAccounts().stream()
                        .map(accountMapper::toSpiAccountDetails)
                        .collect(Collectors.toList());
     }
 
-    private boolean containsAccountReferenceWithIban(List<SpiAccountReference> references, String iban, Currency currency) {
-        return references.stream()
-                       .filter(reference -> Optional.ofNullable(reference.getIban())
-                                                    .orElseGet(() -> ibanResolverMockService.handleIbanByAccountReference(reference)) // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
-                                                    .equals(iban))
-
-                       .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(currency));
+    private List<SpiAccountDetails> getAccountDetailsFromReferences(AccountReferenceIndex references) {
+        return accountListService.getListOfAccounts().stream()
+                       .filter(account -> references.contains(account.getIban(), account.getCurrency()))
+                       .map(accountMapper::toSpiAccountDetails)
+                       .collect(Collectors.toList());
     }
 
     private List<SpiAccountDetails> filterAccountDetailsByWithBalance(boolean withBalance, List<SpiAccountDetails> details,
-                                                                      SpiAccountAccess spiAccountAccess) {
+                                                                      ConsentAccessIndex accessIndex) {
 
-        if (withBalance && isConsentSupportedBalances(spiAccountAccess)) {
+        if (withBalance && isConsentSupportedBalances(accessIndex.getAccountAccess())) {
             return details;
         }
 
         for (SpiAccountDetails spiAccountDetails : details) {
-            if (!withBalance || !isValidAccountByAccess(spiAccountDetails.getIban(), spiAccountAccess.getBalances())) {
+            if (!withBalance || !accessIndex.getBalances().containsReferencedIban(spiAccountDetails.getIban())) {
                 spiAccountDetails.emptyBalances();
             }
         }
@@ -463,12 +470,6 @@ public class AccountSpiImpl implements AccountSpi {
         return sca;
     }
 
-    private boolean isValidAccountByAccess(String iban, List<SpiAccountReference> allowedAccountData) {
-        return CollectionUtils.isNotEmpty(allowedAccountData)
-                       && allowedAccountData.stream()
-                                  .anyMatch(a -> iban.equals(a.getIban()));
-    }
-
     private TppMessage buildTppMessage(FeignException exception) {
         return FeignExceptionHandler.getFailureMessage(exception, MessageErrorCode.CONSENT_UNKNOWN_400, feignExceptionReader.getErrorMessage(exception));
     }
@@ -499,12 +500,30 @@ public class AccountSpiImpl implements AccountSpi {
         return accountBalance;
     }
 
-    private SpiAccountDetails enrichWithOwnerName(SpiAccountDetails spiAccountDetails, SpiAccountAccess accountAccess) {
-        IbanAccountReference ibanAccountReference = new IbanAccountReference(spiAccountDetails.getIban(), spiAccountDetails.getCurrency());
-        if (ownerNameService.shouldContainOwnerName(ibanAccountReference, accountAccess)) {
+    private SpiAccountDetails enrichWithOwnerName(SpiAccountDetails spiAccountDetails, ConsentAccessIndex accessIndex) {
+        if (shouldContainOwnerName(spiAccountDetails, accessIndex)) {
             return ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetails);
         }
 
         return spiAccountDetails;
     }
+
+    /**
+     * Enriches all accounts with access to the owner name at once, so that the owner names are requested concurrently.
+     */
+    private List<SpiAccountDetails> enrichWithOwnerName(List<SpiAccountDetails> spiAccountDetailsList, ConsentAccessIndex accessIndex) {
+        List<SpiAccountDetails> accountDetailsWithOwnerName = spiAccountDetailsList.stream()
+                                                                      .filter(accountDetails -> shouldContainOwnerName(accountDetails, accessIndex))
+                                                                      .collect(Collectors.toList());
+        if (!accountDetailsWithOwnerName.isEmpty()) {
+            ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetailsWithOwnerName);
+        }
+
+        return spiAccountDetailsList;
+    }
+
+    private boolean shouldContainOwnerName(SpiAccountDetails spiAccountDetails, ConsentAccessIndex accessIndex) {
+        IbanAccountReference ibanAccountReference = new IbanAccountReference(spiAccountDetails.getIban(), spiAccountDetails.getCurrency());
+        return ownerNameService.shouldContainOwnerName(ibanAccountReference, accessIndex);
+    }
 }
@@ -16,19 +16,47 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
-import org.springframework.beans.factory.annotation.Autowired;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Reads and writes ASPSP consent data. Decoded consent data is cached for a short time, as the same consent data
+ * is usually read several times within one request. Every call returns its own copy of the cached response, so
+ * callers are free to modify it.
+ */
 @Service
 public class AspspConsentDataService {
 
-    @Autowired
-    private TokenStorageService tokenStorageService;
+    private final TokenStorageService tokenStorageService;
+    private final ObjectMapper mapper;
+    private final boolean cacheEnabled;
+    private final Cache<ConsentDataKey, DecodedConsentData> decodedConsentData;
+
+    public AspspConsentDataService(TokenStorageService tokenStorageService,
+                                   @Qualifier(value = "objectMapper") ObjectMapper mapper,
+                                   @Value("${xs2asandbox.consent-data.cache.max-size:1000}") long cacheMaxSize,
+                                   @Value("${xs2asandbox.consent-data.cache.ttl.ms:5000}") long cacheTtl) {
+        this.tokenStorageService = tokenStorageService;
+        this.mapper = mapper;
+        this.cacheEnabled = cacheMaxSize > 0 && cacheTtl > 0;
+        this.decodedConsentData = Caffeine.newBuilder()
+                                          .maximumSize(cacheMaxSize)
+                                          .expireAfterWrite(cacheTtl, TimeUnit.MILLISECONDS)
+                                          .build();
+    }
 
     /**
      * Default storage, makes sure there is a bearer token in the response object.
@@ -48,6 +76,17 @@ public class AspspConsentDataService {
         }
     }
 
+    /**
+     * Stores the response and writes it back to the provider only if the consent data has changed, as every update is
+     * persisted by CMS.
+     */
+    public void updateAspspConsentData(SpiAspspConsentDataProvider aspspConsentDataProvider, byte[] aspspConsentData, SCAResponseTO response) {
+        byte[] updatedAspspConsentData = store(response);
+        if (!Arrays.equals(aspspConsentData, updatedAspspConsentData)) {
+            aspspConsentDataProvider.updateAspspConsentData(updatedAspspConsentData);
+        }
+    }
+
     public <T extends SCAResponseTO> T response(byte[] aspspConsentData, Class<T> klass) {
         return response(aspspConsentData, klass, true);
     }
@@ -58,7 +97,7 @@ public class AspspConsentDataService {
 
     public SCAResponseTO response(byte[] aspspConsentData, boolean checkCredentials) {
         try {
-            SCAResponseTO sca = tokenStorageService.fromBytes(aspspConsentData);
+            SCAResponseTO sca = decode(aspspConsentData, SCAResponseTO.class);
             checkBearerTokenPresent(checkCredentials, sca);
             return sca;
         } catch (IOException e) {
@@ -68,7 +107,7 @@ public class AspspConsentDataService {
 
     public <T extends SCAResponseTO> T response(byte[] aspspConsentData, Class<T> klass, boolean checkCredentials) {
         try {
-            T sca = tokenStorageService.fromBytes(aspspConsentData, klass);
+            T sca = decode(aspspConsentData, klass);
             checkBearerTokenPresent(checkCredentials, sca);
             return sca;
         } catch (IOException e) {
@@ -76,9 +115,74 @@ public class AspspConsentDataService {
         }
     }
 
+    /**
+     * Decodes the consent data, either as the type given by its content ({@code SCAResponseTO.class}) or as the given
+     * class. The decoded response is cached as token buffer and bound anew on every cache hit.
+     */
+    private <T extends SCAResponseTO> T decode(byte[] aspspConsentData, Class<T> klass) throws IOException {
+        if (!cacheEnabled || aspspConsentData == null || aspspConsentData.length == 0) {
+            return fromBytes(aspspConsentData, klass);
+        }
+        ConsentDataKey key = new ConsentDataKey(aspspConsentData);
+        DecodedConsentData cached = decodedConsentData.getIfPresent(key);
+        if (cached != null && cached.requestedType == klass) {
+            return klass.cast(mapper.readValue(cached.tokens.asParser(mapper), cached.type));
+        }
+        T sca = fromBytes(aspspConsentData, klass);
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        mapper.writeValue(tokens, sca);
+        decodedConsentData.put(key.copy(), new DecodedConsentData(klass, sca.getClass(), tokens));
+        return sca;
+    }
+
+    private <T extends SCAResponseTO> T fromBytes(byte[] aspspConsentData, Class<T> klass) throws IOException {
+        return klass == SCAResponseTO.class
+                       ? klass.cast(tokenStorageService.fromBytes(aspspConsentData))
+                       : tokenStorageService.fromBytes(aspspConsentData, klass);
+    }
+
     private <T extends SCAResponseTO> void checkBearerTokenPresent(boolean checkCredentials, T sca) {
         if (checkCredentials && sca.getBearerToken() == null) {
             throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "Missing credentials. Expecting a bearer token in the consent data object.");
         }
     }
+
+    private static final class ConsentDataKey {
+        private final byte[] consentData;
+        private final int hash;
+
+        private ConsentDataKey(byte[] consentData) {
+            this.consentData = consentData;
+            this.hash = Arrays.hashCode(consentData);
+        }
+
+        /**
+         * The cached key must not share the array with the caller.
+         */
+        private ConsentDataKey copy() {
+            return new ConsentDataKey(consentData.clone());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof ConsentDataKey && Arrays.equals(consentData, ((ConsentDataKey) o).consentData);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class DecodedConsentData {
+        private final Class<? extends SCAResponseTO> requestedType;
+        private final Class<? extends SCAResponseTO> type;
+        private final TokenBuffer tokens;
+
+        private DecodedConsentData(Class<? extends SCAResponseTO> requestedType, Class<? extends SCAResponseTO> type, TokenBuffer tokens) {
+            this.requestedType = requestedType;
+            this.type = type;
+            this.tokens = tokens;
+        }
+    }
 }
@@ -16,11 +16,15 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
+import de.adorsys.aspsp.xs2a.connector.account.AccountReferenceIndex;
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionListService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
-import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
@@ -40,7 +44,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.PropertySource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
@@ -48,10 +52,10 @@ import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @Component
-@PropertySource("classpath:mock-data.properties")
 public class CardAccountSpiImpl implements CardAccountSpi {
 
     private static final String RESPONSE_STATUS_200_WITH_EMPTY_BODY = "Response status was 200, but the body was empty!";
@@ -69,11 +73,17 @@ public class CardAccountSpiImpl implements CardAccountSpi {
     private final FeignExceptionReader feignExceptionReader;
     private final IbanResolverMockService ibanResolverMockService;
     private final OwnerNameService ownerNameService;
+    private final AccountListService accountListService;
+    private final LedgersCallExecutor ledgersCallExecutor;
+    private final TransactionListService transactionListService;
+    private final boolean parallelBalances;
 
     public CardAccountSpiImpl(AccountRestClient restClient, LedgersSpiAccountMapper accountMapper,
                               AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService tokenService,
                               FeignExceptionReader feignExceptionReader, IbanResolverMockService ibanResolverMockService,
-                              OwnerNameService ownerNameService) {
+                              OwnerNameService ownerNameService, AccountListService accountListService,
+                              LedgersCallExecutor ledgersCallExecutor, TransactionListService transactionListService,
+                              @Value("${xs2asandbox.transactions.parallel-balances:true}") boolean parallelBalances) {
         this.accountRestClient = restClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
@@ -81,6 +91,10 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         this.feignExceptionReader = feignExceptionReader;
         this.ibanResolverMockService = ibanResolverMockService;
         this.ownerNameService = ownerNameService;
+        this.accountListService = accountListService;
+        this.ledgersCallExecutor = ledgersCallExecutor;
+        this.transactionListService = transactionListService;
+        this.parallelBalances = parallelBalances;
     }
 
     @Override
@@ -93,14 +107,13 @@ public class CardAccountSpiImpl implements CardAccountSpi {
             SCAResponseTO response = applyAuthorisation(aspspConsentData);
 
             logger.info("Requested card account list for consent with ID: {}", accountConsent.getId());
-            List<SpiCardAccountDetails> cardAccountDetailsList = getSpiCardAccountDetails(accountConsent, aspspConsentData);
+            ConsentAccessIndex accessIndex = new ConsentAccessIndex(accountConsent.getAccess(), ibanResolverMockService);
+            List<SpiCardAccountDetails> cardAccountDetailsList = getSpiCardAccountDetails(accountConsent, accessIndex);
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             List<SpiCardAccountDetails> cardAccountDetailsListWithMaskedPan = mapToCardAccountList(cardAccountDetailsList);
-            List<SpiCardAccountDetails> cardAccountDetailsListWithOwnerName = cardAccountDetailsListWithMaskedPan.stream()
-                                                                                      .map(accountDetails -> enrichWithOwnerName(accountDetails, accountConsent.getAccess()))
-                                                                                      .collect(Collectors.toList());
+            List<SpiCardAccountDetails> cardAccountDetailsListWithOwnerName = enrichWithOwnerName(cardAccountDetailsListWithMaskedPan, accessIndex);
 
             return SpiResponse.<List<SpiCardAccountDetails>>builder()
                            .payload(cardAccountDetailsListWithOwnerName)
@@ -136,8 +149,9 @@ public class CardAccountSpiImpl implements CardAccountSpi {
 
             cardAccountDetails.setMaskedPan(ibanResolverMockService.getMaskedPanByIban(cardAccountDetails.getAspspAccountId())); // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
-            SpiCardAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(cardAccountDetails, accountConsent.getAccess());
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
+            ConsentAccessIndex accessIndex = new ConsentAccessIndex(accountConsent.getAccess(), ibanResolverMockService);
+            SpiCardAccountDetails accountDetailsWithOwnerName = enrichWithOwnerName(cardAccountDetails, accessIndex);
 
             return SpiResponse.<SpiCardAccountDetails>builder()
                            .payload(accountDetailsWithOwnerName)
@@ -188,18 +202,17 @@ public class CardAccountSpiImpl implements CardAccountSpi {
 
             logger.info("Requested transactions for account: {}, dates from: {}, to: {}, withBalance: {}, entryReferenceFrom: {}, deltaList: {}",
                         accountReference.getResourceId(), dateFrom, dateTo, withBalance, entryReferenceFrom, deltaList);
-            List<SpiCardTransaction> transactions = Optional.ofNullable(
-                    accountRestClient.getTransactionByDates(accountReference.getResourceId(), dateFrom, dateTo).getBody())
-                                                            .map(accountMapper::toSpiCardTransactions).orElseGet(ArrayList::new);
-            List<SpiAccountBalance> balances = getSpiAccountBalances(contextData, withBalance, accountReference,
-                                                                     accountConsent, aspspConsentDataProvider);
+            CompletableFuture<List<SpiAccountBalance>> balances = requestBalances(withBalance, accountReference.getResourceId());
+            List<SpiCardTransaction> transactions = transactionListService.getTransactions(accountConsent.getId(), accountReference.getResourceId(), dateFrom, dateTo,
+                                                                                                           entryReferenceFrom, Boolean.TRUE.equals(deltaList),
+                                                                                                           accountMapper::toSpiCardTransactions);
 
             SpiCardTransactionReport transactionReport =
-                    new SpiCardTransactionReport("dGVzdA==", transactions, balances, processAcceptMediaType(acceptMediaType), null);
+                    new SpiCardTransactionReport("dGVzdA==", transactions, LedgersCallExecutor.join(balances), processAcceptMediaType(acceptMediaType), null);
 
             logger.info("Finally found {} transactions.", transactionReport.getCardTransactions().size());
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<SpiCardTransactionReport>builder()
                            .payload(transactionReport)
@@ -238,7 +251,7 @@ public class CardAccountSpiImpl implements CardAccountSpi {
                                                               .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
             logger.info("Found Balances: {}", accountBalances.size());
 
-            aspspConsentDataProvider.updateAspspConsentData(tokenService.store(response));
+            tokenService.updateAspspConsentData(aspspConsentDataProvider, aspspConsentData, response);
 
             return SpiResponse.<List<SpiAccountBalance>>builder()
                            .payload(accountBalances)
@@ -255,33 +268,41 @@ public class CardAccountSpiImpl implements CardAccountSpi {
     }
 
     private List<SpiCardAccountDetails> getSpiCardAccountDetails(@NotNull SpiAccountConsent accountConsent,
-                                                                 byte[] aspspConsentData) {
+                                                                 ConsentAccessIndex accessIndex) {
         List<SpiCardAccountDetails> accountDetailsList;
         if (isGlobalConsent(accountConsent.getAccess()) || isAllAvailableAccountsConsent(accountConsent)) {
             logger.info("Consent with ID: {} is a global or available account Consent", accountConsent.getId());
-            accountDetailsList = getAccountDetailsByConsentId(aspspConsentData);
+            accountDetailsList = getAccountDetailsByConsentId();
         } else {
             logger.info("Consent with ID: {} is a regular consent", accountConsent.getId());
-            accountDetailsList = getAccountDetailsFromReferences(accountConsent, aspspConsentData);
+            accountDetailsList = getAccountDetailsFromReferences(accessIndex.getAccounts());
         }
         return accountDetailsList;
     }
 
-    private List<SpiAccountBalance> getSpiAccountBalances(@NotNull SpiContextData contextData,
-                                                          boolean withBalance,
-                                                          @NotNull SpiAccountReference accountReference,
-                                                          @NotNull SpiAccountConsent accountConsent,
-                                                          @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
-        if (withBalance) {
-            SpiResponse<List<SpiAccountBalance>> response = requestCardBalancesForAccount(contextData, accountReference,
-                                                                                          accountConsent, aspspConsentDataProvider);
-            if (response.isSuccessful()) {
-                return response.getPayload();
-            } else {
-                throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
-            }
-        } else {
-            return null;
+    /**
+     * Starts requesting the balances of the account. If {@code xs2asandbox.transactions.parallel-balances} is enabled,
+     * the balances are requested concurrently to the transactions, otherwise right away on the current thread.
+     */
+    private CompletableFuture<List<SpiAccountBalance>> requestBalances(boolean withBalance, String resourceId) {
+        if (!withBalance) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (parallelBalances) {
+            return ledgersCallExecutor.supplyAsync(() -> getBalances(resourceId));
+        }
+        return CompletableFuture.completedFuture(getBalances(resourceId));
+    }
+
+    private List<SpiAccountBalance> getBalances(String resourceId) {
+        try {
+            return Optional.ofNullable(accountRestClient.getBalances(resourceId).getBody())
+                           .map(accountMapper::toSpiAccountBalancesList)
+                           .orElseThrow(() -> FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, RESPONSE_STATUS_200_WITH_EMPTY_BODY));
+        } catch (FeignException feignException) {
+            String devMessage = feignExceptionReader.getErrorMessage(feignException);
+            logger.error("Request balances for account failed: resource ID {}, devMessage {}", resourceId, devMessage);
+            throw FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Requested transaction can`t be found");
         }
     }
 
@@ -293,49 +314,17 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         return accountConsent.getAisConsentRequestType() == AisConsentRequestType.ALL_AVAILABLE_ACCOUNTS;
     }
 
-    private List<SpiCardAccountDetails> getAccountDetailsByConsentId(byte[] aspspConsentData) {
-        try {
-            applyAuthorisation(aspspConsentData);
-
-            return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
-                           .map(l -> l.stream().map(accountMapper::toSpiCardAccountDetails).collect(Collectors.toList()))
-                           .orElseGet(Collections::emptyList);
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
-        }
-    }
-
-    private List<SpiCardAccountDetails> getAccountDetailsFromReferences(SpiAccountConsent accountConsent,
-                                                                        byte[] aspspConsentData) {
-
-        SpiAccountAccess accountAccess = accountConsent.getAccess();
-        List<SpiAccountReference> references = accountAccess.getAccounts();
-
-        return getAccountDetailsFromReferences(references, aspspConsentData);
-    }
-
-    private List<SpiCardAccountDetails> getAccountDetailsFromReferences(List<SpiAccountReference> references,
-                                                                        byte[] aspspConsentData) {
-        applyAuthorisation(aspspConsentData);
-
-        List<AccountDetailsTO> accountDetails = accountRestClient.getListOfAccounts().getBody();
-
-        if (accountDetails == null) {
-            return Collections.emptyList();
-        }
-
-        return accountDetails.stream()
-                       .filter(account -> filterAccountDetailsByIbanAndCurrency(references, account))
+    private List<SpiCardAccountDetails> getAccountDetailsByConsentId() {
+        return accountListService.getListOfAccounts().stream()
                        .map(accountMapper::toSpiCardAccountDetails)
                        .collect(Collectors.toList());
     }
 
-    private boolean filterAccountDetailsByIbanAndCurrency(List<SpiAccountReference> references, AccountDetailsTO account) {
-        return references.stream()
-                       .filter(reference -> Optional.ofNullable(reference.getIban())
-                                                    .orElseGet(() -> ibanResolverMockService.handleIbanByAccountReference(reference)) // TODO: Remove when ledgers starts supporting card accounts https://git.adorsys.de/adorsys/xs2a/aspsp-xs2a/issues/1246
-                                                    .equals(account.getIban()))
-                       .anyMatch(reference -> reference.getCurrency() == null || reference.getCurrency().equals(account.getCurrency()));
+    private List<SpiCardAccountDetails> getAccountDetailsFromReferences(AccountReferenceIndex references) {
+        return accountListService.getListOfAccounts().stream()
+                       .filter(account -> references.contains(account.getIban(), account.getCurrency()))
+                       .map(accountMapper::toSpiCardAccountDetails)
+                       .collect(Collectors.toList());
     }
 
     private SCAResponseTO applyAuthorisation(byte[] aspspConsentData) {
@@ -392,18 +381,36 @@ public class CardAccountSpiImpl implements CardAccountSpi {
         return details;
     }
 
-    private SpiCardAccountDetails enrichWithOwnerName(SpiCardAccountDetails spiCardAccountDetails, SpiAccountAccess accountAccess) {
+    private SpiCardAccountDetails enrichWithOwnerName(SpiCardAccountDetails spiCardAccountDetails, ConsentAccessIndex accessIndex) {
+        if (shouldContainOwnerName(spiCardAccountDetails, accessIndex)) {
+            return ownerNameService.enrichCardAccountDetailsWithOwnerName(spiCardAccountDetails);
+        }
+
+        return spiCardAccountDetails;
+    }
+
+    /**
+     * Enriches all card accounts with access to the owner name at once, so that the owner names are requested concurrently.
+     */
+    private List<SpiCardAccountDetails> enrichWithOwnerName(List<SpiCardAccountDetails> spiCardAccountDetailsList, ConsentAccessIndex accessIndex) {
+        List<SpiCardAccountDetails> cardAccountDetailsWithOwnerName = spiCardAccountDetailsList.stream()
+                                                                              .filter(cardAccountDetails -> shouldContainOwnerName(cardAccountDetails, accessIndex))
+                                                                              .collect(Collectors.toList());
+        if (!cardAccountDetailsWithOwnerName.isEmpty()) {
+            ownerNameService.enrichCardAccountDetailsListWithOwnerName(cardAccountDetailsWithOwnerName);
+        }
+
+        return spiCardAccountDetailsList;
+    }
+
+    private boolean shouldContainOwnerName(SpiCardAccountDetails spiCardAccountDetails, ConsentAccessIndex accessIndex) {
         Optional<String> ibanOptional = ibanResolverMockService.getIbanByMaskedPan(spiCardAccountDetails.getMaskedPan());
 
         if (!ibanOptional.isPresent()) {
-            return spiCardAccountDetails;
+            return false;
         }
 
         IbanAccountReference ibanAccountReference = new IbanAccountReference(ibanOptional.get(), spiCardAccountDetails.getCurrency());
-        if (ownerNameService.shouldContainOwnerName(ibanAccountReference, accountAccess)) {
-            return ownerNameService.enrichCardAccountDetailsWithOwnerName(spiCardAccountDetails);
-        }
-
-        return spiCardAccountDetails;
+        return ownerNameService.shouldContainOwnerName(ibanAccountReference, accessIndex);
     }
 }
@@ -1,6 +1,6 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
-import de.adorsys.aspsp.xs2a.connector.cms.CmsPsuPisClient;
+import de.adorsys.aspsp.xs2a.connector.cms.CmsPaymentStatusQueue;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
@@ -20,13 +20,13 @@ import static de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO.*;
 public class CmsPaymentStatusUpdateService {
     private static final Logger logger = LoggerFactory.getLogger(CmsPaymentStatusUpdateService.class);
 
-    private final CmsPsuPisClient cmsPsuPisClient;
+    private final CmsPaymentStatusQueue cmsPaymentStatusQueue;
     private final TokenStorageService tokenStorageService;
     private final RequestProviderService requestProviderService;
 
-    public CmsPaymentStatusUpdateService(CmsPsuPisClient cmsPsuPisClient, TokenStorageService tokenStorageService,
+    public CmsPaymentStatusUpdateService(CmsPaymentStatusQueue cmsPaymentStatusQueue, TokenStorageService tokenStorageService,
                                          RequestProviderService requestProviderService) {
-        this.cmsPsuPisClient = cmsPsuPisClient;
+        this.cmsPaymentStatusQueue = cmsPaymentStatusQueue;
         this.tokenStorageService = tokenStorageService;
         this.requestProviderService = requestProviderService;
     }
@@ -35,7 +35,7 @@ public class CmsPaymentStatusUpdateService {
         try {
             SCAResponseTO sca = tokenStorageService.fromBytes(aspspConsentDataProvider.loadAspspConsentData());
             TransactionStatus transactionStatus = getTransactionStatus(sca.getScaStatus());
-            cmsPsuPisClient.updatePaymentStatus(paymentId, transactionStatus, requestProviderService.getInstanceId());
+            cmsPaymentStatusQueue.updatePaymentStatus(paymentId, transactionStatus, requestProviderService.getInstanceId());
         } catch (IOException e) {
             logger.error("Could not extract data from token", e);
         }
@@ -18,12 +18,9 @@ package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.ledgers.middleware.api.domain.account.FundsConfirmationRequestTO;
-import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
-import de.adorsys.ledgers.middleware.api.domain.um.UserRoleTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
-import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
 import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
 import de.adorsys.psd2.xs2a.spi.domain.SpiContextData;
@@ -37,8 +34,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
@@ -51,21 +47,16 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
     private final LedgersSpiAccountMapper accountMapper;
     private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService tokenService;
-    private final UserMgmtRestClient userMgmtRestClient;
-
-    @Value("${xs2a.funds-confirmation-user-login:admin}")
-    private String fundsConfirmationUserLogin;
-    @Value("${xs2a.funds-confirmation-user-password:admin123}")
-    private String fundsConfirmationUserPassword;
+    private final SystemTokenService systemTokenService;
 
     public FundsConfirmationSpiImpl(AccountRestClient restClient, LedgersSpiAccountMapper accountMapper,
                                     AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService tokenService,
-                                    UserMgmtRestClient userMgmtRestClient) {
+                                    SystemTokenService systemTokenService) {
         this.restClient = restClient;
         this.accountMapper = accountMapper;
         this.authRequestInterceptor = authRequestInterceptor;
         this.tokenService = tokenService;
-        this.userMgmtRestClient = userMgmtRestClient;
+        this.systemTokenService = systemTokenService;
     }
 
     @Override
@@ -77,23 +68,20 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
                                           ? null
                                           : aspspConsentDataProvider.loadAspspConsentData();
         try {
-            String tokenForAuthorisation;
+            logger.info("Funds confirmation request: {}", spiFundsConfirmationRequest);
+            FundsConfirmationRequestTO request = accountMapper.toFundsConfirmationTO(contextData.getPsuData(), spiFundsConfirmationRequest);
+            Boolean fundsAvailable;
 
             // This flow runs in case of 'piisConsentSupported = false' in ASPSP profile. It results in 'piisConsent == null'
-            // in this method and access token should be obtained from the separate REST call to ledgers.
+            // in this method and the access token of the funds confirmation user is used.
             if (aspspConsentData == null) {
-                tokenForAuthorisation = getTokenForFundsConfirmationUser();
+                fundsAvailable = fundsConfirmationWithSystemToken(request);
             } else {
                 // This is normal flow when PIIS consent is supported in ASPSP profile.
                 SCAResponseTO response = tokenService.response(aspspConsentData);
-                tokenForAuthorisation = response.getBearerToken().getAccess_token();
+                authRequestInterceptor.setAccessToken(response.getBearerToken().getAccess_token());
+                fundsAvailable = restClient.fundsConfirmation(request).getBody();
             }
-
-            authRequestInterceptor.setAccessToken(tokenForAuthorisation);
-
-            logger.info("Funds confirmation request: {}", spiFundsConfirmationRequest);
-            FundsConfirmationRequestTO request = accountMapper.toFundsConfirmationTO(contextData.getPsuData(), spiFundsConfirmationRequest);
-            Boolean fundsAvailable = restClient.fundsConfirmation(request).getBody();
             logger.info("Funds confirmation response: {}", fundsAvailable);
 
             SpiFundsConfirmationResponse spiFundsConfirmationResponse = new SpiFundsConfirmationResponse();
@@ -116,21 +104,24 @@ public class FundsConfirmationSpiImpl implements FundsConfirmationSpi {
     }
 
     /**
-     * This method authorises the user with the only functionality: check funds confirmation availability. Hardcoded
-     * role is used here, credentials are taken from the application.yml.
-     *
-     * @return access token string.
+     * Checks the funds with the token of the funds confirmation user, which is held by the {@link SystemTokenService}.
+     * If Ledgers rejects the token, e.g. after a restart, the user is logged in again and the check is repeated once.
      */
-    private String getTokenForFundsConfirmationUser() {
-
-        ResponseEntity<SCALoginResponseTO> responseEntity =
-                userMgmtRestClient.authorise(fundsConfirmationUserLogin, fundsConfirmationUserPassword, UserRoleTO.SYSTEM);
-
-        SCALoginResponseTO scaLoginResponseTO = responseEntity.getBody();
-        if (scaLoginResponseTO != null) {
-            return scaLoginResponseTO.getBearerToken().getAccess_token();
+    private Boolean fundsConfirmationWithSystemToken(FundsConfirmationRequestTO request) {
+        authRequestInterceptor.setAccessToken(null);
+        String accessToken = systemTokenService.getAccessToken();
+        authRequestInterceptor.setAccessToken(accessToken);
+        try {
+            return restClient.fundsConfirmation(request).getBody();
+        } catch (FeignException e) {
+            if (e.status() != HttpStatus.UNAUTHORIZED.value()) {
+                throw e;
+            }
+            logger.info("Token of the funds confirmation user has been rejected, logging in again");
+            systemTokenService.invalidate(accessToken);
+            authRequestInterceptor.setAccessToken(null);
+            authRequestInterceptor.setAccessToken(systemTokenService.getAccessToken());
+            return restClient.fundsConfirmation(request).getBody();
         }
-
-        return null;
     }
 }
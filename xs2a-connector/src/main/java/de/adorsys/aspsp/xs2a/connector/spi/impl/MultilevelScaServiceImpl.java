@@ -16,28 +16,48 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.psu.SpiPsuData;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Decides whether multilevel SCA is required for the accounts of a PSU by Ledgers. The decisions are kept per PSU and
+ * set of distinct accounts for the time configured by {@code xs2asandbox.multilevel-sca.cache.ttl.ms}, so that
+ * repeated payment and consent initiations of a PSU with the same accounts, e.g. bulk payments from one debtor
+ * account, do not wait for Ledgers.
+ */
 @Slf4j
 @Service
-@AllArgsConstructor
 public class MultilevelScaServiceImpl implements MultilevelScaService {
     private final UserMgmtRestClient userMgmtRestClient;
     private final LedgersSpiAccountMapper ledgersSpiAccountMapper;
+    private final boolean cacheEnabled;
+    private final Cache<DecisionKey, Boolean> decisions;
+
+    public MultilevelScaServiceImpl(UserMgmtRestClient userMgmtRestClient, LedgersSpiAccountMapper ledgersSpiAccountMapper,
+                                    @Value("${xs2asandbox.multilevel-sca.cache.max-size:10000}") long cacheMaxSize,
+                                    @Value("${xs2asandbox.multilevel-sca.cache.ttl.ms:30000}") long cacheTtl) {
+        this.userMgmtRestClient = userMgmtRestClient;
+        this.ledgersSpiAccountMapper = ledgersSpiAccountMapper;
+        this.cacheEnabled = cacheMaxSize > 0 && cacheTtl > 0;
+        this.decisions = Caffeine.newBuilder()
+                                 .maximumSize(Math.max(cacheMaxSize, 0))
+                                 .expireAfterWrite(Math.max(cacheTtl, 0), TimeUnit.MILLISECONDS)
+                                 .build();
+    }
 
     @Override
     public boolean isMultilevelScaRequired(SpiPsuData spiPsuData, Set<SpiAccountReference> spiAccountReferences) {
@@ -47,13 +67,59 @@ public class MultilevelScaServiceImpl implements MultilevelScaService {
             return false;
         }
 
-        List<AccountReferenceTO> accountReferences = spiAccountReferences.stream()
-                                                             .map(ledgersSpiAccountMapper::mapToAccountReferenceTO)
-                                                             .collect(Collectors.toList());
+        Map<String, SpiAccountReference> distinctReferences = new LinkedHashMap<>();
+        spiAccountReferences.forEach(reference -> distinctReferences.putIfAbsent(normalise(reference), reference));
+
+        if (!cacheEnabled) {
+            return requestDecision(psuId, distinctReferences.values());
+        }
+        return decisions.get(new DecisionKey(psuId, distinctReferences.keySet()),
+                             key -> requestDecision(psuId, distinctReferences.values()));
+    }
+
+    private boolean requestDecision(String psuId, Collection<SpiAccountReference> spiAccountReferences) {
+        List<AccountReferenceTO> accountReferences = new ArrayList<>(spiAccountReferences.size());
+        spiAccountReferences.forEach(reference -> accountReferences.add(ledgersSpiAccountMapper.mapToAccountReferenceTO(reference)));
 
         ResponseEntity<Boolean> response = userMgmtRestClient.multilevelAccounts(psuId, accountReferences);
 
         return BooleanUtils.toBoolean(response.getBody());
     }
 
+    private static String normalise(SpiAccountReference reference) {
+        return String.join("|",
+                           StringUtils.defaultString(reference.getIban()),
+                           StringUtils.defaultString(reference.getBban()),
+                           StringUtils.defaultString(reference.getPan()),
+                           StringUtils.defaultString(reference.getMaskedPan()),
+                           StringUtils.defaultString(reference.getMsisdn()),
+                           reference.getCurrency() == null ? "" : reference.getCurrency().getCurrencyCode());
+    }
+
+    private static class DecisionKey {
+        private final String psuId;
+        private final Set<String> accounts;
+
+        DecisionKey(String psuId, Set<String> accounts) {
+            this.psuId = psuId;
+            this.accounts = accounts;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DecisionKey that = (DecisionKey) o;
+            return psuId.equals(that.psuId) && accounts.equals(that.accounts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(psuId, accounts);
+        }
+    }
 }
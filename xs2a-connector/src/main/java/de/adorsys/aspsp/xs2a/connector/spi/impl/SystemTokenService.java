@@ -0,0 +1,173 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.middleware.api.domain.um.UserRoleTO;
+import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the bearer token of the system user, which checks the availability of funds for card issuers without a PIIS
+ * consent. The user is logged in to Ledgers once and the token is used until {@link #EXPIRY_MARGIN_MS} before it
+ * expires. Concurrent callers without a valid token wait for the same login.
+ * <p>
+ * The token is refreshed in the background {@code xs2asandbox.funds-confirmation.token.refresh-before.ms} before it
+ * expires, so callers do not wait for a login as long as Ledgers is available.
+ */
+@Slf4j
+@Component
+public class SystemTokenService implements DisposableBean {
+    private static final long EXPIRY_MARGIN_MS = 5_000;
+
+    private final UserMgmtRestClient userMgmtRestClient;
+    private final String login;
+    private final String password;
+    private final long refreshBefore;
+    private final AtomicReference<SystemToken> token = new AtomicReference<>();
+    private final AtomicReference<CompletableFuture<SystemToken>> pendingLogin = new AtomicReference<>();
+    private final ScheduledExecutorService refreshExecutor;
+
+    public SystemTokenService(UserMgmtRestClient userMgmtRestClient,
+                              @Value("${xs2a.funds-confirmation-user-login:admin}") String login,
+                              @Value("${xs2a.funds-confirmation-user-password:admin123}") String password,
+                              @Value("${xs2asandbox.funds-confirmation.token.refresh-before.ms:60000}") long refreshBefore) {
+        this.userMgmtRestClient = userMgmtRestClient;
+        this.login = login;
+        this.password = password;
+        this.refreshBefore = refreshBefore;
+        this.refreshExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "system-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Returns a valid access token of the system user, logging in to Ledgers if there is none.
+     *
+     * @throws feign.FeignException if the login fails
+     */
+    public String getAccessToken() {
+        SystemToken current = token.get();
+        if (current != null && current.isValid(System.currentTimeMillis())) {
+            return current.getAccessToken();
+        }
+        return LedgersCallExecutor.join(login(current)).getAccessToken();
+    }
+
+    /**
+     * Discards the access token after it has been rejected by Ledgers, unless it has been replaced already.
+     */
+    public void invalidate(String accessToken) {
+        SystemToken current = token.get();
+        if (current != null && current.getAccessToken().equals(accessToken) && token.compareAndSet(current, null)) {
+            log.info("System token for funds confirmation has been invalidated");
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Logs in unless another caller has replaced the stale token already.
+     */
+    private CompletableFuture<SystemToken> login(SystemToken stale) {
+        while (true) {
+            CompletableFuture<SystemToken> running = pendingLogin.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<SystemToken> created = new CompletableFuture<>();
+            if (pendingLogin.compareAndSet(null, created)) {
+                try {
+                    SystemToken latest = token.get();
+                    created.complete(latest != null && latest != stale && latest.isValid(System.currentTimeMillis())
+                                             ? latest
+                                             : authorise());
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    pendingLogin.set(null);
+                }
+                return created;
+            }
+        }
+    }
+
+    private SystemToken authorise() {
+        long now = System.currentTimeMillis();
+        SCALoginResponseTO response = userMgmtRestClient.authorise(login, password, UserRoleTO.SYSTEM).getBody();
+        BearerTokenTO bearerToken = response == null ? null : response.getBearerToken();
+        if (bearerToken == null || bearerToken.getAccess_token() == null) {
+            throw FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "No token received for the funds confirmation user");
+        }
+
+        long expiresAt = now + TimeUnit.SECONDS.toMillis(bearerToken.getExpires_in());
+        SystemToken systemToken = new SystemToken(bearerToken.getAccess_token(), expiresAt - EXPIRY_MARGIN_MS);
+        token.set(systemToken);
+        long refreshDelay = expiresAt - refreshBefore - now;
+        if (refreshBefore > 0 && refreshDelay > 0) {
+            refreshExecutor.schedule(() -> refresh(systemToken), refreshDelay, TimeUnit.MILLISECONDS);
+        }
+        log.debug("System token for funds confirmation obtained, expires in {} s", bearerToken.getExpires_in());
+        return systemToken;
+    }
+
+    private void refresh(SystemToken expiring) {
+        if (token.get() != expiring) {
+            return;
+        }
+        try {
+            login(expiring).join();
+        } catch (RuntimeException e) {
+            log.warn("System token for funds confirmation could not be refreshed: {}", e.getMessage());
+        }
+    }
+
+    private static class SystemToken {
+        private final String accessToken;
+        private final long validUntil;
+
+        SystemToken(String accessToken, long validUntil) {
+            this.accessToken = accessToken;
+            this.validUntil = validUntil;
+        }
+
+        String getAccessToken() {
+            return accessToken;
+        }
+
+        boolean isValid(long now) {
+            return now < validUntil;
+        }
+    }
+}
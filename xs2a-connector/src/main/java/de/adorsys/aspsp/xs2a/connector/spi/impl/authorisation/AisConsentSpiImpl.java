@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl.authorisation;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.AisConsentMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaLoginMapper;
@@ -28,7 +29,6 @@ import de.adorsys.ledgers.middleware.api.domain.sca.*;
 import de.adorsys.ledgers.middleware.api.domain.um.AisConsentTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
-import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.ConsentRestClient;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
@@ -78,7 +78,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
     private static final String SCA_STATUS_LOG = "SCA status is {}";
 
     private final ConsentRestClient consentRestClient;
-    private final AccountRestClient accountRestClient;
+    private final AccountListService accountListService;
     private final LedgersSpiAccountMapper accountMapper;
     private final TokenStorageService tokenStorageService;
     private final AisConsentMapper aisConsentMapper;
@@ -96,7 +96,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
                              AisConsentMapper aisConsentMapper, AuthRequestInterceptor authRequestInterceptor,
                              AspspConsentDataService consentDataService, GeneralAuthorisationService authorisationService,
                              ScaMethodConverter scaMethodConverter, ScaLoginMapper scaLoginMapper, FeignExceptionReader feignExceptionReader,
-                             AccountRestClient accountRestClient, LedgersSpiAccountMapper accountMapper, MultilevelScaService multilevelScaService, UserMgmtRestClient userMgmtRestClient) {
+                             AccountListService accountListService, LedgersSpiAccountMapper accountMapper, MultilevelScaService multilevelScaService, UserMgmtRestClient userMgmtRestClient) {
         super(authRequestInterceptor, consentDataService, authorisationService, scaMethodConverter, feignExceptionReader, tokenStorageService);
         this.consentRestClient = consentRestClient;
         this.tokenStorageService = tokenStorageService;
@@ -105,7 +105,7 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
         this.consentDataService = consentDataService;
         this.scaLoginMapper = scaLoginMapper;
         this.feignExceptionReader = feignExceptionReader;
-        this.accountRestClient = accountRestClient;
+        this.accountListService = accountListService;
         this.accountMapper = accountMapper;
         this.multilevelScaService = multilevelScaService;
         this.userMgmtRestClient = userMgmtRestClient;
@@ -159,6 +159,9 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
                                                       SpiAccountConsent accountConsent, @NotNull SpiAspspConsentDataProvider aspspConsentDataProvider) {
         try {
             SCAConsentResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), SCAConsentResponseTO.class, false);
+            Optional.ofNullable(sca.getBearerToken())
+                    .map(BearerTokenTO::getAccess_token)
+                    .ifPresent(accountListService::evictListOfAccounts);
             sca.setScaStatus(ScaStatusTO.FINALISED);
             sca.setStatusDate(LocalDateTime.now());
             sca.setBearerToken(new BearerTokenTO());// remove existing token.
@@ -446,10 +449,10 @@ public class AisConsentSpiImpl extends AbstractAuthorisationSpi<SpiAccountConsen
     }
 
     private List<SpiAccountReference> getReferences() {
-        return Optional.ofNullable(accountRestClient.getListOfAccounts().getBody())
-                       .map(l -> l.stream().map(accountMapper::toSpiAccountDetails)
-                                         .map(SpiAccountReference::new).collect(Collectors.toList()))
-                       .orElseGet(Collections::emptyList);
+        return accountListService.getListOfAccounts().stream()
+                       .map(accountMapper::toSpiAccountDetails)
+                       .map(SpiAccountReference::new)
+                       .collect(Collectors.toList());
     }
 
     private boolean isCardAccountConsent(Set<SpiAccountReference> spiAccountReferences) {
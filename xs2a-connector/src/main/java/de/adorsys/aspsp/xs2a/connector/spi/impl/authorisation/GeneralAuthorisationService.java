@@ -26,7 +26,7 @@ import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
-import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.ledgers.rest.client.BearerTokenValidator;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
 import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
@@ -56,16 +56,16 @@ public class GeneralAuthorisationService {
     private static final String ATTEMPT_FAILURE = "PSU_AUTH_ATTEMPT_INVALID";
     private static final Logger logger = LoggerFactory.getLogger(GeneralAuthorisationService.class);
     private final UserMgmtRestClient userMgmtRestClient;
-    private final AuthRequestInterceptor authRequestInterceptor;
+    private final BearerTokenValidator bearerTokenValidator;
     private final ChallengeDataMapper challengeDataMapper;
     private final ScaMethodConverter scaMethodConverter;
     private final AspspConsentDataService consentDataService;
     private final FeignExceptionReader feignExceptionReader;
 
-    public GeneralAuthorisationService(UserMgmtRestClient userMgmtRestClient, AuthRequestInterceptor authRequestInterceptor,
+    public GeneralAuthorisationService(UserMgmtRestClient userMgmtRestClient, BearerTokenValidator bearerTokenValidator,
                                        ChallengeDataMapper challengeDataMapper, ScaMethodConverter scaMethodConverter, AspspConsentDataService consentDataService, FeignExceptionReader feignExceptionReader) {
         this.userMgmtRestClient = userMgmtRestClient;
-        this.authRequestInterceptor = authRequestInterceptor;
+        this.bearerTokenValidator = bearerTokenValidator;
         this.challengeDataMapper = challengeDataMapper;
         this.scaMethodConverter = scaMethodConverter;
         this.consentDataService = consentDataService;
@@ -122,12 +122,7 @@ public class GeneralAuthorisationService {
     }
 
     public BearerTokenTO validateToken(String accessToken) {
-        try {
-            authRequestInterceptor.setAccessToken(accessToken);
-            return userMgmtRestClient.validate(accessToken).getBody();
-        } finally {
-            authRequestInterceptor.setAccessToken(null);
-        }
+        return bearerTokenValidator.validate(accessToken);
     }
 
     public SpiResponse<SpiAuthorizationCodeResult> getResponseIfScaSelected(SpiAspspConsentDataProvider aspspConsentDataProvider, SCAResponseTO sca) {
@@ -21,6 +21,7 @@ import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaMethodConverter;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.AspspConsentDataService;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionReader;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.PaymentStatusLookupService;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.*;
 import de.adorsys.ledgers.middleware.api.domain.um.ScaUserDataTO;
@@ -63,12 +64,14 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
     private final AspspConsentDataService consentDataService;
     private final FeignExceptionReader feignExceptionReader;
     private final ScaLoginMapper scaLoginMapper;
+    private final PaymentStatusLookupService paymentStatusLookupService;
 
     public PaymentCancellationSpiImpl(PaymentRestClient ledgersRestClient,
                                       TokenStorageService tokenStorageService, ScaMethodConverter scaMethodConverter,
                                       AuthRequestInterceptor authRequestInterceptor, AspspConsentDataService consentDataService,
                                       GeneralAuthorisationService authorisationService,
-                                      FeignExceptionReader feignExceptionReader, ScaLoginMapper scaLoginMapper) {
+                                      FeignExceptionReader feignExceptionReader, ScaLoginMapper scaLoginMapper,
+                                      PaymentStatusLookupService paymentStatusLookupService) {
         super(authRequestInterceptor, consentDataService, authorisationService, scaMethodConverter, feignExceptionReader, tokenStorageService);
         this.paymentRestClient = ledgersRestClient;
         this.tokenStorageService = tokenStorageService;
@@ -76,6 +79,7 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
         this.consentDataService = consentDataService;
         this.feignExceptionReader = feignExceptionReader;
         this.scaLoginMapper = scaLoginMapper;
+        this.paymentStatusLookupService = paymentStatusLookupService;
     }
 
     @Override
@@ -108,6 +112,7 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
             authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
             try {
                 paymentRestClient.initiatePmtCancellation(payment.getPaymentId());
+                paymentStatusLookupService.evict(payment.getPaymentId());
                 return SpiResponse.<SpiResponse.VoidResponse>builder()
                                .payload(SpiResponse.voidResponse())
                                .build();
@@ -117,6 +122,8 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
                 return SpiResponse.<SpiResponse.VoidResponse>builder()
                                .error(FeignExceptionHandler.getFailureMessage(feignException, MessageErrorCode.FORMAT_ERROR_CANCELLATION, devMessage))
                                .build();
+            } finally {
+                authRequestInterceptor.setAccessToken(null);
             }
         }
         return SpiResponse.<SpiResponse.VoidResponse>builder()
@@ -134,6 +141,7 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
             authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
 
             ResponseEntity<SCAPaymentResponseTO> response = paymentRestClient.authorizeCancelPayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+            paymentStatusLookupService.evict(sca.getPaymentId());
             return response.getStatusCode() == HttpStatus.OK
                            ? SpiResponse.<SpiPaymentResponse>builder()
                                      .payload(new SpiPaymentResponse(SpiAuthorisationStatus.SUCCESS))
@@ -155,6 +163,8 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
             return SpiResponse.<SpiPaymentResponse>builder()
                            .error(new TppMessage(MessageErrorCode.PSU_CREDENTIALS_INVALID))
                            .build();
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
         }
     }
 
@@ -235,11 +245,15 @@ public class PaymentCancellationSpiImpl extends AbstractAuthorisationSpi<SpiPaym
 
     @Override
     protected Optional<List<ScaUserDataTO>> getScaMethods(SCAPaymentResponseTO sca) {
-        authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
-        ResponseEntity<SCAPaymentResponseTO> cancelSCA = paymentRestClient.getCancelSCA(sca.getPaymentId(), sca.getAuthorisationId());
+        try {
+            authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
+            ResponseEntity<SCAPaymentResponseTO> cancelSCA = paymentRestClient.getCancelSCA(sca.getPaymentId(), sca.getAuthorisationId());
 
-        return Optional.ofNullable(cancelSCA.getBody())
-                       .map(SCAPaymentResponseTO::getScaMethods);
+            return Optional.ofNullable(cancelSCA.getBody())
+                           .map(SCAPaymentResponseTO::getScaMethods);
+        } finally {
+            authRequestInterceptor.setAccessToken(null);
+        }
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package de.adorsys.aspsp.xs2a.connector.spi.impl.payment;
 
+import de.adorsys.aspsp.xs2a.connector.cms.CmsPaymentStatusQueue;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.AspspConsentDataService;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionReader;
@@ -50,8 +51,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.PropertySource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -62,7 +61,6 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 
 @Component
-@PropertySource("classpath:mock-data.properties")
 public class GeneralPaymentService {
     private static final Logger logger = LoggerFactory.getLogger(GeneralPaymentService.class);
     private static final String XML_MEDIA_TYPE = "application/xml";
@@ -73,24 +71,30 @@ public class GeneralPaymentService {
     private final AuthRequestInterceptor authRequestInterceptor;
     private final AspspConsentDataService consentDataService;
     private final FeignExceptionReader feignExceptionReader;
-    private final String transactionStatusXmlBody;
     private final MultilevelScaService multilevelScaService;
     private final UserMgmtRestClient userMgmtRestClient;
+    private final PaymentStatusLookupService paymentStatusLookupService;
+    private final Pain002StatusReportWriter pain002StatusReportWriter;
+    private final CmsPaymentStatusQueue cmsPaymentStatusQueue;
 
     public GeneralPaymentService(PaymentRestClient ledgersRestClient,
                                  AuthRequestInterceptor authRequestInterceptor,
                                  AspspConsentDataService consentDataService,
                                  FeignExceptionReader feignExceptionReader,
-                                 @Value("${test-transaction-status-xml-body}") String transactionStatusXmlBody,
                                  MultilevelScaService multilevelScaService,
-                                 UserMgmtRestClient userMgmtRestClient) {
+                                 UserMgmtRestClient userMgmtRestClient,
+                                 PaymentStatusLookupService paymentStatusLookupService,
+                                 Pain002StatusReportWriter pain002StatusReportWriter,
+                                 CmsPaymentStatusQueue cmsPaymentStatusQueue) {
         this.paymentRestClient = ledgersRestClient;
         this.authRequestInterceptor = authRequestInterceptor;
         this.consentDataService = consentDataService;
         this.feignExceptionReader = feignExceptionReader;
-        this.transactionStatusXmlBody = transactionStatusXmlBody;
         this.multilevelScaService = multilevelScaService;
         this.userMgmtRestClient = userMgmtRestClient;
+        this.paymentStatusLookupService = paymentStatusLookupService;
+        this.pain002StatusReportWriter = pain002StatusReportWriter;
+        this.cmsPaymentStatusQueue = cmsPaymentStatusQueue;
     }
 
     public SpiResponse<SpiGetPaymentStatusResponse> getPaymentStatusById(@NotNull PaymentTypeTO paymentType,
@@ -98,31 +102,19 @@ public class GeneralPaymentService {
                                                                          @NotNull String paymentId,
                                                                          @NotNull TransactionStatus spiTransactionStatus,
                                                                          @NotNull byte[] aspspConsentData) {
-        if (acceptMediaType.equals(XML_MEDIA_TYPE)) {
-            return SpiResponse.<SpiGetPaymentStatusResponse>builder()
-                           .payload(new SpiGetPaymentStatusResponse(spiTransactionStatus, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_XML, transactionStatusXmlBody.getBytes(), PSU_MESSAGE))
-                           .build();
-        }
-
         if (!TransactionStatus.ACSP.equals(spiTransactionStatus)) {
-            return SpiResponse.<SpiGetPaymentStatusResponse>builder()
-                           .payload(new SpiGetPaymentStatusResponse(spiTransactionStatus, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_JSON, null, PSU_MESSAGE))
-                           .build();
+            return buildPaymentStatusResponse(acceptMediaType, paymentId, spiTransactionStatus);
         }
         try {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentData, SCAPaymentResponseTO.class);
             authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
 
             logger.info("Get payment status by ID with type: {} and ID: {}", paymentType, paymentId);
-            TransactionStatusTO response = paymentRestClient.getPaymentStatusById(sca.getPaymentId()).getBody();
-            TransactionStatus status = Optional.ofNullable(response)
-                                               .map(r -> TransactionStatus.valueOf(r.name()))
-                                               .orElseThrow(() -> FeignException.errorStatus("Request failed, response was 200, but body was empty!",
-                                                                                             Response.builder().status(HttpStatus.BAD_REQUEST.value()).build()));
+            TransactionStatus status = paymentStatusLookupService.getPaymentStatus(sca.getPaymentId(), () -> requestPaymentStatus(sca.getPaymentId()));
             logger.info("Transaction status: {}", status);
-            return SpiResponse.<SpiGetPaymentStatusResponse>builder()
-                           .payload(new SpiGetPaymentStatusResponse(status, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_JSON, null, PSU_MESSAGE))
-                           .build();
+            // XS2A writes the reported status to the CMS, a status still queued by the authorisation is outdated
+            cmsPaymentStatusQueue.discardPaymentStatus(paymentId);
+            return buildPaymentStatusResponse(acceptMediaType, paymentId, status);
         } catch (FeignException feignException) {
             String devMessage = feignExceptionReader.getErrorMessage(feignException);
             logger.error("Get payment status by id failed: payment ID {}, devMessage {}", paymentId, devMessage);
@@ -140,8 +132,14 @@ public class GeneralPaymentService {
             SCAPaymentResponseTO sca = consentDataService.response(aspspConsentDataProvider.loadAspspConsentData(), SCAPaymentResponseTO.class);
             authRequestInterceptor.setAccessToken(sca.getBearerToken().getAccess_token());
 
-            ResponseEntity<SCAPaymentResponseTO> authorizePaymentResponse = paymentRestClient.authorizePayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+            ResponseEntity<SCAPaymentResponseTO> authorizePaymentResponse;
+            try {
+                authorizePaymentResponse = paymentRestClient.authorizePayment(sca.getPaymentId(), sca.getAuthorisationId(), spiScaConfirmation.getTanNumber());
+            } finally {
+                paymentStatusLookupService.evict(sca.getPaymentId());
+            }
             SCAPaymentResponseTO consentResponse = authorizePaymentResponse.getBody();
+            cmsPaymentStatusQueue.discardPaymentStatus(sca.getPaymentId());
 
             aspspConsentDataProvider.updateAspspConsentData(consentDataService.store(consentResponse));
 
@@ -274,6 +272,7 @@ public class GeneralPaymentService {
 
                 logger.info("SCA status is: {}", scaStatusName);
                 logger.info("Payment scheduled for execution. Transaction status is: {}. Also see SCA status", response.getTransactionStatus());
+                cmsPaymentStatusQueue.discardPaymentStatus(response.getPaymentId());
 
                 return SpiResponse.<SpiPaymentExecutionResponse>builder()
                                .payload(spiPaymentExecutionResponse(response.getTransactionStatus()))
@@ -310,6 +309,23 @@ public class GeneralPaymentService {
 
     }
 
+    private SpiResponse<SpiGetPaymentStatusResponse> buildPaymentStatusResponse(String acceptMediaType, String paymentId, TransactionStatus status) {
+        SpiGetPaymentStatusResponse response = XML_MEDIA_TYPE.equals(acceptMediaType)
+                                                       ? new SpiGetPaymentStatusResponse(status, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_XML, pain002StatusReportWriter.write(paymentId, status), PSU_MESSAGE)
+                                                       : new SpiGetPaymentStatusResponse(status, null, SpiGetPaymentStatusResponse.RESPONSE_TYPE_JSON, null, PSU_MESSAGE);
+        return SpiResponse.<SpiGetPaymentStatusResponse>builder()
+                       .payload(response)
+                       .build();
+    }
+
+    private TransactionStatus requestPaymentStatus(String paymentId) {
+        TransactionStatusTO response = paymentRestClient.getPaymentStatusById(paymentId).getBody();
+        return Optional.ofNullable(response)
+                       .map(r -> TransactionStatus.valueOf(r.name()))
+                       .orElseThrow(() -> FeignException.errorStatus("Request failed, response was 200, but body was empty!",
+                                                                     Response.builder().status(HttpStatus.BAD_REQUEST.value()).build()));
+    }
+
     private SpiResponse<SpiPaymentConfirmationCodeValidationResponse> buildFailedConfirmationCodeResponse() {
         return getConfirmationCodeResponseForXs2a(ScaStatus.FAILED, TransactionStatus.RJCT);
     }
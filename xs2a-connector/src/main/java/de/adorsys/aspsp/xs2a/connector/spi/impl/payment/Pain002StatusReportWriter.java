@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.payment;
+
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renders the status of a payment as pain.002.001.03 customer payment status report. The invariant document start
+ * and end are encoded once, the group header and the original group and payment information are written by a StAX
+ * writer.
+ * <p>
+ * XS2A transaction statuses, which are not defined by pain.002.001.03, are reported with the nearest group status,
+ * e.g. {@code ACCC} as {@code ACSC} and {@code CANC} as {@code RJCT}.
+ */
+@Slf4j
+@Component
+public class Pain002StatusReportWriter {
+    private static final String ORIGINAL_MESSAGE_NAME = "pain.001.001.03";
+    private static final byte[] DOCUMENT_START = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                                                          + "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pain.002.001.03\">"
+                                                          + "<CstmrPmtStsRpt>").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DOCUMENT_END = "</CstmrPmtStsRpt></Document>".getBytes(StandardCharsets.UTF_8);
+    private static final DateTimeFormatter CREATION_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+    private static final int BUFFER_SIZE = 1024;
+    private static final Map<String, String> GROUP_STATUSES = new HashMap<>();
+
+    static {
+        GROUP_STATUSES.put("ACCC", "ACSC");
+        GROUP_STATUSES.put("ACFC", "ACTC");
+        GROUP_STATUSES.put("PATC", "ACTC");
+        GROUP_STATUSES.put("ACWP", "ACSP");
+        GROUP_STATUSES.put("CANC", "RJCT");
+    }
+
+    // the JDK writer is used regardless of the classpath, as it writes the sections without a single root element
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newDefaultFactory();
+
+    /**
+     * Returns the UTF-8 encoded status report of the payment.
+     *
+     * @throws feign.FeignException if the report could not be written
+     */
+    public byte[] write(String paymentId, TransactionStatus status) {
+        String groupStatus = GROUP_STATUSES.getOrDefault(status.name(), status.name());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+        try {
+            buffer.writeBytes(DOCUMENT_START);
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(buffer, StandardCharsets.UTF_8.name());
+            writeGroupHeader(writer);
+            writeOriginalGroupStatus(writer, paymentId, groupStatus);
+            writeOriginalPaymentStatus(writer, paymentId, groupStatus);
+            writer.flush();
+            writer.close();
+            buffer.writeBytes(DOCUMENT_END);
+            return buffer.toByteArray();
+        } catch (XMLStreamException e) {
+            log.error("Status report of payment {} could not be written", paymentId, e);
+            throw FeignExceptionHandler.getException(HttpStatus.INTERNAL_SERVER_ERROR, "Payment status report could not be written");
+        }
+    }
+
+    private void writeGroupHeader(XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement("GrpHdr");
+        writeElement(writer, "MsgId", UUID.randomUUID().toString().replace("-", ""));
+        writeElement(writer, "CreDtTm", OffsetDateTime.now(ZoneOffset.UTC).format(CREATION_DATE_TIME));
+        writer.writeEndElement();
+    }
+
+    private void writeOriginalGroupStatus(XMLStreamWriter writer, String paymentId, String groupStatus) throws XMLStreamException {
+        writer.writeStartElement("OrgnlGrpInfAndSts");
+        writeElement(writer, "OrgnlMsgId", paymentId);
+        writeElement(writer, "OrgnlMsgNmId", ORIGINAL_MESSAGE_NAME);
+        writeElement(writer, "GrpSts", groupStatus);
+        writer.writeEndElement();
+    }
+
+    private void writeOriginalPaymentStatus(XMLStreamWriter writer, String paymentId, String groupStatus) throws XMLStreamException {
+        writer.writeStartElement("OrgnlPmtInfAndSts");
+        writeElement(writer, "OrgnlPmtInfId", paymentId);
+        writeElement(writer, "PmtInfSts", groupStatus);
+        writer.writeEndElement();
+    }
+
+    private void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writer.writeStartElement(name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+}
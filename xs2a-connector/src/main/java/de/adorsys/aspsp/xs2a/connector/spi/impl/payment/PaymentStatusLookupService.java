@@ -0,0 +1,122 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.payment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Collapses the status lookups of a payment polled by TPPs. Concurrent lookups of a payment wait for the same Ledgers
+ * call and the status is reused for {@code xs2asandbox.payment-status.cache.ttl.ms}, final statuses until they are
+ * evicted. The status of a payment is evicted when its authorisation or cancellation changes it in Ledgers.
+ */
+@Component
+public class PaymentStatusLookupService {
+    private static final Set<TransactionStatus> FINAL_STATUSES = EnumSet.of(TransactionStatus.ACCC, TransactionStatus.ACSC,
+                                                                            TransactionStatus.RJCT, TransactionStatus.CANC);
+
+    private final boolean cacheEnabled;
+    private final Cache<String, TransactionStatus> statuses;
+    private final Map<String, CompletableFuture<TransactionStatus>> pendingLookups = new ConcurrentHashMap<>();
+
+    public PaymentStatusLookupService(@Value("${xs2asandbox.payment-status.cache.max-size:10000}") long cacheMaxSize,
+                                      @Value("${xs2asandbox.payment-status.cache.ttl.ms:1000}") long cacheTtl) {
+        this.cacheEnabled = cacheMaxSize > 0 && cacheTtl > 0;
+        this.statuses = Caffeine.newBuilder()
+                                .maximumSize(Math.max(cacheMaxSize, 0))
+                                .expireAfter(new StatusExpiry(TimeUnit.MILLISECONDS.toNanos(Math.max(cacheTtl, 0))))
+                                .build();
+    }
+
+    /**
+     * Returns the status of the payment, looking it up with the given Ledgers call if it is not cached and no other
+     * lookup of the payment is running.
+     */
+    public TransactionStatus getPaymentStatus(String paymentId, Supplier<TransactionStatus> lookup) {
+        TransactionStatus cached = statuses.getIfPresent(paymentId);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<TransactionStatus> created = new CompletableFuture<>();
+        CompletableFuture<TransactionStatus> running = pendingLookups.putIfAbsent(paymentId, created);
+        if (running != null) {
+            return LedgersCallExecutor.join(running);
+        }
+        try {
+            TransactionStatus status = lookup.get();
+            pendingLookups.computeIfPresent(paymentId, (id, pending) -> {
+                if (pending == created && cacheEnabled) {
+                    statuses.put(id, status);
+                }
+                return pending == created ? null : pending;
+            });
+            created.complete(status);
+            return status;
+        } catch (RuntimeException e) {
+            pendingLookups.remove(paymentId, created);
+            created.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Discards the cached status of the payment, a running lookup is not cached either.
+     */
+    public void evict(String paymentId) {
+        pendingLookups.compute(paymentId, (id, pending) -> {
+            statuses.invalidate(id);
+            return null;
+        });
+    }
+
+    private static class StatusExpiry implements Expiry<String, TransactionStatus> {
+        private final long ttlNanos;
+
+        StatusExpiry(long ttlNanos) {
+            this.ttlNanos = ttlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String paymentId, TransactionStatus status, long currentTime) {
+            return FINAL_STATUSES.contains(status) ? Long.MAX_VALUE : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String paymentId, TransactionStatus status, long currentTime, long currentDuration) {
+            return expireAfterCreate(paymentId, status, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String paymentId, TransactionStatus status, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.middleware.api.domain.account.AccountDetailsTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountListServiceTest {
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String OTHER_ACCESS_TOKEN = "other_access_token";
+
+    @Mock
+    private AccountRestClient accountRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+
+    private AccountListService accountListService;
+    private List<AccountDetailsTO> accounts;
+
+    @BeforeEach
+    void setUp() {
+        accountListService = new AccountListService(accountRestClient, authRequestInterceptor, 100, 60_000);
+        accounts = Collections.singletonList(new AccountDetailsTO());
+    }
+
+    @Test
+    void getListOfAccounts_sameToken_shouldCallLedgersOnce() {
+        // Given
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accounts));
+
+        // When
+        List<AccountDetailsTO> first = accountListService.getListOfAccounts();
+        List<AccountDetailsTO> second = accountListService.getListOfAccounts();
+
+        // Then
+        assertEquals(accounts, first);
+        assertEquals(accounts, second);
+        verify(accountRestClient, times(1)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_differentTokens_shouldBeCachedSeparately() {
+        // Given
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN, OTHER_ACCESS_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accounts));
+
+        // When
+        accountListService.getListOfAccounts();
+        accountListService.getListOfAccounts();
+
+        // Then
+        verify(accountRestClient, times(2)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_evicted_shouldCallLedgersAgain() {
+        // Given
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accounts));
+        accountListService.getListOfAccounts();
+
+        // When
+        accountListService.evictListOfAccounts(ACCESS_TOKEN);
+        accountListService.getListOfAccounts();
+
+        // Then
+        verify(accountRestClient, times(2)).getListOfAccounts();
+    }
+
+    @Test
+    void getListOfAccounts_emptyBody_shouldReturnEmptyList() {
+        // Given
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok().build());
+
+        // When
+        List<AccountDetailsTO> actual = accountListService.getListOfAccounts();
+
+        // Then
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    void bindTo_shouldPublishHitsAndMisses() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        accountListService.bindTo(registry);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accounts));
+
+        // When
+        accountListService.getListOfAccounts();
+        accountListService.getListOfAccounts();
+
+        // Then
+        assertEquals(1, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccountReferenceIndexTest {
+    private static final String IBAN_FIRST_ACCOUNT = "DE89370400440532013000";
+    private static final String IBAN_SECOND_ACCOUNT = "DE32760700240271232100";
+    private static final String PAN = "4937023494670836";
+    private static final Currency CURRENCY_EUR = Currency.getInstance("EUR");
+    private static final Currency CURRENCY_USD = Currency.getInstance("USD");
+
+    @Test
+    void contains_referenceWithCurrency_shouldMatchSameCurrencyOnly() {
+        // Given
+        AccountReferenceIndex index = new AccountReferenceIndex(Collections.singletonList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), reference -> null);
+
+        // Then
+        assertTrue(index.contains(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(index.contains(IBAN_FIRST_ACCOUNT, CURRENCY_USD));
+        assertFalse(index.contains(IBAN_SECOND_ACCOUNT, CURRENCY_EUR));
+    }
+
+    @Test
+    void contains_referenceWithoutCurrency_shouldMatchAnyCurrency() {
+        // Given
+        AccountReferenceIndex index = new AccountReferenceIndex(Collections.singletonList(ibanReference(IBAN_FIRST_ACCOUNT, null)), reference -> null);
+
+        // Then
+        assertTrue(index.contains(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertTrue(index.contains(IBAN_FIRST_ACCOUNT, CURRENCY_USD));
+        assertTrue(index.contains(IBAN_FIRST_ACCOUNT, null));
+    }
+
+    @Test
+    void contains_cardReference_shouldUseResolvedIban() {
+        // Given
+        SpiAccountReference cardReference = new SpiAccountReference(null, null, null, PAN, null, null, CURRENCY_EUR);
+        AccountReferenceIndex index = new AccountReferenceIndex(Collections.singletonList(cardReference), reference -> IBAN_FIRST_ACCOUNT);
+
+        // Then
+        assertTrue(index.contains(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(index.containsReferencedIban(IBAN_FIRST_ACCOUNT));
+    }
+
+    @Test
+    void contains_unresolvedCardReference_shouldBeSkipped() {
+        // Given
+        SpiAccountReference cardReference = new SpiAccountReference(null, null, null, PAN, null, null, CURRENCY_EUR);
+        AccountReferenceIndex index = new AccountReferenceIndex(Collections.singletonList(cardReference), reference -> null);
+
+        // Then
+        assertFalse(index.contains(IBAN_FIRST_ACCOUNT, CURRENCY_EUR));
+        assertFalse(index.isEmpty());
+    }
+
+    @Test
+    void containsReferencedIban_shouldIgnoreCurrency() {
+        // Given
+        AccountReferenceIndex index = new AccountReferenceIndex(Arrays.asList(ibanReference(IBAN_FIRST_ACCOUNT, CURRENCY_USD),
+                                                                              ibanReference(IBAN_SECOND_ACCOUNT, null)), reference -> null);
+
+        // Then
+        assertTrue(index.containsReferencedIban(IBAN_FIRST_ACCOUNT));
+        assertTrue(index.containsReferencedIban(IBAN_SECOND_ACCOUNT));
+        assertFalse(index.containsReferencedIban("DE12500105170648489890"));
+    }
+
+    @Test
+    void isEmpty_noReferences_shouldReturnTrue() {
+        assertTrue(new AccountReferenceIndex(null, reference -> null).isEmpty());
+        assertTrue(new AccountReferenceIndex(Collections.emptyList(), reference -> null).isEmpty());
+    }
+
+    private SpiAccountReference ibanReference(String iban, Currency currency) {
+        return new SpiAccountReference(null, iban, null, null, null, null, currency);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgersCallExecutorTest {
+    private static final String ACCESS_TOKEN = "access_token";
+
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthRequestInterceptor();
+    private final LedgersCallExecutor ledgersCallExecutor = new LedgersCallExecutor(authRequestInterceptor, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        authRequestInterceptor.setAccessToken(null);
+        ledgersCallExecutor.destroy();
+    }
+
+    @Test
+    void supplyAsync_shouldApplyTokenOfCallingThread() {
+        // Given
+        authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+
+        // When
+        String actual = LedgersCallExecutor.join(ledgersCallExecutor.supplyAsync(authRequestInterceptor::getAccessToken));
+
+        // Then
+        assertEquals(ACCESS_TOKEN, actual);
+        assertEquals(ACCESS_TOKEN, authRequestInterceptor.getAccessToken());
+    }
+
+    @Test
+    void supplyAsync_saturated_shouldRunOnCallingThreadAndKeepToken() throws InterruptedException {
+        // Given
+        authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = ledgersCallExecutor.supplyAsync(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return Thread.currentThread().getName();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = ledgersCallExecutor.supplyAsync(() -> Thread.currentThread().getName());
+
+        // When
+        CompletableFuture<String> rejected = ledgersCallExecutor.supplyAsync(() -> Thread.currentThread().getName());
+
+        // Then
+        assertTrue(rejected.isDone());
+        assertEquals(Thread.currentThread().getName(), LedgersCallExecutor.join(rejected));
+        assertEquals(ACCESS_TOKEN, authRequestInterceptor.getAccessToken());
+        release.countDown();
+        assertTrue(LedgersCallExecutor.join(running).startsWith("ledgers-call-"));
+        assertTrue(LedgersCallExecutor.join(queued).startsWith("ledgers-call-"));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
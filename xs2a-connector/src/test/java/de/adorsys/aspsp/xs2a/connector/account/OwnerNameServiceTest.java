@@ -17,20 +17,25 @@
 package de.adorsys.aspsp.xs2a.connector.account;
 
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.ledgers.middleware.api.domain.account.AccountIdentifierTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.account.AdditionalAccountInformationTO;
 import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.consent.SpiAccountAccess;
+import feign.FeignException;
 import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.util.Arrays;
@@ -39,12 +44,13 @@ import java.util.Currency;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class OwnerNameServiceTest {
     private static final String RESOURCE_ID = "11111-999999999";
+    private static final String RESOURCE_ID_SECOND_ACCOUNT = "11111-999999998";
+    private static final String ACCESS_TOKEN = "access_token";
     private static final String PAN = "4937023494670836";
     private static final String ACCOUNT_OWNER_NAME = "account owner name";
     private static final String ACCOUNT_OWNER_NAME_2 = "different account owner name";
@@ -56,11 +62,25 @@ class OwnerNameServiceTest {
     private AccountRestClient accountRestClient;
     @Mock
     private IbanResolverMockService ibanResolverMockService;
-    @InjectMocks
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+
+    private LedgersCallExecutor ledgersCallExecutor;
     private OwnerNameService ownerNameService;
 
     private JsonReader jsonReader = new JsonReader();
 
+    @BeforeEach
+    void setUp() {
+        ledgersCallExecutor = new LedgersCallExecutor(authRequestInterceptor, 2, 100);
+        ownerNameService = new OwnerNameService(accountRestClient, ibanResolverMockService, ledgersCallExecutor, 100, 60000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgersCallExecutor.destroy();
+    }
+
     @Test
     void shouldContainOwnerName_dedicatedAccessWithAllAccountsOwnerName_shouldReturnTrue() {
         IbanAccountReference accountReference = new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR);
@@ -311,6 +331,80 @@ class OwnerNameServiceTest {
         verify(accountRestClient).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
     }
 
+    @Test
+    void enrichAccountDetailsWithOwnerName_secondRequest_shouldUseCachedOwnerName() {
+        // Given
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+        ownerNameService.enrichAccountDetailsWithOwnerName(jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class));
+        SpiAccountDetails initialAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class);
+
+        // When
+        SpiAccountDetails enrichedAccountDetails = ownerNameService.enrichAccountDetailsWithOwnerName(initialAccountDetails);
+
+        // Then
+        assertEquals(ACCOUNT_OWNER_NAME, enrichedAccountDetails.getOwnerName());
+        verify(accountRestClient, times(1)).getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID);
+    }
+
+    @Test
+    void enrichAccountDetailsListWithOwnerName_shouldRequestOwnerNamesConcurrentlyWithBearerToken() {
+        // Given
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME_2))));
+        SpiAccountDetails firstAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class);
+        SpiAccountDetails secondAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class);
+        secondAccountDetails.setResourceId(RESOURCE_ID_SECOND_ACCOUNT);
+
+        // When
+        List<SpiAccountDetails> enrichedAccountDetails = ownerNameService.enrichAccountDetailsListWithOwnerName(Arrays.asList(firstAccountDetails, secondAccountDetails));
+
+        // Then
+        assertEquals(2, enrichedAccountDetails.size());
+        assertEquals(ACCOUNT_OWNER_NAME, enrichedAccountDetails.get(0).getOwnerName());
+        assertEquals(ACCOUNT_OWNER_NAME_2, enrichedAccountDetails.get(1).getOwnerName());
+        verify(authRequestInterceptor, times(2)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+    }
+
+    @Test
+    void enrichCardAccountDetailsListWithOwnerName_shouldSetOwnerNamesOfAllAccounts() {
+        // Given
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(buildAdditionalAccountInformationTO(ACCOUNT_OWNER_NAME))));
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        SpiCardAccountDetails firstAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-card-account-details-first-account.json", SpiCardAccountDetails.class);
+        SpiCardAccountDetails secondAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-card-account-details-first-account.json", SpiCardAccountDetails.class);
+        secondAccountDetails.setResourceId(RESOURCE_ID_SECOND_ACCOUNT);
+
+        // When
+        List<SpiCardAccountDetails> enrichedAccountDetails = ownerNameService.enrichCardAccountDetailsListWithOwnerName(Arrays.asList(firstAccountDetails, secondAccountDetails));
+
+        // Then
+        assertEquals(ACCOUNT_OWNER_NAME, enrichedAccountDetails.get(0).getOwnerName());
+        assertNull(enrichedAccountDetails.get(1).getOwnerName());
+    }
+
+    @Test
+    void enrichAccountDetailsListWithOwnerName_ledgersError_shouldThrowException() {
+        // Given
+        when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Account not found"));
+        lenient().when(accountRestClient.getAdditionalAccountInfo(AccountIdentifierTypeTO.ACCOUNT_ID, RESOURCE_ID_SECOND_ACCOUNT))
+                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        SpiAccountDetails firstAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class);
+        SpiAccountDetails secondAccountDetails = jsonReader.getObjectFromFile("json/account/additional-account-information/spi-account-details-first-account.json", SpiAccountDetails.class);
+        secondAccountDetails.setResourceId(RESOURCE_ID_SECOND_ACCOUNT);
+        List<SpiAccountDetails> accountDetailsList = Arrays.asList(firstAccountDetails, secondAccountDetails);
+
+        // Then
+        assertThrows(FeignException.class, () -> ownerNameService.enrichAccountDetailsListWithOwnerName(accountDetailsList));
+    }
+
     @NotNull
     private AdditionalAccountInformationTO buildAdditionalAccountInformationTO(String ownerName) {
         AdditionalAccountInformationTO additionalAccountInformationTO = new AdditionalAccountInformationTO();
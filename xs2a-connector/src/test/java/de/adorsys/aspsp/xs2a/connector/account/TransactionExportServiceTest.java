@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransactionsDownloadResponse;
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionExportServiceTest {
+    private static final String CONSENT_ID = "c966f143-f6a2-41db-9036-8abaeeef3af7";
+    private static final String OTHER_CONSENT_ID = "0b2c6fc4-bc0a-4ed2-a4c4-5f2c49a4e3a5";
+    private static final String RESOURCE_ID = "11111-999999999";
+    private static final LocalDate DATE_FROM = LocalDate.of(2019, 1, 1);
+    private static final LocalDate DATE_TO = LocalDate.of(2019, 3, 10);
+
+    @Mock
+    private AccountRestClient accountRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+    @Mock
+    private LedgersCallExecutor ledgersCallExecutor;
+    @TempDir
+    Path directory;
+
+    private TransactionExportService transactionExportService;
+    private TransactionTO transactionTO;
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void setUp() {
+        transactionExportService = new TransactionExportService(transactionListService(), directory.toString(), 366, 60_000);
+        transactionTO = new JsonReader().getObjectFromFile("json/mappers/transaction-to.json", TransactionTO.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionExportService.destroy();
+    }
+
+    @Test
+    void isExported_shouldExportPeriodsLongerThanMaxInlinePeriod() {
+        assertFalse(transactionExportService.isExported(DATE_FROM, DATE_FROM.plusDays(366)));
+        assertTrue(transactionExportService.isExported(DATE_FROM, DATE_FROM.plusDays(367)));
+    }
+
+    @Test
+    void exportTransactions_shouldRequestLedgersWindowByWindow() throws IOException {
+        // Given
+        when(accountRestClient.getTransactionByDates(eq(RESOURCE_ID), any(), any())).thenReturn(ResponseEntity.ok(Collections.singletonList(transactionTO)));
+
+        // When
+        String downloadId = transactionExportService.exportTransactions(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO);
+        Optional<SpiTransactionsDownloadResponse> download = transactionExportService.openExport(CONSENT_ID, downloadId);
+
+        // Then
+        verify(accountRestClient).getTransactionByDates(RESOURCE_ID, LocalDate.of(2019, 1, 1), LocalDate.of(2019, 1, 31));
+        verify(accountRestClient).getTransactionByDates(RESOURCE_ID, LocalDate.of(2019, 2, 1), LocalDate.of(2019, 3, 3));
+        verify(accountRestClient).getTransactionByDates(RESOURCE_ID, LocalDate.of(2019, 3, 4), DATE_TO);
+        assertTrue(download.isPresent());
+        JsonNode booked = objectMapper.readTree(singleFile(directory).toFile()).path("transactions").path("booked");
+        assertEquals(3, booked.size());
+        assertEquals("1234567", booked.get(0).path("transactionId").asText());
+        assertEquals("2017-01-01", booked.get(0).path("bookingDate").asText());
+        assertEquals("EUR", booked.get(0).path("transactionAmount").path("currency").asText());
+        assertEquals("1.06", booked.get(0).path("transactionAmount").path("amount").asText());
+        assertEquals("DE52500105173911841934", booked.get(0).path("creditorAccount").path("iban").asText());
+    }
+
+    @Test
+    void openExport_otherConsent_shouldReturnEmpty() {
+        // Given
+        when(accountRestClient.getTransactionByDates(eq(RESOURCE_ID), any(), any())).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        String downloadId = transactionExportService.exportTransactions(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO);
+
+        // Then
+        assertFalse(transactionExportService.openExport(OTHER_CONSENT_ID, downloadId).isPresent());
+        assertFalse(transactionExportService.openExport(CONSENT_ID, "unknown").isPresent());
+    }
+
+    @Test
+    void deleteExpiredExports_shouldDeleteFiles() throws IOException, InterruptedException {
+        // Given
+        transactionExportService.destroy();
+        transactionExportService = new TransactionExportService(transactionListService(), directory.toString(), 366, 1);
+        when(accountRestClient.getTransactionByDates(eq(RESOURCE_ID), any(), any())).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        String downloadId = transactionExportService.exportTransactions(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_FROM);
+        Thread.sleep(5);
+
+        // When
+        transactionExportService.deleteExpiredExports();
+
+        // Then
+        assertFalse(transactionExportService.openExport(CONSENT_ID, downloadId).isPresent());
+        assertTrue(isEmpty(directory));
+    }
+
+    @Test
+    void exportTransactions_ledgersError_shouldDeleteFile() throws IOException {
+        // Given
+        when(accountRestClient.getTransactionByDates(eq(RESOURCE_ID), any(), any()))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transactionTO)))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Account not found"));
+
+        // Then
+        assertThrows(FeignException.class, () -> transactionExportService.exportTransactions(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO));
+        assertTrue(isEmpty(directory));
+    }
+
+    private TransactionListService transactionListService() {
+        return new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 31, 0, 0);
+    }
+
+    private boolean isEmpty(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return !files.findAny().isPresent();
+        }
+    }
+
+    private Path singleFile(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.reduce((first, second) -> fail("More than one export file")).orElseThrow(AssertionError::new);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.account;
+
+import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
+import de.adorsys.ledgers.middleware.api.domain.account.TransactionTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionListServiceTest {
+    private static final String CONSENT_ID = "c966f143-f6a2-41db-9036-8abaeeef3af7";
+    private static final String RESOURCE_ID = "11111-999999999";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String OTHER_ACCESS_TOKEN = "other_access_token";
+    private static final LocalDate JANUARY_FIRST = LocalDate.of(2019, 1, 1);
+    private static final LocalDate JANUARY_LAST = LocalDate.of(2019, 1, 31);
+    private static final LocalDate FEBRUARY_FIRST = LocalDate.of(2019, 2, 1);
+    private static final LocalDate MARCH_THIRD = LocalDate.of(2019, 3, 3);
+    private static final LocalDate MARCH_FOURTH = LocalDate.of(2019, 3, 4);
+    private static final LocalDate MARCH_TENTH = LocalDate.of(2019, 3, 10);
+    private static final Function<List<TransactionTO>, List<String>> TRANSACTION_IDS = transactions -> transactions.stream()
+                                                                                                              .map(TransactionTO::getTransactionId)
+                                                                                                              .collect(Collectors.toList());
+
+    @Mock
+    private AccountRestClient accountRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+
+    private LedgersCallExecutor ledgersCallExecutor;
+    private TransactionListService transactionListService;
+
+    @BeforeEach
+    void setUp() {
+        ledgersCallExecutor = new LedgersCallExecutor(authRequestInterceptor, 2, 100);
+        transactionListService = new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 31, 0, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgersCallExecutor.destroy();
+    }
+
+    @Test
+    void getTransactions_shortPeriod_shouldRequestPeriodAtOnce() {
+        // Given
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("2", JANUARY_LAST), transaction("1", JANUARY_FIRST))));
+
+        // When
+        List<String> transactionIds = getTransactions(JANUARY_FIRST, JANUARY_LAST);
+
+        // Then
+        assertEquals(Arrays.asList("1", "2"), transactionIds);
+        verify(accountRestClient, times(1)).getTransactionByDates(any(), any(), any());
+        verify(authRequestInterceptor, never()).getAccessToken();
+    }
+
+    @Test
+    void getTransactions_longPeriod_shouldMergeWindowsInBookingOrder() {
+        // Given
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("2", JANUARY_LAST), transaction("1", JANUARY_FIRST))));
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, FEBRUARY_FIRST, MARCH_THIRD))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("3", FEBRUARY_FIRST), transaction("2", JANUARY_LAST))));
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, MARCH_FOURTH, MARCH_TENTH))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("4", MARCH_TENTH))));
+
+        // When
+        List<String> transactionIds = getTransactions(JANUARY_FIRST, MARCH_TENTH);
+
+        // Then
+        assertEquals(Arrays.asList("1", "2", "3", "4"), transactionIds);
+        verify(accountRestClient, times(3)).getTransactionByDates(any(), any(), any());
+    }
+
+    @Test
+    void getTransactions_windowFails_shouldThrowLedgersException() {
+        // Given
+        when(accountRestClient.getTransactionByDates(eq(RESOURCE_ID), any(), any()))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Account not found"));
+
+        // Then
+        assertThrows(FeignException.class, () -> getTransactions(JANUARY_FIRST, MARCH_TENTH));
+    }
+
+    @Test
+    void getTransactions_windowsDisabled_shouldRequestPeriodAtOnce() {
+        // Given
+        transactionListService = new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 0, 0, 0);
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, MARCH_TENTH))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("1", JANUARY_FIRST))));
+
+        // When
+        List<String> transactionIds = getTransactions(JANUARY_FIRST, MARCH_TENTH);
+
+        // Then
+        assertEquals(Collections.singletonList("1"), transactionIds);
+    }
+
+    @Test
+    void getTransactions_cached_shouldRequestBookingsAfterWatermarkOnly() {
+        // Given
+        transactionListService = new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 31, 1000, 60_000);
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, yesterday, today))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("1", yesterday), transaction("2", today))));
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, today, today))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("2", today), transaction("3", today))));
+
+        // When
+        List<String> first = getTransactions(yesterday, today);
+        List<String> second = getTransactions(yesterday, today);
+
+        // Then
+        assertEquals(Arrays.asList("1", "2"), first);
+        assertEquals(Arrays.asList("1", "2", "3"), second);
+        verify(accountRestClient, times(2)).getTransactionByDates(any(), any(), any());
+    }
+
+    @Test
+    void getTransactions_cachedCompletedPeriod_shouldNotRequestLedgers() {
+        // Given
+        transactionListService = new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 31, 1000, 60_000);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("1", JANUARY_FIRST), transaction("2", JANUARY_LAST))));
+
+        // When
+        getTransactions(JANUARY_FIRST, JANUARY_LAST);
+        List<String> transactionIds = getTransactions(JANUARY_LAST, JANUARY_LAST);
+
+        // Then
+        assertEquals(Collections.singletonList("2"), transactionIds);
+        verify(accountRestClient, times(1)).getTransactionByDates(any(), any(), any());
+    }
+
+    @Test
+    void getTransactions_cachedWithOtherToken_shouldRequestLedgers() {
+        // Given
+        transactionListService = new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 31, 1000, 60_000);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN, OTHER_ACCESS_TOKEN);
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("1", JANUARY_FIRST))));
+
+        // When
+        getTransactions(JANUARY_FIRST, JANUARY_LAST);
+        List<String> transactionIds = getTransactions(JANUARY_FIRST, JANUARY_LAST);
+
+        // Then
+        assertEquals(Collections.singletonList("1"), transactionIds);
+        verify(accountRestClient, times(2)).getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST);
+    }
+
+    @Test
+    void getTransactions_unknownEntryReferenceFrom_shouldThrowBadRequest() {
+        // Given
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("1", JANUARY_FIRST))));
+        when(accountRestClient.getTransactionById(RESOURCE_ID, "unknown"))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.NOT_FOUND, "Transaction not found"));
+
+        // When
+        FeignException exception = assertThrows(FeignException.class,
+                                                () -> transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST,
+                                                                                             "unknown", false, TRANSACTION_IDS));
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST.value(), exception.status());
+    }
+
+    @Test
+    void getTransactions_entryReferenceFrom_shouldReturnLaterTransactions() {
+        // Given
+        TransactionTO first = transaction("1", JANUARY_FIRST);
+        first.setEntryReference("entry-1");
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(first, transaction("2", JANUARY_LAST))));
+
+        // When
+        List<String> transactionIds = transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST,
+                                                                             "entry-1", false, TRANSACTION_IDS);
+
+        // Then
+        assertEquals(Collections.singletonList("2"), transactionIds);
+    }
+
+    @Test
+    void getTransactions_entryReferenceFromBeforePeriod_shouldReturnWholePeriod() {
+        // Given
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, FEBRUARY_FIRST, MARCH_THIRD))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("2", FEBRUARY_FIRST))));
+        when(accountRestClient.getTransactionById(RESOURCE_ID, "1")).thenReturn(ResponseEntity.ok(transaction("1", JANUARY_FIRST)));
+
+        // When
+        List<String> transactionIds = transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, FEBRUARY_FIRST, MARCH_THIRD,
+                                                                             "1", false, TRANSACTION_IDS);
+
+        // Then
+        assertEquals(Collections.singletonList("2"), transactionIds);
+    }
+
+    @Test
+    void getTransactions_cachedEntryReferenceFromBeforePeriod_shouldReturnWholePeriod() {
+        // Given
+        transactionListService = new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 31, 1000, 60_000);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("1", JANUARY_FIRST))));
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, FEBRUARY_FIRST, MARCH_THIRD))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("2", FEBRUARY_FIRST))));
+        when(accountRestClient.getTransactionById(RESOURCE_ID, "1")).thenReturn(ResponseEntity.ok(transaction("1", JANUARY_FIRST)));
+        getTransactions(JANUARY_FIRST, JANUARY_LAST);
+
+        // When
+        List<String> transactionIds = transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, FEBRUARY_FIRST, MARCH_THIRD,
+                                                                             "1", false, TRANSACTION_IDS);
+
+        // Then
+        assertEquals(Collections.singletonList("2"), transactionIds);
+        verify(accountRestClient).getTransactionById(RESOURCE_ID, "1");
+    }
+
+    @Test
+    void getTransactions_deltaList_shouldReturnTransactionsAfterLastReport() {
+        // Given
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST))
+                .thenReturn(ResponseEntity.ok(Collections.singletonList(transaction("1", JANUARY_FIRST))))
+                .thenReturn(ResponseEntity.ok(Arrays.asList(transaction("1", JANUARY_FIRST), transaction("2", JANUARY_LAST))));
+
+        // When
+        List<String> first = transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST,
+                                                                    null, true, TRANSACTION_IDS);
+        List<String> second = transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, JANUARY_FIRST, JANUARY_LAST,
+                                                                     null, true, TRANSACTION_IDS);
+
+        // Then
+        assertEquals(Collections.singletonList("1"), first);
+        assertEquals(Collections.singletonList("2"), second);
+    }
+
+    private List<String> getTransactions(LocalDate dateFrom, LocalDate dateTo) {
+        return transactionListService.getTransactions(CONSENT_ID, RESOURCE_ID, dateFrom, dateTo, null, false, TRANSACTION_IDS);
+    }
+
+    private TransactionTO transaction(String transactionId, LocalDate bookingDate) {
+        TransactionTO transaction = new TransactionTO();
+        transaction.setTransactionId(transactionId);
+        transaction.setBookingDate(bookingDate);
+        return transaction;
+    }
+}
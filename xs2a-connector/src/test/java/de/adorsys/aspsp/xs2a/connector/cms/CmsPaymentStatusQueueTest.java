@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.cms;
+
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CmsPaymentStatusQueueTest {
+    private static final String PAYMENT_ID = "payment id";
+    private static final String OTHER_PAYMENT_ID = "other payment id";
+    private static final String INSTANCE_ID = "UNDEFINED";
+    private static final long FLUSH_INTERVAL = 60_000;
+
+    @Mock
+    private CmsPsuPisClient cmsPsuPisClient;
+    @TempDir
+    Path tempDir;
+
+    private CmsPaymentStatusQueue queue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.destroy();
+    }
+
+    @Test
+    void updatePaymentStatus_synchronousMode_shouldWriteImmediately() {
+        // Given
+        queue = queue(false, 10, "");
+
+        // When
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+
+        // Then
+        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    @Test
+    void flush_shouldWriteLatestStatusOfPayment() {
+        // Given
+        queue = queue(true, 10, "");
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        verifyNoInteractions(cmsPsuPisClient);
+
+        // When
+        queue.flush();
+
+        // Then
+        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        verifyNoMoreInteractions(cmsPsuPisClient);
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    @Test
+    void updatePaymentStatus_queueFull_shouldWriteSynchronously() {
+        // Given
+        queue = queue(true, 1, "");
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+
+        // When
+        queue.updatePaymentStatus(OTHER_PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+
+        // Then
+        verify(cmsPsuPisClient).updatePaymentStatus(OTHER_PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+        assertEquals(1, queue.getQueueDepth());
+    }
+
+    @Test
+    void flush_failedWrite_shouldRetryLater() {
+        // Given
+        queue = queue(true, 10, "");
+        doThrow(new IllegalStateException("CMS is not available"))
+                .when(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+
+        // When
+        queue.flush();
+        queue.flush();
+
+        // Then
+        verify(cmsPsuPisClient, times(1)).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        assertEquals(1, queue.getQueueDepth());
+    }
+
+    @Test
+    void discardPaymentStatus_shouldNotWriteQueuedStatus() {
+        // Given
+        queue = queue(true, 10, "");
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+
+        // When
+        queue.discardPaymentStatus(PAYMENT_ID);
+        queue.flush();
+
+        // Then
+        verifyNoInteractions(cmsPsuPisClient);
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    @Test
+    void discardPaymentStatus_duringFailedWrite_shouldNotRetry() {
+        // Given
+        queue = queue(true, 10, "");
+        doAnswer(invocation -> {
+            queue.discardPaymentStatus(PAYMENT_ID);
+            throw new IllegalStateException("CMS is not available");
+        }).when(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+
+        // When
+        queue.flush();
+
+        // Then
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    @Test
+    void destroy_shouldWriteAllBatches() throws InterruptedException {
+        // Given
+        queue = new CmsPaymentStatusQueue(cmsPsuPisClient, true, 10, 1, FLUSH_INTERVAL, 60_000, 10, "");
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        queue.updatePaymentStatus(OTHER_PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+
+        // When
+        queue.destroy();
+
+        // Then
+        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        verify(cmsPsuPisClient).updatePaymentStatus(OTHER_PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+        assertEquals(0, queue.getQueueDepth());
+    }
+
+    @Test
+    void journal_shouldReplayUndeliveredStatusesAfterRestart() throws InterruptedException {
+        // Given
+        String journal = tempDir.resolve("journal/payment-status").toString();
+        queue = queue(true, 10, journal);
+        queue.updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        queue.updatePaymentStatus(OTHER_PAYMENT_ID, TransactionStatus.ACCP, null);
+        doThrow(new IllegalStateException("CMS is not available"))
+                .when(cmsPsuPisClient).updatePaymentStatus(OTHER_PAYMENT_ID, TransactionStatus.ACCP, null);
+        queue.flush();
+        queue.destroy();
+
+        // When
+        queue = queue(true, 10, journal);
+
+        // Then
+        assertEquals(1, queue.getQueueDepth());
+        queue.flush();
+        verify(cmsPsuPisClient, times(1)).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+    }
+
+    private CmsPaymentStatusQueue queue(boolean async, int capacity, String journalPath) {
+        return new CmsPaymentStatusQueue(cmsPsuPisClient, async, capacity, 100, FLUSH_INTERVAL, 60_000, 10, journalPath);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import de.adorsys.ledgers.middleware.rest.utils.Constants;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import feign.RequestTemplate;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessTokenResetFilterTest {
+    private static final String ACCESS_TOKEN = "psu_access_token";
+
+    private final AuthRequestInterceptor authRequestInterceptor = new AuthRequestInterceptor();
+    private final AccessTokenResetFilter accessTokenResetFilter = new AccessTokenResetFilter(authRequestInterceptor);
+
+    @Test
+    void doFilter_tokenNotCleared_shouldNotBeSentWithNextRequest() throws ServletException, IOException {
+        // Given
+        FilterChain leakingChain = (request, response) -> authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+        AtomicReference<Collection<String>> nextRequestHeader = new AtomicReference<>();
+        FilterChain nextChain = (request, response) -> nextRequestHeader.set(authorisationHeader());
+
+        // When
+        accessTokenResetFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), leakingChain);
+        accessTokenResetFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), nextChain);
+
+        // Then
+        assertNull(nextRequestHeader.get());
+        assertNull(authRequestInterceptor.getAccessToken());
+    }
+
+    @Test
+    void doFilter_failingRequest_shouldClearToken() {
+        // Given
+        FilterChain failingChain = (request, response) -> {
+            authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+            throw new IllegalStateException("SPI failed");
+        };
+
+        // When
+        assertThrows(IllegalStateException.class,
+                     () -> accessTokenResetFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), failingChain));
+
+        // Then
+        assertNull(authorisationHeader());
+    }
+
+    @Test
+    void doFilter_tokenBoundOutsideRequest_shouldBeClearedBeforeRequest() throws ServletException, IOException {
+        // Given
+        authRequestInterceptor.setAccessToken(ACCESS_TOKEN);
+        AtomicReference<String> tokenDuringRequest = new AtomicReference<>(ACCESS_TOKEN);
+
+        // When
+        accessTokenResetFilter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                                        (request, response) -> tokenDuringRequest.set(authRequestInterceptor.getAccessToken()));
+
+        // Then
+        assertNull(tokenDuringRequest.get());
+    }
+
+    private Collection<String> authorisationHeader() {
+        RequestTemplate template = new RequestTemplate();
+        authRequestInterceptor.apply(template);
+        return template.headers().get(Constants.AUTH_HEADER_NAME);
+    }
+}
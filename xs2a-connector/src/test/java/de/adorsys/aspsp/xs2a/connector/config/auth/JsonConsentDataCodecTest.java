@@ -0,0 +1,93 @@
+package de.adorsys.aspsp.xs2a.connector.config.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonConsentDataCodecTest {
+    private static final String CONSENT_RESPONSE_JSON = "json/config/auth/sca-consent-response.json";
+
+    private final ObjectMapper mapper = new JacksonConfig().objectMapper();
+    private final JsonConsentDataCodec jsonConsentDataCodec = new JsonConsentDataCodec(mapper);
+    private final JsonReader jsonReader = new JsonReader();
+
+    @Test
+    void objectType() throws IOException {
+        assertEquals("test1", jsonConsentDataCodec.objectType(mapper.readTree("{\"objectType\": \"test1\"}")));
+        assertNull(jsonConsentDataCodec.objectType(new TextNode("")));
+        assertNull(jsonConsentDataCodec.objectType(new TextNode("{}")));
+        assertNull(jsonConsentDataCodec.objectType(new TextNode(null)));
+    }
+
+    @Test
+    void decode_unwrappedRoot_shouldMatchTreeBinding() throws IOException {
+        // Given
+        String json = jsonReader.getStringFromFile(CONSENT_RESPONSE_JSON);
+
+        // When
+        SCAResponseTO actual = jsonConsentDataCodec.decode(json.getBytes());
+
+        // Then
+        assertTrue(actual instanceof SCAConsentResponseTO);
+        assertEquals(mapper.writeValueAsString(readTree(json)), mapper.writeValueAsString(actual));
+    }
+
+    @Test
+    void decode_wrappedRoot_shouldMatchUnwrappedRoot() throws IOException {
+        // Given
+        String json = jsonReader.getStringFromFile(CONSENT_RESPONSE_JSON);
+        String wrappedJson = "{\"SCAConsentResponseTO\": " + json + "}";
+
+        // When
+        SCAResponseTO actual = jsonConsentDataCodec.decode(wrappedJson.getBytes());
+
+        // Then
+        assertTrue(actual instanceof SCAConsentResponseTO);
+        assertEquals(mapper.writeValueAsString(jsonConsentDataCodec.decode(json.getBytes())), mapper.writeValueAsString(actual));
+        assertEquals(mapper.writeValueAsString(readTree(wrappedJson)), mapper.writeValueAsString(actual));
+    }
+
+    @Test
+    void decode_wrappedRootWithClass_shouldMatchUnwrappedRoot() throws IOException {
+        // Given
+        String json = jsonReader.getStringFromFile(CONSENT_RESPONSE_JSON);
+        String wrappedJson = "{\"SCAConsentResponseTO\": " + json + "}";
+
+        // When
+        SCAConsentResponseTO actual = jsonConsentDataCodec.decode(wrappedJson.getBytes(), SCAConsentResponseTO.class);
+
+        // Then
+        assertEquals(mapper.writeValueAsString(jsonConsentDataCodec.decode(json.getBytes(), SCAConsentResponseTO.class)),
+                     mapper.writeValueAsString(actual));
+    }
+
+    @Test
+    void decode_singleObjectTypeField_shouldThrowException() {
+        assertThrows(IOException.class, () -> jsonConsentDataCodec.decode("{\"objectType\": \"SCAConsentResponseTO\"}".getBytes()));
+    }
+
+    @Test
+    void decode_unknownObjectType_shouldThrowException() {
+        assertThrows(IOException.class, () -> jsonConsentDataCodec.decode("{\"objectType\": \"Unknown\", \"scaStatus\": \"exempted\"}".getBytes()));
+    }
+
+    /**
+     * The former decoding: the consent data is read into a tree and bound from there.
+     */
+    private SCAResponseTO readTree(String json) throws IOException {
+        JsonNode jsonNode = mapper.readTree(json);
+        if (jsonNode.size() == 1) {
+            jsonNode = jsonNode.iterator().next();
+        }
+        return mapper.readValue(mapper.treeAsTokens(jsonNode), SCAConsentResponseTO.class);
+    }
+}
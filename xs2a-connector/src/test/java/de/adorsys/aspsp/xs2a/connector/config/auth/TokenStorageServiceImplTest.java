@@ -1,7 +1,6 @@
 package de.adorsys.aspsp.xs2a.connector.config.auth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.TextNode;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.aspsp.xs2a.util.TestConfiguration;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
@@ -55,10 +54,39 @@ class TokenStorageServiceImplTest {
     }
 
     @Test
-    void objectType() throws IOException {
-        assertEquals("test1", tokenStorageService.objectType(mapper.readTree("{\"objectType\": \"test1\"}")));
-        assertNull(tokenStorageService.objectType(new TextNode("")));
-        assertNull(tokenStorageService.objectType(new TextNode("{}")));
-        assertNull(tokenStorageService.objectType(new TextNode(null)));
+    void fromBytes_legacyJsonAndBinary_shouldBeEqual() throws IOException {
+        byte[] jsonBytes = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json").getBytes();
+        SCAResponseTO fromJson = tokenStorageService.fromBytes(jsonBytes);
+        TokenStorageServiceImpl binaryStorageService = new TokenStorageServiceImpl(mapper, "binary");
+
+        byte[] binaryBytes = binaryStorageService.toBytes(fromJson);
+        SCAResponseTO fromBinary = tokenStorageService.fromBytes(binaryBytes);
+
+        assertEquals(BinaryConsentDataCodec.FORMAT_MARKER, binaryBytes[0]);
+        assertTrue(binaryBytes.length < jsonBytes.length);
+        assertTrue(fromBinary instanceof SCAConsentResponseTO);
+        assertEquals(mapper.writeValueAsString(fromJson), mapper.writeValueAsString(fromBinary));
+        assertEquals(mapper.writeValueAsString(fromJson),
+                     mapper.writeValueAsString(binaryStorageService.fromBytes(jsonBytes, SCAConsentResponseTO.class)));
+    }
+
+    @Test
+    void toBytes_defaultFormat_shouldWriteJson() throws IOException {
+        byte[] jsonBytes = jsonReader.getStringFromFile("json/config/auth/sca-consent-response.json").getBytes();
+        SCAResponseTO scaResponseTO = tokenStorageService.fromBytes(jsonBytes);
+
+        byte[] actual = tokenStorageService.toBytes(scaResponseTO);
+
+        assertEquals('{', actual[0]);
+    }
+
+    @Test
+    void fromBytes_unsupportedBinaryVersion_shouldThrowException() {
+        assertThrows(IOException.class, () -> tokenStorageService.fromBytes(new byte[]{BinaryConsentDataCodec.FORMAT_MARKER, 99, 1, 0}));
+    }
+
+    @Test
+    void fromBytes_unknownBinaryTypeTag_shouldThrowException() {
+        assertThrows(IOException.class, () -> tokenStorageService.fromBytes(new byte[]{BinaryConsentDataCodec.FORMAT_MARKER, BinaryConsentDataCodec.FORMAT_VERSION, 42, 0}));
     }
 }
\ No newline at end of file
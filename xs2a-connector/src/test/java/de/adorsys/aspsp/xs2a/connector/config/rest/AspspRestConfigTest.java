@@ -0,0 +1,66 @@
+package de.adorsys.aspsp.xs2a.connector.config.rest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AspspRestConfigTest {
+    private final AspspRestConfig aspspRestConfig = new AspspRestConfig(1000, 2000, 3000, 20, 5, 30000, 30000);
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        connectionManager = aspspRestConfig.aspspHttpClientConnectionManager();
+        httpClient = aspspRestConfig.aspspHttpClient(connectionManager);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+    }
+
+    @Test
+    void restTemplate_shouldUsePooledHttpClient() {
+        // When
+        RestTemplate restTemplate = aspspRestConfig.restTemplate(httpClient);
+
+        // Then
+        assertTrue(restTemplate.getRequestFactory() instanceof HttpComponentsClientHttpRequestFactory);
+        assertTrue(restTemplate.getErrorHandler() instanceof AspspRestErrorHandler);
+        assertTrue(restTemplate.getMessageConverters().stream()
+                           .noneMatch(MappingJackson2XmlHttpMessageConverter.class::isInstance));
+    }
+
+    @Test
+    void aspspHttpClientConnectionManager_shouldApplyPoolLimits() {
+        // Then
+        assertEquals(20, connectionManager.getMaxTotal());
+        assertEquals(5, connectionManager.getDefaultMaxPerRoute());
+    }
+
+    @Test
+    void aspspHttpClientPoolMetrics_shouldExposePoolState() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // When
+        aspspRestConfig.aspspHttpClientPoolMetrics(connectionManager).bindTo(registry);
+
+        // Then
+        assertEquals(0, registry.get("aspsp.http-client.pool.leased").gauge().value());
+        assertEquals(0, registry.get("aspsp.http-client.pool.pending").gauge().value());
+        assertEquals(0, registry.get("aspsp.http-client.pool.available").gauge().value());
+        assertEquals(20, registry.get("aspsp.http-client.pool.max").gauge().value());
+    }
+}
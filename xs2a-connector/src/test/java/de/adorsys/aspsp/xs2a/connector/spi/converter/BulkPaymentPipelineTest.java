@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.converter;
+
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkPaymentPipelineTest {
+    private final BulkPaymentPipeline bulkPaymentPipeline = new BulkPaymentPipeline(3, 100, 2);
+
+    @AfterEach
+    void tearDown() {
+        bulkPaymentPipeline.destroy();
+    }
+
+    @Test
+    void finish_largeBulk_shouldMapChunksInParallelInOrder() {
+        // Given
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        BulkPaymentPipeline.Batch<Integer, String> batch = bulkPaymentPipeline.newBatch(101, item -> {
+            threadNames.add(Thread.currentThread().getName());
+            return "payment-" + item;
+        }, payment -> null);
+
+        // When
+        IntStream.range(0, 20).forEach(batch::add);
+        List<String> actual = batch.finish();
+
+        // Then
+        assertEquals(IntStream.range(0, 20).mapToObj(i -> "payment-" + i).collect(Collectors.toList()), actual);
+        assertTrue(threadNames.stream().allMatch(name -> name.startsWith("bulk-payment-mapper-")));
+    }
+
+    @Test
+    void finish_smallBulk_shouldMapInCallingThread() {
+        // Given
+        String callingThread = Thread.currentThread().getName();
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        BulkPaymentPipeline.Batch<Integer, Integer> batch = bulkPaymentPipeline.newBatch(100, item -> {
+            threadNames.add(Thread.currentThread().getName());
+            return item * 2;
+        }, payment -> null);
+
+        // When
+        IntStream.range(0, 7).forEach(batch::add);
+        List<Integer> actual = batch.finish();
+
+        // Then
+        assertEquals(List.of(0, 2, 4, 6, 8, 10, 12), actual);
+        assertEquals(Set.of(callingThread), threadNames);
+    }
+
+    @Test
+    void finish_invalidPayments_shouldReportIndices() {
+        // Given
+        BulkPaymentPipeline.Batch<Integer, Integer> batch = bulkPaymentPipeline.newBatch(101, item -> {
+            if (item == 4) {
+                throw new IllegalArgumentException("unsupported currency");
+            }
+            return item;
+        }, payment -> payment % 5 == 0 && payment > 0 ? "amount is not positive" : null);
+
+        // When
+        IntStream.range(0, 11).forEach(batch::add);
+
+        // Then
+        FeignException exception = assertThrows(FeignException.class, batch::finish);
+        assertTrue(exception.getMessage().contains("Bulk payment contains 3 invalid payments"));
+        assertTrue(exception.getMessage().contains("payments[4]: unsupported currency; payments[5]: amount is not positive; payments[10]: amount is not positive"));
+    }
+
+    @Test
+    void newBatch_withoutThreads_shouldMapSequentially() {
+        // Given
+        BulkPaymentPipeline sequentialPipeline = new BulkPaymentPipeline(3, 0, 0);
+        BulkPaymentPipeline.Batch<Integer, Integer> batch = sequentialPipeline.newBatch(1_000, item -> item, payment -> null);
+
+        // When
+        IntStream.range(0, 5).forEach(batch::add);
+
+        // Then
+        assertEquals(List.of(0, 1, 2, 3, 4), batch.finish());
+    }
+}
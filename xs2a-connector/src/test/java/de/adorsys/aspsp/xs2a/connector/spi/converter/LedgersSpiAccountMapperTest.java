@@ -5,6 +5,7 @@ import de.adorsys.ledgers.middleware.api.domain.account.*;
 import de.adorsys.ledgers.middleware.api.domain.payment.AmountTO;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountDetails;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiCardTransaction;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiExchangeRate;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransaction;
 import de.adorsys.psd2.xs2a.spi.domain.common.SpiAmount;
@@ -16,8 +17,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @ExtendWith(SpringExtension.class)
 @ContextConfiguration(classes = {LedgersSpiAccountMapperImpl.class})
@@ -70,6 +76,29 @@ class LedgersSpiAccountMapperTest {
         assertNull(actualResult);
     }
 
+    @Test
+    void toSpiTransactionsWithRealData() {
+        TransactionTO inputData = jsonReader.getObjectFromFile("json/mappers/transaction-to.json", TransactionTO.class);
+        List<SpiTransaction> actualResult = ledgersSpiAccountMapper.toSpiTransactions(Arrays.asList(inputData, inputData));
+        SpiTransaction expectedResult = jsonReader.getObjectFromFile("json/mappers/spi-transaction.json", SpiTransaction.class);
+        assertEquals(Arrays.asList(expectedResult, expectedResult), actualResult);
+        assertSame(actualResult.get(0).getCreditorAccount(), actualResult.get(0).getDebtorAccount());
+        assertSame(actualResult.get(0).getCreditorAccount(), actualResult.get(1).getCreditorAccount());
+    }
+
+    @Test
+    void toSpiTransactionsWithNull() {
+        List<SpiTransaction> actualResult = ledgersSpiAccountMapper.toSpiTransactions(null);
+        assertNull(actualResult);
+    }
+
+    @Test
+    void toSpiCardTransactionsWithRealData() {
+        TransactionTO inputData = jsonReader.getObjectFromFile("json/mappers/transaction-to.json", TransactionTO.class);
+        List<SpiCardTransaction> actualResult = ledgersSpiAccountMapper.toSpiCardTransactions(Collections.singletonList(inputData));
+        assertEquals(Collections.singletonList(ledgersSpiAccountMapper.toSpiCardTransaction(inputData)), actualResult);
+    }
+
     @Test
     void toSpiAccountReferenceWithRealData() {
         AccountReferenceTO inputData = jsonReader.getObjectFromFile("json/mappers/account-reference-to.json", AccountReferenceTO.class);
@@ -19,7 +19,6 @@ package de.adorsys.aspsp.xs2a.connector.spi.converter;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.aspsp.xs2a.util.TestConfiguration;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
-import de.adorsys.ledgers.middleware.client.mappers.PaymentMapperTO;
 import de.adorsys.psd2.mapper.Xs2aObjectMapper;
 import de.adorsys.psd2.xs2a.core.profile.PaymentType;
 import de.adorsys.psd2.xs2a.spi.domain.payment.SpiPaymentInfo;
@@ -38,7 +37,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
 @ExtendWith({MockitoExtension.class, SpringExtension.class})
-@ContextConfiguration(classes = {TestConfiguration.class, LedgersSpiPaymentToMapper.class})
+@ContextConfiguration(classes = {TestConfiguration.class, LedgersSpiPaymentToMapper.class, BulkPaymentPipeline.class})
 class LedgersSpiCommonPaymentTOMapperTest {
     private static final String RAW_PAYMENT_PRODUCT = "pain.001-sepa-credit-transfers";
     private static final String PAYMENT_PRODUCT = "sepa-credit-transfers";
@@ -47,8 +46,7 @@ class LedgersSpiCommonPaymentTOMapperTest {
     private LedgersSpiCommonPaymentTOMapper mapper;
 
     @Spy
-    @Autowired
-    private PaymentMapperTO paymentMapperTO;
+    private RawPaymentReader rawPaymentReader = new RawPaymentReader(10_485_760, 10_000);
 
     @Spy
     @Autowired
@@ -20,16 +20,19 @@ import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
 import de.adorsys.psd2.xs2a.spi.domain.payment.SpiPaymentInfo;
+import feign.FeignException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 @ExtendWith(SpringExtension.class)
-@ContextConfiguration(classes = {LedgersSpiPaymentToMapper.class, JacksonConfig.class})
+@ContextConfiguration(classes = {LedgersSpiPaymentToMapper.class, BulkPaymentPipeline.class, JacksonConfig.class})
 class LedgersSpiPaymentToMapperTest {
     private JsonReader jsonReader = new JsonReader();
 
@@ -62,6 +65,23 @@ class LedgersSpiPaymentToMapperTest {
         assertEquals(expectedResult, actualResult);
     }
 
+    @Test
+    void toPaymentTO_Bulk_invalidPayments_shouldBeReportedWithIndex() {
+        // Given
+        SpiPaymentInfo spiPaymentInfo = jsonReader.getObjectFromFile("json/mappers/bulk-payment-initiation.json", SpiPaymentInfo.class);
+        spiPaymentInfo.setPaymentData(("{\"debtorAccount\":{\"iban\":\"DE52500105173911841934\"},\"payments\":["
+                                               + bulkElement("10.00", true) + ","
+                                               + bulkElement("0", true) + ","
+                                               + bulkElement("10.00", false) + "]}").getBytes(StandardCharsets.UTF_8));
+
+        // When
+        FeignException exception = assertThrows(FeignException.class, () -> ledgersSpiPaymentToMapper.toPaymentTO_Bulk(spiPaymentInfo));
+
+        // Then
+        assertTrue(exception.getMessage().contains("payments[1]: instructed amount is not positive"));
+        assertTrue(exception.getMessage().contains("payments[2]: creditor account is missing"));
+    }
+
     @Test
     void toPaymentTO_Periodic_valid() {
         // Given
@@ -75,4 +95,9 @@ class LedgersSpiPaymentToMapperTest {
         assertEquals(expectedResult, actualResult);
     }
 
+    private String bulkElement(String amount, boolean withCreditorAccount) {
+        return "{\"instructedAmount\":{\"currency\":\"EUR\",\"amount\":\"" + amount + "\"},"
+                       + (withCreditorAccount ? "\"creditorAccount\":{\"iban\":\"DE52500105173911841934\"}," : "")
+                       + "\"creditorName\":\"Telekom\"}";
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.converter;
+
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTargetTO;
+import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTypeTO;
+import de.adorsys.psd2.xs2a.core.profile.PaymentType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawPaymentReaderTest {
+    private static final String PAYMENT_PRODUCT = "pain.001-sepa-credit-transfers";
+    private static final String STANDING_ORDER = "{\"startDate\":\"2023-03-01\",\"frequency\":\"Monthly\"}";
+
+    private final RawPaymentReader reader = new RawPaymentReader(10_000, 2);
+
+    @Test
+    void read_bulkPain001_shouldReadAllTransfers() {
+        // Given
+        byte[] paymentData = pain001(transfer("E2E-1", "10.50") + transfer("E2E-2", "20")).getBytes(StandardCharsets.UTF_8);
+
+        // When
+        RawPaymentReader.RawPayment rawPayment = reader.read(paymentData, PaymentType.BULK, PAYMENT_PRODUCT);
+
+        // Then
+        PaymentTO paymentTO = rawPayment.getPaymentTO();
+        assertEquals(PaymentTypeTO.BULK, paymentTO.getPaymentType());
+        assertEquals(PAYMENT_PRODUCT, paymentTO.getPaymentProduct());
+        assertEquals("DE80760700240271232400", paymentTO.getDebtorAccount().getIban());
+        assertEquals("PSU Name", paymentTO.getDebtorName());
+        assertEquals(LocalDate.of(2017, 2, 15), paymentTO.getRequestedExecutionDate());
+        assertEquals(Boolean.TRUE, paymentTO.getBatchBookingPreferred());
+        assertEquals(2, paymentTO.getTargets().size());
+
+        PaymentTargetTO target = paymentTO.getTargets().get(0);
+        assertEquals("E2E-1", target.getEndToEndIdentification());
+        assertEquals(Currency.getInstance("EUR"), target.getInstructedAmount().getCurrency());
+        assertEquals(new BigDecimal("10.50"), target.getInstructedAmount().getAmount());
+        assertEquals("Merchant & Co", target.getCreditorName());
+        assertEquals("Berlin", target.getCreditorAddress().getCity());
+        assertEquals("AAAADEBBXXX", target.getCreditorAgent());
+        assertEquals("DE15500105172295759744", target.getCreditorAccount().getIban());
+        assertEquals("Invoice E2E-1", target.getRemittanceInformationUnstructured());
+        assertFalse(rawPayment.hasJsonPart());
+    }
+
+    @Test
+    void read_multipartWithCrLf_shouldLocateBothParts() {
+        // Given
+        String body = "--boundary\r\n"
+                              + "Content-Disposition: form-data; name=\"xml_sct\"\r\n"
+                              + "Content-Type: application/xml\r\n\r\n"
+                              + pain001(transfer("E2E-1", "1")) + "\r\n"
+                              + "--boundary\r\n"
+                              + "Content-Disposition: form-data; name=\"json_standingorderType\"\r\n"
+                              + "Content-Type: application/json\r\n\r\n"
+                              + STANDING_ORDER + "\r\n"
+                              + "--boundary--\r\n";
+        byte[] paymentData = body.getBytes(StandardCharsets.UTF_8);
+
+        // When
+        RawPaymentReader.RawPayment rawPayment = reader.read(paymentData, PaymentType.PERIODIC, PAYMENT_PRODUCT);
+
+        // Then
+        assertEquals("E2E-1", rawPayment.getPaymentTO().getTargets().get(0).getEndToEndIdentification());
+        assertTrue(rawPayment.hasJsonPart());
+        assertEquals(STANDING_ORDER, new String(paymentData, rawPayment.getJsonOffset(), rawPayment.getJsonLength(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void read_paymentDataTooLarge_shouldBeRejected() {
+        // Given
+        byte[] paymentData = new byte[10_001];
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> reader.read(paymentData, PaymentType.SINGLE, PAYMENT_PRODUCT));
+    }
+
+    @Test
+    void read_tooManyTransfers_shouldBeRejected() {
+        // Given
+        byte[] paymentData = pain001(transfer("E2E-1", "1") + transfer("E2E-2", "1") + transfer("E2E-3", "1")).getBytes(StandardCharsets.UTF_8);
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> reader.read(paymentData, PaymentType.BULK, PAYMENT_PRODUCT));
+    }
+
+    @Test
+    void read_documentTypeDeclaration_shouldBeRejected() {
+        // Given
+        String document = "<?xml version=\"1.0\"?><!DOCTYPE Document [<!ENTITY xxe SYSTEM \"file:///etc/passwd\">]>"
+                                  + pain001(transfer("&xxe;", "1")).substring("<?xml version=\"1.0\" encoding=\"UTF-8\"?>".length());
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> reader.read(document.getBytes(StandardCharsets.UTF_8), PaymentType.SINGLE, PAYMENT_PRODUCT));
+    }
+
+    @Test
+    void read_multipartWithoutPain001_shouldBeRejected() {
+        // Given
+        byte[] paymentData = ("--boundary\nContent-Type: application/json\n\n" + STANDING_ORDER + "\n--boundary--\n").getBytes(StandardCharsets.UTF_8);
+
+        // Then
+        assertThrows(IllegalArgumentException.class, () -> reader.read(paymentData, PaymentType.PERIODIC, PAYMENT_PRODUCT));
+    }
+
+    private String pain001(String transfers) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                       + "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pain.001.001.03\"><CstmrCdtTrfInitn>"
+                       + "<GrpHdr><MsgId>MSG-1</MsgId><InitgPty><Nm>Initiator</Nm></InitgPty></GrpHdr>"
+                       + "<PmtInf><PmtInfId>PMT-1</PmtInfId><PmtMtd>TRF</PmtMtd><BtchBookg>true</BtchBookg>"
+                       + "<ReqdExctnDt>2017-02-15</ReqdExctnDt><Dbtr><Nm>PSU Name</Nm></Dbtr>"
+                       + "<DbtrAcct><Id><IBAN>DE80760700240271232400</IBAN></Id></DbtrAcct>"
+                       + transfers
+                       + "</PmtInf></CstmrCdtTrfInitn></Document>";
+    }
+
+    private String transfer(String endToEndId, String amount) {
+        return "<CdtTrfTxInf><PmtId><EndToEndId>" + endToEndId + "</EndToEndId></PmtId>"
+                       + "<Amt><InstdAmt Ccy=\"EUR\">" + amount + "</InstdAmt></Amt>"
+                       + "<CdtrAgt><FinInstnId><BIC>AAAADEBBXXX</BIC></FinInstnId></CdtrAgt>"
+                       + "<Cdtr><Nm>Merchant &amp; Co</Nm><PstlAdr><TwnNm>Berlin</TwnNm><Ctry>DE</Ctry></PstlAdr></Cdtr>"
+                       + "<CdtrAcct><Id><IBAN>DE15500105172295759744</IBAN></Id></CdtrAcct>"
+                       + "<RmtInf><Ustrd>Invoice " + endToEndId + "</Ustrd></RmtInf></CdtTrfTxInf>";
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
+import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionExportService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionListService;
+import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.aspsp.xs2a.util.TestSpiDataProvider;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.psd2.xs2a.core.ais.BookingStatus;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountConsent;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransactionReport;
+import de.adorsys.psd2.xs2a.spi.domain.account.SpiTransactionReportParameters;
+import de.adorsys.psd2.xs2a.spi.domain.response.SpiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Requests transactions with balances and records how many Ledgers calls are in flight at once. Each Ledgers call waits
+ * up to {@link #LEDGERS_TIMEOUT_MS} until the expected number of calls has started, so that overlapping calls are
+ * observed regardless of the timing of the executor.
+ */
+@ExtendWith(MockitoExtension.class)
+class AccountSpiImplLatencyTest {
+    private static final long LEDGERS_TIMEOUT_MS = 5000;
+    private static final byte[] BYTES = "data".getBytes();
+    private static final String RESOURCE_ID = "11111-999999999";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final LocalDate DATE_FROM = LocalDate.of(2019, 1, 1);
+    private static final LocalDate DATE_TO = LocalDate.of(2020, 1, 1);
+
+    @Mock
+    private AccountRestClient accountRestClient;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+    @Mock
+    private AspspConsentDataService tokenService;
+    @Mock
+    private FeignExceptionReader feignExceptionReader;
+    @Mock
+    private IbanResolverMockService ibanResolverMockService;
+    @Mock
+    private OwnerNameService ownerNameService;
+    @Mock
+    private AccountListService accountListService;
+    @Mock
+    private TransactionExportService transactionExportService;
+    @Mock
+    private SpiAspspConsentDataProvider aspspConsentDataProvider;
+
+    private LedgersCallExecutor ledgersCallExecutor;
+    private AccountSpiImpl accountSpi;
+    private JsonReader jsonReader = new JsonReader();
+    private SpiAccountConsent spiAccountConsent;
+    private SpiAccountReference accountReference;
+    private AtomicReference<String> balancesThread = new AtomicReference<>();
+    private AtomicInteger callsInFlight = new AtomicInteger();
+    private AtomicInteger maxCallsInFlight = new AtomicInteger();
+    private CountDownLatch startedCalls;
+
+    @BeforeEach
+    void setUp() {
+        ledgersCallExecutor = new LedgersCallExecutor(authRequestInterceptor, 2, 100);
+        spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent.json", SpiAccountConsent.class);
+        accountReference = jsonReader.getObjectFromFile("json/spi/impl/account-reference.json", SpiAccountReference.class);
+
+        SCAConsentResponseTO scaResponse = new SCAConsentResponseTO();
+        BearerTokenTO bearerToken = new BearerTokenTO();
+        bearerToken.setAccess_token(ACCESS_TOKEN);
+        scaResponse.setBearerToken(bearerToken);
+        when(aspspConsentDataProvider.loadAspspConsentData()).thenReturn(BYTES);
+        when(tokenService.response(BYTES)).thenReturn(scaResponse);
+        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenAnswer(invocation -> ledgersCall());
+        when(accountRestClient.getBalances(RESOURCE_ID)).thenAnswer(invocation -> {
+            balancesThread.set(Thread.currentThread().getName());
+            return ledgersCall();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgersCallExecutor.destroy();
+    }
+
+    @Test
+    void requestTransactionsForAccount_parallelBalances_shouldOverlapCalls() {
+        // Given
+        createAccountSpi(true);
+        startedCalls = new CountDownLatch(2);
+        when(authRequestInterceptor.getAccessToken()).thenReturn(ACCESS_TOKEN);
+
+        // When
+        SpiResponse<SpiTransactionReport> actualResponse = requestTransactions();
+
+        // Then
+        assertTrue(actualResponse.isSuccessful());
+        assertNotNull(actualResponse.getPayload().getBalances());
+        assertEquals(2, maxCallsInFlight.get());
+        assertNotEquals(Thread.currentThread().getName(), balancesThread.get());
+        verify(authRequestInterceptor, times(2)).setAccessToken(ACCESS_TOKEN);
+        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(tokenService, times(1)).response(BYTES);
+        verify(tokenService, times(1)).updateAspspConsentData(any(), any(), any());
+    }
+
+    @Test
+    void requestTransactionsForAccount_sequentialBalances_shouldNotOverlapCalls() {
+        // Given
+        createAccountSpi(false);
+        startedCalls = new CountDownLatch(1);
+
+        // When
+        SpiResponse<SpiTransactionReport> actualResponse = requestTransactions();
+
+        // Then
+        assertTrue(actualResponse.isSuccessful());
+        assertNotNull(actualResponse.getPayload().getBalances());
+        assertEquals(1, maxCallsInFlight.get());
+        assertEquals(Thread.currentThread().getName(), balancesThread.get());
+        verify(tokenService, times(1)).response(BYTES);
+        verify(tokenService, times(1)).updateAspspConsentData(any(), any(), any());
+    }
+
+    private void createAccountSpi(boolean parallelBalances) {
+        accountSpi = new AccountSpiImpl(accountRestClient, new LedgersSpiAccountMapperImpl(), authRequestInterceptor, tokenService,
+                                        feignExceptionReader, ibanResolverMockService, ownerNameService, accountListService,
+                                        ledgersCallExecutor, transactionExportService,
+                                        new TransactionListService(accountRestClient, authRequestInterceptor, ledgersCallExecutor, 366, 0, 0),
+                                        parallelBalances);
+    }
+
+    private ResponseEntity<List<Object>> ledgersCall() throws InterruptedException {
+        maxCallsInFlight.accumulateAndGet(callsInFlight.incrementAndGet(), Math::max);
+        startedCalls.countDown();
+        try {
+            assertTrue(startedCalls.await(LEDGERS_TIMEOUT_MS, TimeUnit.MILLISECONDS), "Ledgers calls did not overlap");
+            return ResponseEntity.ok(Collections.emptyList());
+        } finally {
+            callsInFlight.decrementAndGet();
+        }
+    }
+
+    private SpiResponse<SpiTransactionReport> requestTransactions() {
+        SpiTransactionReportParameters parameters = new SpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE, true, DATE_FROM, DATE_TO,
+                                                                                        BookingStatus.BOOKED, null, null);
+        return accountSpi.requestTransactionsForAccount(TestSpiDataProvider.getSpiContextData(), parameters, accountReference,
+                                                        spiAccountConsent, aspspConsentDataProvider);
+    }
+}
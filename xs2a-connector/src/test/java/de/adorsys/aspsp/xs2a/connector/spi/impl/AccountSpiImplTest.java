@@ -1,7 +1,13 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionListService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionExportService;
+import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
@@ -18,6 +24,8 @@ import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.psd2.xs2a.core.ais.BookingStatus;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
+import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
+import de.adorsys.psd2.xs2a.core.error.TppMessage;
 import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
 import de.adorsys.psd2.xs2a.spi.domain.SpiContextData;
 import de.adorsys.psd2.xs2a.spi.domain.account.*;
@@ -29,7 +37,6 @@ import feign.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -38,12 +45,13 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import javax.validation.constraints.NotNull;
-import java.lang.reflect.Field;
+import java.io.ByteArrayInputStream;
 import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Currency;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -73,7 +81,6 @@ class AccountSpiImplTest {
     private static final String IBAN_SECOND_ACCOUNT = "DE32760700240271232100";
     private static final Currency CURRENCY_EUR = Currency.getInstance("EUR");
 
-    @InjectMocks
     private AccountSpiImpl accountSpi;
 
     @Mock
@@ -92,6 +99,16 @@ class AccountSpiImplTest {
     private FeignExceptionReader feignExceptionReader;
     @Mock
     private OwnerNameService ownerNameService;
+    @Mock
+    private AccountListService accountListService;
+    @Mock
+    private LedgersCallExecutor ledgersCallExecutor;
+    @Mock
+    private TransactionListService transactionListService;
+    @Mock
+    private IbanResolverMockService ibanResolverMockService;
+    @Mock
+    private TransactionExportService transactionExportService;
 
     private JsonReader jsonReader = new JsonReader();
     private SpiAccountConsent spiAccountConsent;
@@ -103,6 +120,9 @@ class AccountSpiImplTest {
 
     @BeforeEach
     void setUp() {
+        accountSpi = new AccountSpiImpl(accountRestClient, accountMapper, authRequestInterceptor, tokenService, feignExceptionReader,
+                                        ibanResolverMockService, ownerNameService, accountListService, ledgersCallExecutor,
+                                        transactionExportService, transactionListService, false);
         spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent.json", SpiAccountConsent.class);
         spiAccountConsentWithOwnerName = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-with-owner-name.json", SpiAccountConsent.class);
         spiAccountConsentGlobal = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-global.json", SpiAccountConsent.class);
@@ -127,18 +147,17 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
         verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_XML_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -149,18 +168,17 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(null),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
         verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -171,18 +189,17 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters("*/*"),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
         verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -193,23 +210,22 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
-        when(tokenService.store(scaResponseTO)).thenThrow(getFeignException());
+        doThrow(getFeignException()).when(tokenService).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
 
         SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                     accountReference, spiAccountConsent, aspspConsentDataProvider);
 
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
-        verify(aspspConsentDataProvider, times(2)).loadAspspConsentData();
-        verify(tokenService, times(2)).response(BYTES);
-        verify(authRequestInterceptor, times(2)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(tokenService, times(1)).response(BYTES);
+        verify(authRequestInterceptor, times(1)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
+        verify(tokenService, times(1)).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -218,12 +234,11 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
                                                                                             spiAccountConsent, aspspConsentDataProvider);
@@ -239,12 +254,11 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, true,
                                                                                             spiAccountConsent, aspspConsentDataProvider);
@@ -260,10 +274,9 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(accountDetails_1)));
+        when(accountListService.getListOfAccounts()).thenReturn(Collections.singletonList(accountDetails_1));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, true,
                                                                                             spiAccountConsentWithOwnerName, aspspConsentDataProvider);
@@ -283,9 +296,8 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(accountDetailsTO)));
+        when(accountListService.getListOfAccounts()).thenReturn(Collections.singletonList(accountDetailsTO));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, true,
                                                                                             spiAccountConsentGlobal, aspspConsentDataProvider);
@@ -315,12 +327,11 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-no-currency.json", SpiAccountConsent.class);
 
@@ -340,12 +351,11 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
                                                                                             spiAccountConsent, aspspConsentDataProvider);
@@ -367,16 +377,14 @@ class AccountSpiImplTest {
         List<AccountDetailsTO> accountDetailsTOList = accountAccess.getAccounts().stream()
                                                               .map(account -> buildAccountDetailsTO(account.getIban(), account.getResourceId()))
                                                               .collect(Collectors.toList());
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
+        when(accountListService.getListOfAccounts()).thenReturn(accountDetailsTOList);
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess))).thenReturn(true);
         SpiAccountDetails spiAccountDetailsSecondAccount = buildSpiAccountDetails(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsSecondAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT, ACCOUNT_OWNER_NAME_SECOND_ACCOUNT));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess))).thenReturn(true);
+        when(ownerNameService.enrichAccountDetailsListWithOwnerName(Arrays.asList(spiAccountDetailsFirstAccount, spiAccountDetailsSecondAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME, ACCOUNT_OWNER_NAME_SECOND_ACCOUNT));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -401,11 +409,11 @@ class AccountSpiImplTest {
         List<AccountDetailsTO> accountDetailsTOList = accounts.stream()
                                                               .map(account -> buildAccountDetailsTO(account.getIban(), account.getResourceId()))
                                                               .collect(Collectors.toList());
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
+        when(accountListService.getListOfAccounts()).thenReturn(accountDetailsTOList);
 
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(false);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(false);
 
         //When
@@ -417,7 +425,7 @@ class AccountSpiImplTest {
         assertNotNull(spiAccountDetails);
         assertNull(spiAccountDetails.get(0).getOwnerName());
         assertNull(spiAccountDetails.get(1).getOwnerName());
-        verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).enrichAccountDetailsListWithOwnerName(any());
     }
 
     @Test
@@ -433,16 +441,15 @@ class AccountSpiImplTest {
         List<AccountDetailsTO> accountDetailsTOList = accountAccess.getAccounts().stream()
                                                               .map(account -> buildAccountDetailsTO(account.getIban(), account.getResourceId()))
                                                               .collect(Collectors.toList());
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(accountDetailsTOList));
+        when(accountListService.getListOfAccounts()).thenReturn(accountDetailsTOList);
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
-        SpiAccountDetails spiAccountDetailsSecondAccount = buildSpiAccountDetails(IBAN_SECOND_ACCOUNT, RESOURCE_ID_SECOND_ACCOUNT);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_SECOND_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(false);
+        when(ownerNameService.enrichAccountDetailsListWithOwnerName(Collections.singletonList(spiAccountDetailsFirstAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -453,21 +460,20 @@ class AccountSpiImplTest {
         assertNotNull(spiAccountDetails);
         assertNotNull(spiAccountDetails.get(0).getOwnerName());
         assertNull(spiAccountDetails.get(1).getOwnerName());
-        verify(ownerNameService, never()).enrichAccountDetailsWithOwnerName(spiAccountDetailsSecondAccount);
     }
 
     @Test
     void requestAccountList_availableAccountsConsent_withOwnerName() {
         //Given
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
+        when(accountListService.getListOfAccounts()).thenReturn(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-available-accounts-owner-name.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.enrichAccountDetailsListWithOwnerName(Collections.singletonList(spiAccountDetailsFirstAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -482,15 +488,15 @@ class AccountSpiImplTest {
     @Test
     void requestAccountList_availableAccountsWithBalanceConsent_withOwnerName() {
         //Given
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
+        when(accountListService.getListOfAccounts()).thenReturn(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-available-accounts-balance-owner-name.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.enrichAccountDetailsListWithOwnerName(Collections.singletonList(spiAccountDetailsFirstAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -505,15 +511,15 @@ class AccountSpiImplTest {
     @Test
     void requestAccountList_globalConsent_withOwnerName() {
         //Given
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID))));
+        when(accountListService.getListOfAccounts()).thenReturn(Collections.singletonList(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         SpiAccountConsent spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/account-spi/spi-account-consent-global-owner-name.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
 
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(true);
-        when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
-                .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
+        when(ownerNameService.enrichAccountDetailsListWithOwnerName(Collections.singletonList(spiAccountDetailsFirstAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME));
 
         //When
         SpiResponse<List<SpiAccountDetails>> actualResponse = accountSpi.requestAccountList(SPI_CONTEXT_DATA, false,
@@ -533,7 +539,7 @@ class AccountSpiImplTest {
         accountAccess.setSpiAdditionalInformationAccess(new SpiAdditionalInformationAccess(Collections.emptyList(), Collections.emptyList()));
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(buildAccountDetailsTO(IBAN, RESOURCE_ID)));
         SpiAccountDetails spiAccountDetailsFirstAccount = buildSpiAccountDetails(IBAN, RESOURCE_ID);
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN, CURRENCY_EUR), accountAccess))
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN, CURRENCY_EUR)), accessIndexOf(accountAccess)))
                 .thenReturn(true);
         when(ownerNameService.enrichAccountDetailsWithOwnerName(spiAccountDetailsFirstAccount))
                 .thenReturn(buildSpiAccountDetailsWithOwnerName(IBAN, RESOURCE_ID, ACCOUNT_OWNER_NAME));
@@ -570,7 +576,7 @@ class AccountSpiImplTest {
     }
 
     private void verifyGetListOfAccounts() {
-        verify(accountRestClient).getListOfAccounts();
+        verify(accountListService).getListOfAccounts();
         verify(tokenService).response(ASPSP_CONSENT_DATA.getAspspConsentData());
         verify(authRequestInterceptor).setAccessToken("access_token");
         verify(authRequestInterceptor).setAccessToken(null);
@@ -582,7 +588,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -592,10 +597,10 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -604,7 +609,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
         SpiResponse<SpiAccountDetails> actualResponse = accountSpi.requestAccountDetailForAccount(SPI_CONTEXT_DATA, false, accountReference,
@@ -613,10 +617,10 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -644,7 +648,6 @@ class AccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
         when(accountRestClient.getTransactionById(accountReference.getResourceId(), TRANSACTION_ID)).thenReturn(ResponseEntity.ok(transactionTO));
 
         SpiResponse<SpiTransaction> actualResponse = accountSpi
@@ -653,10 +656,10 @@ class AccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getTransactionById(accountReference.getResourceId(), TRANSACTION_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -680,23 +683,56 @@ class AccountSpiImplTest {
     }
 
     @Test
-    void requestTransactionsByDownloadLink_success() throws NoSuchFieldException, IllegalAccessException {
+    void requestTransactionsForAccount_longPeriod_shouldExportTransactions() {
         BearerTokenTO bearerTokenTO = new BearerTokenTO();
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
+        when(transactionExportService.isExported(DATE_FROM, DATE_TO)).thenReturn(true);
+        when(transactionExportService.exportTransactions(CONSENT_ID, RESOURCE_ID, DATE_FROM, DATE_TO)).thenReturn(DOWNLOAD_ID);
+        when(accountRestClient.getBalances(RESOURCE_ID)).thenReturn(ResponseEntity.ok(Collections.emptyList()));
+
+        SpiResponse<SpiTransactionReport> actualResponse = accountSpi.requestTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_JSON_VALUE),
+                                                                                                    accountReference, spiAccountConsent, aspspConsentDataProvider);
 
-        String transactionList = "transactionList";
-        Field fieldTransactionList = accountSpi.getClass().getDeclaredField(transactionList);
-        fieldTransactionList.setAccessible(true);
-        fieldTransactionList.set(accountSpi, transactionList);
+        assertTrue(actualResponse.getErrors().isEmpty());
+        assertEquals(DOWNLOAD_ID, actualResponse.getPayload().getDownloadId());
+        assertTrue(actualResponse.getPayload().getTransactions().isEmpty());
+        verify(accountRestClient, never()).getTransactionByDates(any(), any(), any());
+        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+    }
+
+    @Test
+    void requestTransactionsByDownloadLink_success() {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        SpiTransactionsDownloadResponse downloadResponse = new SpiTransactionsDownloadResponse(new ByteArrayInputStream(BYTES), "transactions.json", BYTES.length);
+        when(transactionExportService.openExport(CONSENT_ID, DOWNLOAD_ID)).thenReturn(Optional.of(downloadResponse));
 
         SpiResponse<SpiTransactionsDownloadResponse> actualResponse = accountSpi
                                                                               .requestTransactionsByDownloadLink(SPI_CONTEXT_DATA, spiAccountConsent, DOWNLOAD_ID, aspspConsentDataProvider);
 
         assertTrue(actualResponse.getErrors().isEmpty());
-        assertNotNull(actualResponse.getPayload());
+        assertEquals(downloadResponse, actualResponse.getPayload());
+        verifyApplyAuthorisationUsedAndInterceptorWithNull();
+    }
+
+    @Test
+    void requestTransactionsByDownloadLink_unknownDownloadId() {
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+        when(transactionExportService.openExport(CONSENT_ID, DOWNLOAD_ID)).thenReturn(Optional.empty());
+
+        SpiResponse<SpiTransactionsDownloadResponse> actualResponse = accountSpi
+                                                                              .requestTransactionsByDownloadLink(SPI_CONTEXT_DATA, spiAccountConsent, DOWNLOAD_ID, aspspConsentDataProvider);
+
+        assertNull(actualResponse.getPayload());
+        assertEquals(Collections.singletonList(new TppMessage(MessageErrorCode.RESOURCE_UNKNOWN_404)), actualResponse.getErrors());
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
     }
 
@@ -779,4 +815,15 @@ class AccountSpiImplTest {
         additionalAccountInformationTO.setAccountOwnerName(ownerName);
         return additionalAccountInformationTO;
     }
+
+    private List<SpiAccountDetails> setOwnerNames(List<SpiAccountDetails> accountDetailsList, String... ownerNames) {
+        for (int i = 0; i < ownerNames.length; i++) {
+            accountDetailsList.get(i).setOwnerName(ownerNames[i]);
+        }
+        return accountDetailsList;
+    }
+
+    private ConsentAccessIndex accessIndexOf(SpiAccountAccess accountAccess) {
+        return argThat(accessIndex -> accountAccess.equals(accessIndex.getAccountAccess()));
+    }
 }
@@ -0,0 +1,125 @@
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.adorsys.aspsp.xs2a.connector.config.JacksonConfig;
+import de.adorsys.aspsp.xs2a.util.JsonReader;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAConsentResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.SCAResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
+import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
+import de.adorsys.psd2.xs2a.spi.domain.SpiAspspConsentDataProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AspspConsentDataServiceTest {
+    private static final byte[] CONSENT_DATA = "consent data".getBytes();
+    private static final byte[] OTHER_CONSENT_DATA = "other consent data".getBytes();
+
+    @Mock
+    private TokenStorageService tokenStorageService;
+    @Mock
+    private SpiAspspConsentDataProvider aspspConsentDataProvider;
+
+    private final ObjectMapper mapper = new JacksonConfig().objectMapper();
+    private final JsonReader jsonReader = new JsonReader();
+    private AspspConsentDataService aspspConsentDataService;
+    private SCAConsentResponseTO scaConsentResponseTO;
+
+    @BeforeEach
+    void setUp() {
+        aspspConsentDataService = new AspspConsentDataService(tokenStorageService, mapper, 100, 60_000);
+        scaConsentResponseTO = jsonReader.getObjectFromFile("json/config/auth/sca-consent-response.json", SCAConsentResponseTO.class);
+    }
+
+    @Test
+    void response_sameConsentData_shouldBeDecodedOnce() throws IOException {
+        // Given
+        when(tokenStorageService.fromBytes(CONSENT_DATA)).thenReturn(scaConsentResponseTO);
+
+        // When
+        SCAResponseTO first = aspspConsentDataService.response(CONSENT_DATA);
+        SCAResponseTO second = aspspConsentDataService.response(CONSENT_DATA.clone());
+
+        // Then
+        verify(tokenStorageService, times(1)).fromBytes(any());
+        assertTrue(second instanceof SCAConsentResponseTO);
+        assertNotSame(first, second);
+        assertEquals(mapper.writeValueAsString(first), mapper.writeValueAsString(second));
+    }
+
+    @Test
+    void response_modifiedResponse_shouldNotChangeCachedResponse() throws IOException {
+        // Given
+        when(tokenStorageService.fromBytes(CONSENT_DATA, SCAConsentResponseTO.class)).thenReturn(scaConsentResponseTO);
+        SCAConsentResponseTO first = aspspConsentDataService.response(CONSENT_DATA, SCAConsentResponseTO.class);
+        first.setScaStatus(ScaStatusTO.FINALISED);
+
+        // When
+        SCAConsentResponseTO second = aspspConsentDataService.response(CONSENT_DATA, SCAConsentResponseTO.class);
+
+        // Then
+        verify(tokenStorageService, times(1)).fromBytes(CONSENT_DATA, SCAConsentResponseTO.class);
+        assertEquals(ScaStatusTO.EXEMPTED, second.getScaStatus());
+    }
+
+    @Test
+    void response_differentConsentData_shouldBeDecodedSeparately() throws IOException {
+        // Given
+        when(tokenStorageService.fromBytes(any())).thenReturn(scaConsentResponseTO);
+
+        // When
+        aspspConsentDataService.response(CONSENT_DATA);
+        aspspConsentDataService.response(OTHER_CONSENT_DATA);
+
+        // Then
+        verify(tokenStorageService, times(1)).fromBytes(CONSENT_DATA);
+        verify(tokenStorageService, times(1)).fromBytes(OTHER_CONSENT_DATA);
+    }
+
+    @Test
+    void response_cacheDisabled_shouldDecodeEveryTime() throws IOException {
+        // Given
+        aspspConsentDataService = new AspspConsentDataService(tokenStorageService, mapper, 0, 60_000);
+        when(tokenStorageService.fromBytes(CONSENT_DATA)).thenReturn(scaConsentResponseTO);
+
+        // When
+        aspspConsentDataService.response(CONSENT_DATA);
+        aspspConsentDataService.response(CONSENT_DATA);
+
+        // Then
+        verify(tokenStorageService, times(2)).fromBytes(CONSENT_DATA);
+    }
+
+    @Test
+    void updateAspspConsentData_unchangedConsentData_shouldNotBeWritten() throws IOException {
+        // Given
+        when(tokenStorageService.toBytes(scaConsentResponseTO)).thenReturn(CONSENT_DATA.clone());
+
+        // When
+        aspspConsentDataService.updateAspspConsentData(aspspConsentDataProvider, CONSENT_DATA, scaConsentResponseTO);
+
+        // Then
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
+    }
+
+    @Test
+    void updateAspspConsentData_changedConsentData_shouldBeWritten() throws IOException {
+        // Given
+        when(tokenStorageService.toBytes(scaConsentResponseTO)).thenReturn(OTHER_CONSENT_DATA);
+
+        // When
+        aspspConsentDataService.updateAspspConsentData(aspspConsentDataProvider, CONSENT_DATA, scaConsentResponseTO);
+
+        // Then
+        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(OTHER_CONSENT_DATA);
+    }
+}
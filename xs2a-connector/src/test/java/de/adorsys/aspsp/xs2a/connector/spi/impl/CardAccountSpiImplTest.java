@@ -17,7 +17,11 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
 import de.adorsys.aspsp.xs2a.connector.account.IbanAccountReference;
+import de.adorsys.aspsp.xs2a.connector.account.LedgersCallExecutor;
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
+import de.adorsys.aspsp.xs2a.connector.account.ConsentAccessIndex;
 import de.adorsys.aspsp.xs2a.connector.account.OwnerNameService;
+import de.adorsys.aspsp.xs2a.connector.account.TransactionListService;
 import de.adorsys.aspsp.xs2a.connector.mock.IbanResolverMockService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapperImpl;
@@ -43,7 +47,7 @@ import feign.Response;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -80,7 +84,6 @@ class CardAccountSpiImplTest {
     private static final String MASKED_PAN_SECOND_ACCOUNT = "525412******3241";
     private static final Currency CURRENCY_EUR = Currency.getInstance("EUR");
 
-    @InjectMocks
     private CardAccountSpiImpl cardAccountSpi;
 
     @Mock
@@ -101,6 +104,12 @@ class CardAccountSpiImplTest {
     private IbanResolverMockService ibanResolverMockService;
     @Mock
     private OwnerNameService ownerNameService;
+    @Mock
+    private AccountListService accountListService;
+    @Mock
+    private LedgersCallExecutor ledgersCallExecutor;
+    @Mock
+    private TransactionListService transactionListService;
 
     private JsonReader jsonReader = new JsonReader();
     private SpiAccountConsent spiAccountConsent;
@@ -109,6 +118,9 @@ class CardAccountSpiImplTest {
 
     @BeforeEach
     void setUp() {
+        cardAccountSpi = new CardAccountSpiImpl(accountRestClient, accountMapper, authRequestInterceptor, tokenService, feignExceptionReader,
+                                                ibanResolverMockService, ownerNameService, accountListService, ledgersCallExecutor,
+                                                transactionListService, false);
         spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-account-consent.json", SpiAccountConsent.class);
         accountDetailsTO = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountReference = jsonReader.getObjectFromFile("json/spi/impl/account-reference.json", SpiAccountReference.class);
@@ -131,9 +143,7 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID))
                 .thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
@@ -141,11 +151,11 @@ class CardAccountSpiImplTest {
         SpiResponse<SpiCardTransactionReport> actualResponse = cardAccountSpi.requestCardTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
                                                                                                                 accountReference, spiAccountConsent, aspspConsentDataProvider);
         // Then
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
         verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_XML_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -157,9 +167,7 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID))
                 .thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
@@ -167,11 +175,11 @@ class CardAccountSpiImplTest {
         SpiResponse<SpiCardTransactionReport> actualResponse = cardAccountSpi.requestCardTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters("*/*"),
                                                                                                                 accountReference, spiAccountConsent, aspspConsentDataProvider);
         // Then
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
         verify(accountRestClient, times(1)).getBalances(RESOURCE_ID);
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
 
         assertEquals(MediaType.APPLICATION_JSON_VALUE, actualResponse.getPayload().getResponseContentType());
     }
@@ -183,13 +191,11 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
-        when(accountRestClient.getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO))
-                .thenReturn(ResponseEntity.ok(Collections.emptyList()));
+        when(transactionListService.getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any())).thenReturn(Collections.emptyList());
         when(accountRestClient.getBalances(RESOURCE_ID))
                 .thenReturn(ResponseEntity.ok(Collections.emptyList()));
 
-        when(tokenService.store(scaResponseTO)).thenThrow(getFeignException());
+        doThrow(getFeignException()).when(tokenService).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
 
         // When
         SpiResponse<SpiCardTransactionReport> actualResponse = cardAccountSpi.requestCardTransactionsForAccount(SPI_CONTEXT_DATA, buildSpiTransactionReportParameters(MediaType.APPLICATION_XML_VALUE),
@@ -197,12 +203,12 @@ class CardAccountSpiImplTest {
         // Then
         assertFalse(actualResponse.getErrors().isEmpty());
         assertNull(actualResponse.getPayload());
-        verify(aspspConsentDataProvider, times(2)).loadAspspConsentData();
-        verify(tokenService, times(2)).response(BYTES);
-        verify(authRequestInterceptor, times(2)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
-        verify(authRequestInterceptor, times(2)).setAccessToken(null);
-        verify(accountRestClient, times(1)).getTransactionByDates(RESOURCE_ID, DATE_FROM, DATE_TO);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
+        verify(tokenService, times(1)).response(BYTES);
+        verify(authRequestInterceptor, times(1)).setAccessToken(scaResponseTO.getBearerToken().getAccess_token());
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
+        verify(transactionListService, times(1)).getTransactions(eq(CONSENT_ID), eq(RESOURCE_ID), eq(DATE_FROM), eq(DATE_TO), isNull(), eq(false), any());
+        verify(tokenService, times(1)).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -212,12 +218,11 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
 
@@ -253,12 +258,11 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetails_1 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetails_2 = jsonReader.getObjectFromFile("json/spi/impl/account-details.json", AccountDetailsTO.class);
         accountDetails_2.setCurrency(Currency.getInstance("USD"));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetails_1, accountDetails_2)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetails_1, accountDetails_2));
 
 
         spiAccountConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-no-currency.json", SpiAccountConsent.class);
@@ -281,20 +285,19 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichCardAccountDetailsWithOwnerName(cardAccountDetailsFirstAccount))
-                .thenReturn(jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first-owner-name.json", SpiCardAccountDetails.class));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess))).thenReturn(true);
+        when(ownerNameService.enrichCardAccountDetailsListWithOwnerName(Collections.singletonList(cardAccountDetailsFirstAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME));
 
         // When
         SpiResponse<List<SpiCardAccountDetails>> actualResponse = cardAccountSpi.requestCardAccountList(SPI_CONTEXT_DATA, spiAccountConsent, aspspConsentDataProvider);
@@ -315,12 +318,11 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountConsent accountConsentWithTwoAccounts = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-account-consent-two-accounts.json", SpiAccountConsent.class);
         SpiAccountAccess accountAccess = accountConsentWithTwoAccounts.getAccess();
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
@@ -329,9 +331,9 @@ class CardAccountSpiImplTest {
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReferenceSecondAccount)).thenReturn(IBAN_SECOND_ACCOUNT);
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
-        when(ownerNameService.enrichCardAccountDetailsWithOwnerName(cardAccountDetailsFirstAccount))
-                .thenReturn(jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first-owner-name.json", SpiCardAccountDetails.class));
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess))).thenReturn(true);
+        when(ownerNameService.enrichCardAccountDetailsListWithOwnerName(Collections.singletonList(cardAccountDetailsFirstAccount)))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME));
 
         // When
         SpiResponse<List<SpiCardAccountDetails>> actualResponse = cardAccountSpi.requestCardAccountList(SPI_CONTEXT_DATA, accountConsentWithTwoAccounts, aspspConsentDataProvider);
@@ -353,11 +355,10 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_SECOND_ACCOUNT);
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_SECOND_ACCOUNT)).thenReturn(MASKED_PAN_SECOND_ACCOUNT);
@@ -373,7 +374,7 @@ class CardAccountSpiImplTest {
         assertEquals(1, actualPayload.size());
         assertNull(actualPayload.get(0).getOwnerName());
         verifyGetListOfAccounts();
-        verify(ownerNameService, never()).enrichCardAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).enrichCardAccountDetailsListWithOwnerName(any());
     }
 
     @Test
@@ -383,11 +384,10 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
         AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.ok(Arrays.asList(accountDetailsFirst, accountDetailsSecond)));
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
         SpiAccountReference cardAccountReference = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-reference.json", SpiAccountReference.class);
         when(ibanResolverMockService.handleIbanByAccountReference(cardAccountReference)).thenReturn(IBAN_SECOND_ACCOUNT);
 
@@ -401,8 +401,45 @@ class CardAccountSpiImplTest {
         assertEquals(1, actualPayload.size());
         assertNull(actualPayload.get(0).getOwnerName());
         verifyGetListOfAccounts();
-        verify(ownerNameService, never()).shouldContainOwnerName(any(), any());
-        verify(ownerNameService, never()).enrichCardAccountDetailsWithOwnerName(any());
+        verify(ownerNameService, never()).shouldContainOwnerName(any(), any(ConsentAccessIndex.class));
+        verify(ownerNameService, never()).enrichCardAccountDetailsListWithOwnerName(any());
+    }
+
+    @Test
+    void requestCardAccountList_globalConsent_shouldRequestOwnerNamesWithPsuToken() {
+        // Given
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token("access_token");
+        when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
+        when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
+
+        AccountDetailsTO accountDetailsFirst = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-first.json", AccountDetailsTO.class);
+        AccountDetailsTO accountDetailsSecond = jsonReader.getObjectFromFile("json/spi/impl/card-account/account-details-second.json", AccountDetailsTO.class);
+        when(accountListService.getListOfAccounts()).thenReturn(Arrays.asList(accountDetailsFirst, accountDetailsSecond));
+        SpiAccountConsent globalConsent = jsonReader.getObjectFromFile("json/spi/impl/spi-account-consent-global.json", SpiAccountConsent.class);
+        when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
+        when(ibanResolverMockService.getMaskedPanByIban(IBAN_SECOND_ACCOUNT)).thenReturn(MASKED_PAN_SECOND_ACCOUNT);
+        when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
+        when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_SECOND_ACCOUNT)).thenReturn(Optional.of(IBAN_SECOND_ACCOUNT));
+        when(ownerNameService.shouldContainOwnerName(any(IbanAccountReference.class), any(ConsentAccessIndex.class))).thenReturn(true);
+        when(ownerNameService.enrichCardAccountDetailsListWithOwnerName(any()))
+                .thenAnswer(invocation -> setOwnerNames(invocation.getArgument(0), ACCOUNT_OWNER_NAME, ACCOUNT_OWNER_NAME));
+
+        // When
+        SpiResponse<List<SpiCardAccountDetails>> actualResponse = cardAccountSpi.requestCardAccountList(SPI_CONTEXT_DATA, globalConsent, aspspConsentDataProvider);
+
+        // Then
+        assertTrue(actualResponse.isSuccessful());
+        List<SpiCardAccountDetails> actualPayload = actualResponse.getPayload();
+        assertEquals(2, actualPayload.size());
+        assertEquals(ACCOUNT_OWNER_NAME, actualPayload.get(0).getOwnerName());
+        assertEquals(ACCOUNT_OWNER_NAME, actualPayload.get(1).getOwnerName());
+
+        InOrder inOrder = inOrder(authRequestInterceptor, ownerNameService);
+        inOrder.verify(authRequestInterceptor).setAccessToken("access_token");
+        inOrder.verify(ownerNameService).enrichCardAccountDetailsListWithOwnerName(any());
+        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        verify(authRequestInterceptor, times(1)).setAccessToken(null);
     }
 
     @Test
@@ -412,7 +449,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -423,10 +459,10 @@ class CardAccountSpiImplTest {
         assertTrue(actualResponse.getErrors().isEmpty());
         assertNotNull(actualResponse.getPayload());
         verify(aspspConsentDataProvider, times(1)).loadAspspConsentData();
-        verify(aspspConsentDataProvider, times(1)).updateAspspConsentData(BYTES);
+        verify(aspspConsentDataProvider, never()).updateAspspConsentData(any());
         verifyApplyAuthorisationUsedAndInterceptorWithNull();
         verify(accountRestClient, times(1)).getAccountDetailsById(RESOURCE_ID);
-        verify(tokenService, times(1)).store(scaResponseTO);
+        verify(tokenService, times(1)).updateAspspConsentData(aspspConsentDataProvider, BYTES, scaResponseTO);
     }
 
     @Test
@@ -436,14 +472,13 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(true);
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess))).thenReturn(true);
         SpiCardAccountDetails cardAccountDetailsFirstAccount = jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first.json", SpiCardAccountDetails.class);
         when(ownerNameService.enrichCardAccountDetailsWithOwnerName(cardAccountDetailsFirstAccount))
                 .thenReturn(jsonReader.getObjectFromFile("json/spi/impl/card-account/spi-card-account-details-first-owner-name.json", SpiCardAccountDetails.class));
@@ -466,7 +501,6 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
@@ -482,7 +516,7 @@ class CardAccountSpiImplTest {
         SpiCardAccountDetails actualPayload = actualResponse.getPayload();
         assertNotNull(actualPayload);
         assertNull(actualPayload.getOwnerName());
-        verify(ownerNameService, never()).shouldContainOwnerName(any(), any());
+        verify(ownerNameService, never()).shouldContainOwnerName(any(), any(ConsentAccessIndex.class));
         verify(ownerNameService, never()).enrichCardAccountDetailsWithOwnerName(any());
     }
 
@@ -493,14 +527,13 @@ class CardAccountSpiImplTest {
         bearerTokenTO.setAccess_token("access_token");
         when(scaResponseTO.getBearerToken()).thenReturn(bearerTokenTO);
         when(tokenService.response(BYTES)).thenReturn(scaResponseTO);
-        when(tokenService.store(scaResponseTO)).thenReturn(BYTES);
 
         when(accountRestClient.getAccountDetailsById(RESOURCE_ID)).thenReturn(ResponseEntity.ok(accountDetailsTO));
 
         SpiAccountAccess accountAccess = spiAccountConsent.getAccess();
         when(ibanResolverMockService.getMaskedPanByIban(IBAN_FIRST_ACCOUNT)).thenReturn(MASKED_PAN_FIRST_ACCOUNT);
         when(ibanResolverMockService.getIbanByMaskedPan(MASKED_PAN_FIRST_ACCOUNT)).thenReturn(Optional.of(IBAN_FIRST_ACCOUNT));
-        when(ownerNameService.shouldContainOwnerName(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR), accountAccess)).thenReturn(false);
+        when(ownerNameService.shouldContainOwnerName(eq(new IbanAccountReference(IBAN_FIRST_ACCOUNT, CURRENCY_EUR)), accessIndexOf(accountAccess))).thenReturn(false);
 
         // When
         SpiResponse<SpiCardAccountDetails> actualResponse = cardAccountSpi.requestCardAccountDetailsForAccount(SPI_CONTEXT_DATA, accountReference,
@@ -527,9 +560,9 @@ class CardAccountSpiImplTest {
     }
 
     private void verifyGetListOfAccounts() {
-        verify(accountRestClient, times(1)).getListOfAccounts();
-        verify(tokenService, times(2)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
-        verify(authRequestInterceptor, times(2)).setAccessToken("access_token");
+        verify(accountListService, times(1)).getListOfAccounts();
+        verify(tokenService, times(1)).response(ASPSP_CONSENT_DATA.getAspspConsentData());
+        verify(authRequestInterceptor, times(1)).setAccessToken("access_token");
         verify(authRequestInterceptor).setAccessToken(null);
     }
 
@@ -555,4 +588,14 @@ class CardAccountSpiImplTest {
         return new SpiTransactionReportParameters(mediaType, true, DATE_FROM, DATE_TO, BookingStatus.BOOKED, null, null);
     }
 
-}
\ No newline at end of file
+    private List<SpiCardAccountDetails> setOwnerNames(List<SpiCardAccountDetails> cardAccountDetailsList, String... ownerNames) {
+        for (int i = 0; i < ownerNames.length; i++) {
+            cardAccountDetailsList.get(i).setOwnerName(ownerNames[i]);
+        }
+        return cardAccountDetailsList;
+    }
+
+    private ConsentAccessIndex accessIndexOf(SpiAccountAccess accountAccess) {
+        return argThat(accessIndex -> accountAccess.equals(accessIndex.getAccountAccess()));
+    }
+}
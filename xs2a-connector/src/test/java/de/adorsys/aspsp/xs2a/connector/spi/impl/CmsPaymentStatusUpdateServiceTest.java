@@ -1,6 +1,6 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
-import de.adorsys.aspsp.xs2a.connector.cms.CmsPsuPisClient;
+import de.adorsys.aspsp.xs2a.connector.cms.CmsPaymentStatusQueue;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
@@ -29,7 +29,7 @@ CmsPaymentStatusUpdateServiceTest {
     @Mock
     private TokenStorageService tokenStorageService;
     @Mock
-    private CmsPsuPisClient cmsPsuPisClient;
+    private CmsPaymentStatusQueue cmsPaymentStatusQueue;
     @Mock
     private RequestProviderService requestProviderService;
 
@@ -51,7 +51,7 @@ CmsPaymentStatusUpdateServiceTest {
         cmsPaymentStatusUpdateService.updatePaymentStatus(PAYMENT_ID, spiAspspConsentDataProvider);
 
         // Then
-        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+        verify(cmsPaymentStatusQueue).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
     }
 
     @Test
@@ -68,7 +68,7 @@ CmsPaymentStatusUpdateServiceTest {
         cmsPaymentStatusUpdateService.updatePaymentStatus(PAYMENT_ID, spiAspspConsentDataProvider);
 
         // Then
-        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
+        verify(cmsPaymentStatusQueue).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACCP, INSTANCE_ID);
     }
 
     @Test
@@ -85,7 +85,7 @@ CmsPaymentStatusUpdateServiceTest {
         cmsPaymentStatusUpdateService.updatePaymentStatus(PAYMENT_ID, spiAspspConsentDataProvider);
 
         // Then
-        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
+        verify(cmsPaymentStatusQueue).updatePaymentStatus(PAYMENT_ID, TransactionStatus.ACTC, INSTANCE_ID);
     }
 
     @Test
@@ -102,7 +102,7 @@ CmsPaymentStatusUpdateServiceTest {
         cmsPaymentStatusUpdateService.updatePaymentStatus(PAYMENT_ID, spiAspspConsentDataProvider);
 
         // Then
-        verify(cmsPsuPisClient).updatePaymentStatus(PAYMENT_ID, TransactionStatus.RCVD, INSTANCE_ID);
+        verify(cmsPaymentStatusQueue).updatePaymentStatus(PAYMENT_ID, TransactionStatus.RCVD, INSTANCE_ID);
     }
 
     @Test
@@ -116,6 +116,6 @@ CmsPaymentStatusUpdateServiceTest {
         cmsPaymentStatusUpdateService.updatePaymentStatus(PAYMENT_ID, spiAspspConsentDataProvider);
 
         // Then
-        verify(cmsPsuPisClient, never()).updatePaymentStatus(any(), any(), any());
+        verify(cmsPaymentStatusQueue, never()).updatePaymentStatus(any(), any(), any());
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
+import de.adorsys.aspsp.xs2a.util.TestSpiDataProvider;
+import de.adorsys.ledgers.middleware.api.domain.account.FundsConfirmationRequestTO;
+import de.adorsys.ledgers.rest.client.AccountRestClient;
+import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
+import de.adorsys.psd2.xs2a.core.error.MessageErrorCode;
+import de.adorsys.psd2.xs2a.spi.domain.fund.SpiFundsConfirmationRequest;
+import de.adorsys.psd2.xs2a.spi.domain.fund.SpiFundsConfirmationResponse;
+import de.adorsys.psd2.xs2a.spi.domain.response.SpiResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FundsConfirmationSpiImplTest {
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String NEW_ACCESS_TOKEN = "new_access_token";
+
+    @InjectMocks
+    private FundsConfirmationSpiImpl fundsConfirmationSpi;
+
+    @Mock
+    private AccountRestClient accountRestClient;
+    @Mock
+    private LedgersSpiAccountMapper accountMapper;
+    @Mock
+    private AuthRequestInterceptor authRequestInterceptor;
+    @Mock
+    private AspspConsentDataService tokenService;
+    @Mock
+    private SystemTokenService systemTokenService;
+
+    private SpiFundsConfirmationRequest spiFundsConfirmationRequest = new SpiFundsConfirmationRequest();
+    private FundsConfirmationRequestTO fundsConfirmationRequestTO = new FundsConfirmationRequestTO();
+
+    @BeforeEach
+    void setUp() {
+        when(accountMapper.toFundsConfirmationTO(any(), eq(spiFundsConfirmationRequest))).thenReturn(fundsConfirmationRequestTO);
+    }
+
+    @Test
+    void performFundsSufficientCheck_withoutConsent_shouldUseSystemToken() {
+        // Given
+        when(systemTokenService.getAccessToken()).thenReturn(ACCESS_TOKEN);
+        when(accountRestClient.fundsConfirmation(fundsConfirmationRequestTO)).thenReturn(ResponseEntity.ok(true));
+
+        // When
+        SpiResponse<SpiFundsConfirmationResponse> actualResponse = performFundsSufficientCheck();
+
+        // Then
+        assertTrue(actualResponse.getPayload().isFundsAvailable());
+        InOrder inOrder = inOrder(authRequestInterceptor, systemTokenService);
+        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        inOrder.verify(systemTokenService).getAccessToken();
+        inOrder.verify(authRequestInterceptor).setAccessToken(ACCESS_TOKEN);
+        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        verify(systemTokenService, never()).invalidate(any());
+    }
+
+    @Test
+    void performFundsSufficientCheck_systemTokenRejected_shouldRetryOnceWithNewToken() {
+        // Given
+        when(systemTokenService.getAccessToken()).thenReturn(ACCESS_TOKEN, NEW_ACCESS_TOKEN);
+        when(accountRestClient.fundsConfirmation(fundsConfirmationRequestTO))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "Token expired"))
+                .thenReturn(ResponseEntity.ok(true));
+
+        // When
+        SpiResponse<SpiFundsConfirmationResponse> actualResponse = performFundsSufficientCheck();
+
+        // Then
+        assertTrue(actualResponse.getPayload().isFundsAvailable());
+        InOrder inOrder = inOrder(authRequestInterceptor, systemTokenService);
+        inOrder.verify(systemTokenService).invalidate(ACCESS_TOKEN);
+        inOrder.verify(authRequestInterceptor).setAccessToken(null);
+        inOrder.verify(systemTokenService).getAccessToken();
+        inOrder.verify(authRequestInterceptor).setAccessToken(NEW_ACCESS_TOKEN);
+        verify(accountRestClient, times(2)).fundsConfirmation(fundsConfirmationRequestTO);
+    }
+
+    @Test
+    void performFundsSufficientCheck_newSystemTokenRejected_shouldReturnError() {
+        // Given
+        when(systemTokenService.getAccessToken()).thenReturn(ACCESS_TOKEN, NEW_ACCESS_TOKEN);
+        when(accountRestClient.fundsConfirmation(fundsConfirmationRequestTO))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "Token expired"));
+
+        // When
+        SpiResponse<SpiFundsConfirmationResponse> actualResponse = performFundsSufficientCheck();
+
+        // Then
+        assertFalse(actualResponse.getErrors().isEmpty());
+        assertEquals(MessageErrorCode.PSU_CREDENTIALS_INVALID, actualResponse.getErrors().get(0).getErrorCode());
+        verify(accountRestClient, times(2)).fundsConfirmation(fundsConfirmationRequestTO);
+        verify(authRequestInterceptor, times(3)).setAccessToken(null);
+    }
+
+    private SpiResponse<SpiFundsConfirmationResponse> performFundsSufficientCheck() {
+        return fundsConfirmationSpi.performFundsSufficientCheck(TestSpiDataProvider.getSpiContextData(), null,
+                                                                spiFundsConfirmationRequest, null);
+    }
+}
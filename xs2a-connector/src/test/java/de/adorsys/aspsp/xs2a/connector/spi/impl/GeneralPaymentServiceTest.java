@@ -1,7 +1,10 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl;
 
+import de.adorsys.aspsp.xs2a.connector.cms.CmsPaymentStatusQueue;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiPaymentMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.GeneralPaymentService;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.Pain002StatusReportWriter;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.PaymentStatusLookupService;
 import de.adorsys.aspsp.xs2a.util.JsonReader;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTO;
 import de.adorsys.ledgers.middleware.api.domain.payment.PaymentTypeTO;
@@ -38,6 +41,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 
@@ -51,7 +55,6 @@ class GeneralPaymentServiceTest {
     private static final String JSON_MEDIA_TYPE = "application/json";
     private static final String XML_MEDIA_TYPE = "application/xml";
     private static final String PSU_MESSAGE = "Mocked PSU message from SPI for this payment";
-    private static final String MOCK_XML_BODY = "<Document xmlns=\"urn:iso:std:iso:20022:tech:xsd:pain.002.001.03\"><CstmrPmtStsRpt><GrpHdr><MsgId>4572457256725689726906</MsgId><CreDtTm>2017-02-14T20:24:56.021Z</CreDtTm><DbtrAgt><FinInstnId><BIC>ABCDDEFF</BIC></FinInstnId></DbtrAgt><CdtrAgt><FinInstnId><BIC>DCBADEFF</BIC></FinInstnId></CdtrAgt></GrpHdr><OrgnlGrpInfAndSts><OrgnlMsgId>MIPI-123456789RI-123456789</OrgnlMsgId><OrgnlMsgNmId>pain.001.001.03</OrgnlMsgNmId><OrgnlCreDtTm>2017-02-14T20:23:34.000Z</OrgnlCreDtTm><OrgnlNbOfTxs>1</OrgnlNbOfTxs><OrgnlCtrlSum>123</OrgnlCtrlSum><GrpSts>ACCT</GrpSts></OrgnlGrpInfAndSts><OrgnlPmtInfAndSts><OrgnlPmtInfId>BIPI-123456789RI-123456789</OrgnlPmtInfId><OrgnlNbOfTxs>1</OrgnlNbOfTxs><OrgnlCtrlSum>123</OrgnlCtrlSum><PmtInfSts>ACCT</PmtInfSts></OrgnlPmtInfAndSts></CstmrPmtStsRpt></Document>";
     private static final byte[] ASPSP_CONSENT_DATA = "".getBytes();
     private static final String CONFIRMATION_CODE = "confirmation code";
     private static final String AUTHORISATION_ID = "authorisation id";
@@ -74,29 +77,33 @@ class GeneralPaymentServiceTest {
     private MultilevelScaService multilevelScaService;
     @Mock
     private UserMgmtRestClient userMgmtRestClient;
+    @Mock
+    private CmsPaymentStatusQueue cmsPaymentStatusQueue;
 
     private GeneralPaymentService generalPaymentService;
 
     @BeforeEach
     void setUp() {
-        generalPaymentService = new GeneralPaymentService(paymentRestClient, authRequestInterceptor, consentDataService, feignExceptionReader, MOCK_XML_BODY, multilevelScaService, userMgmtRestClient);
+        generalPaymentService = new GeneralPaymentService(paymentRestClient, authRequestInterceptor, consentDataService, feignExceptionReader, multilevelScaService, userMgmtRestClient, new PaymentStatusLookupService(0, 0), new Pain002StatusReportWriter(), cmsPaymentStatusQueue);
     }
 
     @Test
-    void getPaymentStatusById_withXmlMediaType_shouldReturnMockResponse() {
+    void getPaymentStatusById_withXmlMediaType_shouldReturnStatusReport() {
         // Given
-        byte[] xmlBody = MOCK_XML_BODY.getBytes();
         byte[] aspspConsentData = "".getBytes();
-        SpiGetPaymentStatusResponse expectedResponse = new SpiGetPaymentStatusResponse(TransactionStatus.ACSP, null, XML_MEDIA_TYPE, xmlBody, PSU_MESSAGE);
 
         // When
-        SpiResponse<SpiGetPaymentStatusResponse> spiResponse = generalPaymentService.getPaymentStatusById(PaymentTypeTO.SINGLE, XML_MEDIA_TYPE, "payment id", TransactionStatus.ACSP, aspspConsentData);
+        SpiResponse<SpiGetPaymentStatusResponse> spiResponse = generalPaymentService.getPaymentStatusById(PaymentTypeTO.SINGLE, XML_MEDIA_TYPE, "payment id", TransactionStatus.RJCT, aspspConsentData);
 
         // Then
         assertFalse(spiResponse.hasError());
 
         SpiGetPaymentStatusResponse payload = spiResponse.getPayload();
-        assertEquals(expectedResponse, payload);
+        assertEquals(TransactionStatus.RJCT, payload.getTransactionStatus());
+        assertEquals(XML_MEDIA_TYPE, payload.getResponseContentType());
+        String report = new String(payload.getPaymentStatusRaw(), StandardCharsets.UTF_8);
+        assertTrue(report.contains("<OrgnlPmtInfId>payment id</OrgnlPmtInfId><PmtInfSts>RJCT</PmtInfSts>"));
+        verifyNoInteractions(paymentRestClient);
     }
 
     @Test
@@ -115,6 +122,26 @@ class GeneralPaymentServiceTest {
         assertEquals(expectedResponse, payload);
     }
 
+    @Test
+    void getPaymentStatusById_withAcspStatus_shouldDiscardQueuedStatus() {
+        // Given
+        byte[] aspspConsentData = "data".getBytes();
+        SCAPaymentResponseTO sca = new SCAPaymentResponseTO();
+        sca.setPaymentId("payment id");
+        BearerTokenTO bearerToken = new BearerTokenTO();
+        bearerToken.setAccess_token("access_token");
+        sca.setBearerToken(bearerToken);
+        when(consentDataService.response(aspspConsentData, SCAPaymentResponseTO.class)).thenReturn(sca);
+        when(paymentRestClient.getPaymentStatusById("payment id")).thenReturn(ResponseEntity.ok(TransactionStatusTO.ACSC));
+
+        // When
+        SpiResponse<SpiGetPaymentStatusResponse> spiResponse = generalPaymentService.getPaymentStatusById(PaymentTypeTO.SINGLE, JSON_MEDIA_TYPE, "payment id", TransactionStatus.ACSP, aspspConsentData);
+
+        // Then
+        assertEquals(TransactionStatus.ACSC, spiResponse.getPayload().getTransactionStatus());
+        verify(cmsPaymentStatusQueue).discardPaymentStatus("payment id");
+    }
+
     @Test
     void getPaymentByIdTransactionStatusRCVD() {
         //Given
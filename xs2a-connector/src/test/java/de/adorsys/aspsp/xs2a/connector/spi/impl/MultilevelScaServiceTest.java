@@ -22,13 +22,14 @@ import de.adorsys.ledgers.middleware.api.domain.account.AccountReferenceTO;
 import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
 import de.adorsys.psd2.xs2a.spi.domain.account.SpiAccountReference;
 import de.adorsys.psd2.xs2a.spi.domain.psu.SpiPsuData;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -45,7 +46,6 @@ class MultilevelScaServiceTest {
     private static final String IBAN_1 = "DE52500105173911841934";
     private static final String IBAN_2 = "DE52500105173911841935";
     private static final String PSU_ID = "psuId";
-    @InjectMocks
     private MultilevelScaServiceImpl multilevelScaService;
     @Mock
     private UserMgmtRestClient userMgmtRestClient;
@@ -53,6 +53,11 @@ class MultilevelScaServiceTest {
     private LedgersSpiAccountMapper ledgersSpiAccountMapper;
     private JsonReader jsonReader = new JsonReader();
 
+    @BeforeEach
+    void setUp() {
+        multilevelScaService = new MultilevelScaServiceImpl(userMgmtRestClient, ledgersSpiAccountMapper, 100, 60_000);
+    }
+
     @Test
     void isMultilevelScaRequired_psuIdNull() {
         //Given
@@ -96,6 +101,35 @@ class MultilevelScaServiceTest {
         verify(userMgmtRestClient, atLeastOnce()).multilevelAccounts(PSU_ID, spiAccountReferences.stream().map(this::mapToAccountReferenceTO).collect(Collectors.toList()));
     }
 
+    @Test
+    void isMultilevelScaRequired_sameAccounts_shouldAskLedgersOnce() {
+        //Given
+        SpiPsuData spiPsuData = buildSpiPsuData(PSU_ID);
+        SpiAccountReference reference = buildSpiAccountReference(IBAN_1);
+        when(ledgersSpiAccountMapper.mapToAccountReferenceTO(reference)).thenReturn(mapToAccountReferenceTO(reference));
+        when(userMgmtRestClient.multilevelAccounts(anyString(), anyList())).thenReturn(ResponseEntity.ok(Boolean.TRUE));
+        //When
+        boolean first = multilevelScaService.isMultilevelScaRequired(spiPsuData, Collections.singleton(reference));
+        boolean second = multilevelScaService.isMultilevelScaRequired(spiPsuData, Collections.singleton(buildSpiAccountReference(IBAN_1)));
+        //Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(userMgmtRestClient, times(1)).multilevelAccounts(anyString(), anyList());
+    }
+
+    @Test
+    void isMultilevelScaRequired_cacheDisabled_shouldAskLedgersEveryTime() {
+        //Given
+        multilevelScaService = new MultilevelScaServiceImpl(userMgmtRestClient, ledgersSpiAccountMapper, 0, 0);
+        SpiPsuData spiPsuData = buildSpiPsuData(PSU_ID);
+        when(userMgmtRestClient.multilevelAccounts(anyString(), anyList())).thenReturn(ResponseEntity.ok(Boolean.TRUE));
+        //When
+        multilevelScaService.isMultilevelScaRequired(spiPsuData, Collections.emptySet());
+        multilevelScaService.isMultilevelScaRequired(spiPsuData, Collections.emptySet());
+        //Then
+        verify(userMgmtRestClient, times(2)).multilevelAccounts(PSU_ID, Collections.emptyList());
+    }
+
     private SpiPsuData buildSpiPsuData(String psuId) {
         return SpiPsuData.builder()
                        .psuId(psuId)
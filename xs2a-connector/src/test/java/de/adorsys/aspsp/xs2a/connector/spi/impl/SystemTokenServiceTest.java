@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl;
+
+import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
+import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
+import de.adorsys.ledgers.middleware.api.domain.um.UserRoleTO;
+import de.adorsys.ledgers.rest.client.UserMgmtRestClient;
+import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SystemTokenServiceTest {
+    private static final String LOGIN = "admin";
+    private static final String PASSWORD = "admin123";
+    private static final String ACCESS_TOKEN = "access_token";
+    private static final String NEW_ACCESS_TOKEN = "new_access_token";
+    private static final int EXPIRES_IN = 600;
+
+    @Mock
+    private UserMgmtRestClient userMgmtRestClient;
+
+    private SystemTokenService systemTokenService;
+
+    @BeforeEach
+    void setUp() {
+        systemTokenService = new SystemTokenService(userMgmtRestClient, LOGIN, PASSWORD, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        systemTokenService.destroy();
+    }
+
+    @Test
+    void getAccessToken_shouldLogInOnce() {
+        // Given
+        when(userMgmtRestClient.authorise(LOGIN, PASSWORD, UserRoleTO.SYSTEM)).thenReturn(loginResponse(ACCESS_TOKEN, EXPIRES_IN));
+
+        // When
+        String first = systemTokenService.getAccessToken();
+        String second = systemTokenService.getAccessToken();
+
+        // Then
+        assertEquals(ACCESS_TOKEN, first);
+        assertEquals(ACCESS_TOKEN, second);
+        verify(userMgmtRestClient, times(1)).authorise(any(), any(), any());
+    }
+
+    @Test
+    void getAccessToken_expiredToken_shouldLogInAgain() {
+        // Given
+        when(userMgmtRestClient.authorise(LOGIN, PASSWORD, UserRoleTO.SYSTEM))
+                .thenReturn(loginResponse(ACCESS_TOKEN, 1))
+                .thenReturn(loginResponse(NEW_ACCESS_TOKEN, EXPIRES_IN));
+
+        // When
+        String first = systemTokenService.getAccessToken();
+        String second = systemTokenService.getAccessToken();
+
+        // Then
+        assertEquals(ACCESS_TOKEN, first);
+        assertEquals(NEW_ACCESS_TOKEN, second);
+        verify(userMgmtRestClient, times(2)).authorise(any(), any(), any());
+    }
+
+    @Test
+    void invalidate_shouldLogInAgain() {
+        // Given
+        when(userMgmtRestClient.authorise(LOGIN, PASSWORD, UserRoleTO.SYSTEM))
+                .thenReturn(loginResponse(ACCESS_TOKEN, EXPIRES_IN))
+                .thenReturn(loginResponse(NEW_ACCESS_TOKEN, EXPIRES_IN));
+        systemTokenService.getAccessToken();
+
+        // When
+        systemTokenService.invalidate(ACCESS_TOKEN);
+        systemTokenService.invalidate(ACCESS_TOKEN);
+        String accessToken = systemTokenService.getAccessToken();
+
+        // Then
+        assertEquals(NEW_ACCESS_TOKEN, accessToken);
+        verify(userMgmtRestClient, times(2)).authorise(any(), any(), any());
+    }
+
+    @Test
+    void getAccessToken_loginFails_shouldThrowFeignException() {
+        // Given
+        when(userMgmtRestClient.authorise(LOGIN, PASSWORD, UserRoleTO.SYSTEM))
+                .thenThrow(FeignExceptionHandler.getException(HttpStatus.UNAUTHORIZED, "Invalid credentials"));
+
+        // Then
+        assertThrows(FeignException.class, () -> systemTokenService.getAccessToken());
+    }
+
+    @Test
+    void getAccessToken_concurrentCallers_shouldShareLogin() throws Exception {
+        // Given
+        CountDownLatch loginStarted = new CountDownLatch(1);
+        CountDownLatch releaseLogin = new CountDownLatch(1);
+        when(userMgmtRestClient.authorise(LOGIN, PASSWORD, UserRoleTO.SYSTEM)).thenAnswer(invocation -> {
+            loginStarted.countDown();
+            releaseLogin.await(5, TimeUnit.SECONDS);
+            return loginResponse(ACCESS_TOKEN, EXPIRES_IN);
+        });
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try {
+            // When
+            List<Future<String>> accessTokens = new ArrayList<>();
+            accessTokens.add(executorService.submit(systemTokenService::getAccessToken));
+            loginStarted.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 3; i++) {
+                accessTokens.add(executorService.submit(systemTokenService::getAccessToken));
+            }
+            Thread.sleep(50);
+            releaseLogin.countDown();
+
+            // Then
+            for (Future<String> accessToken : accessTokens) {
+                assertEquals(ACCESS_TOKEN, accessToken.get(5, TimeUnit.SECONDS));
+            }
+            verify(userMgmtRestClient, times(1)).authorise(any(), any(), any());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    void getAccessToken_shouldRefreshInBackground() throws InterruptedException {
+        // Given
+        systemTokenService.destroy();
+        systemTokenService = new SystemTokenService(userMgmtRestClient, LOGIN, PASSWORD, 59_900);
+        when(userMgmtRestClient.authorise(LOGIN, PASSWORD, UserRoleTO.SYSTEM))
+                .thenReturn(loginResponse(ACCESS_TOKEN, 60))
+                .thenReturn(loginResponse(NEW_ACCESS_TOKEN, EXPIRES_IN));
+
+        // When
+        systemTokenService.getAccessToken();
+
+        // Then
+        long deadline = System.currentTimeMillis() + 5_000;
+        String accessToken = systemTokenService.getAccessToken();
+        while (!NEW_ACCESS_TOKEN.equals(accessToken) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            accessToken = systemTokenService.getAccessToken();
+        }
+        assertEquals(NEW_ACCESS_TOKEN, accessToken);
+        verify(userMgmtRestClient, times(2)).authorise(any(), any(), any());
+    }
+
+    private ResponseEntity<SCALoginResponseTO> loginResponse(String accessToken, int expiresIn) {
+        BearerTokenTO bearerToken = new BearerTokenTO();
+        bearerToken.setAccess_token(accessToken);
+        bearerToken.setExpires_in(expiresIn);
+        SCALoginResponseTO response = new SCALoginResponseTO();
+        response.setBearerToken(bearerToken);
+        return ResponseEntity.ok(response);
+    }
+}
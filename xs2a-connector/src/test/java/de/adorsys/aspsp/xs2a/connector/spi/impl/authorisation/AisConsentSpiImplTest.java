@@ -1,5 +1,6 @@
 package de.adorsys.aspsp.xs2a.connector.spi.impl.authorisation;
 
+import de.adorsys.aspsp.xs2a.connector.account.AccountListService;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.AisConsentMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.LedgersSpiAccountMapper;
 import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaLoginMapper;
@@ -16,7 +17,6 @@ import de.adorsys.ledgers.middleware.api.domain.um.AccessTokenTO;
 import de.adorsys.ledgers.middleware.api.domain.um.AisConsentTO;
 import de.adorsys.ledgers.middleware.api.domain.um.BearerTokenTO;
 import de.adorsys.ledgers.middleware.api.service.TokenStorageService;
-import de.adorsys.ledgers.rest.client.AccountRestClient;
 import de.adorsys.ledgers.rest.client.AuthRequestInterceptor;
 import de.adorsys.ledgers.rest.client.ConsentRestClient;
 import de.adorsys.psd2.xs2a.core.consent.AspspConsentData;
@@ -53,7 +53,6 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static de.adorsys.ledgers.middleware.api.domain.sca.ScaStatusTO.*;
@@ -109,7 +108,7 @@ class AisConsentSpiImplTest {
     @Mock
     private ScaMethodConverter scaMethodConverter;
     @Mock
-    private AccountRestClient accountRestClient;
+    private AccountListService accountListService;
     @Mock
     private LedgersSpiAccountMapper accountMapper;
     @Mock
@@ -158,7 +157,7 @@ class AisConsentSpiImplTest {
         spiAccountConsent.setAccess(spiAccountAccess);
 
         when(accountMapper.toSpiAccountDetails(accountDetailsTOS.get(0))).thenReturn(spiAccountDetails.get(0));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.of(Optional.of(accountDetailsTOS)));
+        when(accountListService.getListOfAccounts()).thenReturn(accountDetailsTOS);
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         when(consentDataService.response(any())).thenReturn(scaResponseTO);
         when(consentRestClient.startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent))).thenReturn(ResponseEntity.ok(sca));
@@ -195,7 +194,7 @@ class AisConsentSpiImplTest {
         spiAccountConsent.setAccess(spiAccountAccess);
 
         when(accountMapper.toSpiAccountDetails(accountDetailsTOS.get(0))).thenReturn(spiAccountDetails.get(0));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.of(Optional.of(accountDetailsTOS)));
+        when(accountListService.getListOfAccounts()).thenReturn(accountDetailsTOS);
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         when(consentDataService.response(any())).thenReturn(scaResponseTO);
         when(consentRestClient.startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent))).thenReturn(ResponseEntity.ok(sca));
@@ -232,7 +231,7 @@ class AisConsentSpiImplTest {
         spiAccountConsent.setAccess(spiAccountAccess);
 
         when(accountMapper.toSpiAccountDetails(accountDetailsTOS.get(0))).thenReturn(spiAccountDetails.get(0));
-        when(accountRestClient.getListOfAccounts()).thenReturn(ResponseEntity.of(Optional.of(accountDetailsTOS)));
+        when(accountListService.getListOfAccounts()).thenReturn(accountDetailsTOS);
         when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
         when(consentDataService.response(any())).thenReturn(scaResponseTO);
         when(consentRestClient.startSCA(spiAccountConsent.getId(), aisConsentMapper.mapToAisConsent(spiAccountConsent))).thenReturn(ResponseEntity.ok(sca));
@@ -535,6 +534,25 @@ class AisConsentSpiImplTest {
         assertFalse(actual.hasError());
     }
 
+    @Test
+    void revokeAisConsent_shouldEvictListOfAccounts() {
+        // Given
+        when(spiAspspConsentDataProvider.loadAspspConsentData()).thenReturn(CONSENT_DATA_BYTES);
+
+        SCAConsentResponseTO initialConsentResponseTO = new SCAConsentResponseTO();
+        BearerTokenTO bearerTokenTO = new BearerTokenTO();
+        bearerTokenTO.setAccess_token(ACCESS_TOKEN);
+        initialConsentResponseTO.setBearerToken(bearerTokenTO);
+        when(consentDataService.response(CONSENT_DATA_BYTES, SCAConsentResponseTO.class, false)).thenReturn(initialConsentResponseTO);
+
+        // When
+        SpiResponse<SpiResponse.VoidResponse> actual = spi.revokeAisConsent(SPI_CONTEXT_DATA, spiAccountConsent, spiAspspConsentDataProvider);
+
+        // Then
+        assertFalse(actual.hasError());
+        verify(accountListService).evictListOfAccounts(ACCESS_TOKEN);
+    }
+
     @Test
     void revokeAisConsent_feignException() {
         // Given
@@ -5,6 +5,7 @@ import de.adorsys.aspsp.xs2a.connector.spi.converter.ScaMethodConverter;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.AspspConsentDataService;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionHandler;
 import de.adorsys.aspsp.xs2a.connector.spi.impl.FeignExceptionReader;
+import de.adorsys.aspsp.xs2a.connector.spi.impl.payment.PaymentStatusLookupService;
 import de.adorsys.aspsp.xs2a.util.TestSpiDataProvider;
 import de.adorsys.ledgers.middleware.api.domain.sca.OpTypeTO;
 import de.adorsys.ledgers.middleware.api.domain.sca.SCALoginResponseTO;
@@ -92,6 +93,8 @@ class PaymentCancellationSpiImplTest {
     private FeignExceptionReader feignExceptionReader;
     @Mock
     private TokenStorageService tokenStorageService;
+    @Mock
+    private PaymentStatusLookupService paymentStatusLookupService;
 
     @Spy
     private ScaMethodConverter scaMethodConverter = Mappers.getMapper(ScaMethodConverter.class);
@@ -167,6 +170,7 @@ class PaymentCancellationSpiImplTest {
         verify(consentDataService, times(1)).response(CONSENT_DATA_BYTES, SCAPaymentResponseTO.class, true);
         verify(authRequestInterceptor, times(1)).setAccessToken(ACCESS_TOKEN);
         verify(paymentRestClient, times(1)).initiatePmtCancellation(PAYMENT_ID);
+        verify(paymentStatusLookupService).evict(PAYMENT_ID);
     }
 
     @Test
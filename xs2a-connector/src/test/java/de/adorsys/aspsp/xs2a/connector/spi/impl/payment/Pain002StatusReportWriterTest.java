@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.payment;
+
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Pain002StatusReportWriterTest {
+    private static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:pain.002.001.03";
+    private static final String PAYMENT_ID = "payment id";
+
+    private final Pain002StatusReportWriter writer = new Pain002StatusReportWriter();
+    private final XPath xPath = XPathFactory.newInstance().newXPath();
+
+    @Test
+    void write_shouldRenderStatusReport() throws Exception {
+        // When
+        Document report = parse(writer.write(PAYMENT_ID, TransactionStatus.ACSP));
+
+        // Then
+        assertEquals(NAMESPACE, report.getDocumentElement().getAttribute("xmlns"));
+        assertEquals(32, xPath.evaluate("/Document/CstmrPmtStsRpt/GrpHdr/MsgId", report).length());
+        assertNotNull(OffsetDateTime.parse(xPath.evaluate("/Document/CstmrPmtStsRpt/GrpHdr/CreDtTm", report)));
+        assertEquals(PAYMENT_ID, xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlGrpInfAndSts/OrgnlMsgId", report));
+        assertEquals("pain.001.001.03", xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlGrpInfAndSts/OrgnlMsgNmId", report));
+        assertEquals("ACSP", xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlGrpInfAndSts/GrpSts", report));
+        assertEquals(PAYMENT_ID, xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlPmtInfAndSts/OrgnlPmtInfId", report));
+        assertEquals("ACSP", xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlPmtInfAndSts/PmtInfSts", report));
+    }
+
+    @Test
+    void write_statusNotDefinedByPain002_shouldRenderNearestStatus() throws Exception {
+        // When
+        Document accc = parse(writer.write(PAYMENT_ID, TransactionStatus.ACCC));
+        Document canc = parse(writer.write(PAYMENT_ID, TransactionStatus.CANC));
+
+        // Then
+        assertEquals("ACSC", xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlPmtInfAndSts/PmtInfSts", accc));
+        assertEquals("RJCT", xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlPmtInfAndSts/PmtInfSts", canc));
+    }
+
+    @Test
+    void write_shouldEscapePaymentId() throws Exception {
+        // Given
+        String paymentId = "<payment & id>";
+
+        // When
+        Document report = parse(writer.write(paymentId, TransactionStatus.RJCT));
+
+        // Then
+        assertEquals(paymentId, xPath.evaluate("/Document/CstmrPmtStsRpt/OrgnlGrpInfAndSts/OrgnlMsgId", report));
+    }
+
+    @Test
+    void write_consecutiveReports_shouldNotContainPreviousReport() {
+        // Given
+        byte[] first = writer.write("a much longer payment id of the first report", TransactionStatus.ACSP);
+
+        // When
+        byte[] second = writer.write("id", TransactionStatus.ACSP);
+
+        // Then
+        assertTrue(second.length < first.length);
+        assertTrue(new String(second).endsWith("</CstmrPmtStsRpt></Document>"));
+    }
+
+    private Document parse(byte[] report) throws Exception {
+        return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(report));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2018-2020 adorsys GmbH & Co KG
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.adorsys.aspsp.xs2a.connector.spi.impl.payment;
+
+import de.adorsys.psd2.xs2a.core.pis.TransactionStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentStatusLookupServiceTest {
+    private static final String PAYMENT_ID = "payment id";
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    @Test
+    void getPaymentStatus_withinTtl_shouldLookUpOnce() {
+        // Given
+        PaymentStatusLookupService lookupService = new PaymentStatusLookupService(100, 60_000);
+
+        // When
+        TransactionStatus first = lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.ACSP));
+        TransactionStatus second = lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.ACSC));
+
+        // Then
+        assertEquals(TransactionStatus.ACSP, first);
+        assertEquals(TransactionStatus.ACSP, second);
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void getPaymentStatus_afterTtl_shouldLookUpAgainUnlessFinal() throws InterruptedException {
+        // Given
+        PaymentStatusLookupService lookupService = new PaymentStatusLookupService(100, 1);
+        lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.ACSP));
+        TimeUnit.MILLISECONDS.sleep(20);
+
+        // When
+        TransactionStatus acsc = lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.ACSC));
+        TimeUnit.MILLISECONDS.sleep(20);
+        TransactionStatus cached = lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.RJCT));
+
+        // Then
+        assertEquals(TransactionStatus.ACSC, acsc);
+        assertEquals(TransactionStatus.ACSC, cached);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void evict_shouldLookUpAgain() {
+        // Given
+        PaymentStatusLookupService lookupService = new PaymentStatusLookupService(100, 60_000);
+        lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.ACSC));
+
+        // When
+        lookupService.evict(PAYMENT_ID);
+        TransactionStatus status = lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.CANC));
+
+        // Then
+        assertEquals(TransactionStatus.CANC, status);
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    void getPaymentStatus_concurrentLookups_shouldShareLedgersCall() throws Exception {
+        // Given
+        PaymentStatusLookupService lookupService = new PaymentStatusLookupService(0, 0);
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+        CompletableFuture<TransactionStatus> first = CompletableFuture.supplyAsync(() -> lookupService.getPaymentStatus(PAYMENT_ID, () -> {
+            lookupStarted.countDown();
+            await(releaseLookup);
+            lookups.incrementAndGet();
+            return TransactionStatus.ACSP;
+        }));
+        assertTrue(lookupStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        CompletableFuture<TransactionStatus> second = CompletableFuture.supplyAsync(() -> lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.RJCT)));
+        TimeUnit.MILLISECONDS.sleep(50);
+        releaseLookup.countDown();
+
+        // Then
+        assertEquals(TransactionStatus.ACSP, first.get(5, TimeUnit.SECONDS));
+        assertEquals(TransactionStatus.ACSP, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, lookups.get());
+    }
+
+    @Test
+    void getPaymentStatus_failedLookup_shouldNotBeCached() {
+        // Given
+        PaymentStatusLookupService lookupService = new PaymentStatusLookupService(100, 60_000);
+
+        // Then
+        assertThrows(IllegalStateException.class, () -> lookupService.getPaymentStatus(PAYMENT_ID, () -> {
+            throw new IllegalStateException("Ledgers is not available");
+        }));
+        assertEquals(TransactionStatus.ACSP, lookupService.getPaymentStatus(PAYMENT_ID, lookup(TransactionStatus.ACSP)));
+    }
+
+    private Supplier<TransactionStatus> lookup(TransactionStatus status) {
+        return () -> {
+            lookups.incrementAndGet();
+            return status;
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}